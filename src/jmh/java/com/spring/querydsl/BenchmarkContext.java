@@ -0,0 +1,26 @@
+package com.spring.querydsl;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * 벤치마크용 스프링 컨텍스트 (인메모리 H2, SQL 로그 끔)
+ */
+final class BenchmarkContext {
+
+    static ConfigurableApplicationContext start(String name, String... properties) {
+        String[] defaults = {
+                "spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                "spring.profiles.active=bench",
+                "logging.level.org.hibernate.SQL=warn",
+                "spring.main.web-application-type=none"
+        };
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .properties(defaults)
+                .properties(properties)
+                .run();
+    }
+
+    private BenchmarkContext() {
+    }
+}
@@ -0,0 +1,70 @@
+package com.spring.querydsl;
+
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 insert 처리량 : 식별자 블록 크기별 비교
+ * allocationSize=1 은 기존 @GeneratedValue(시퀀스 increment by 1)처럼 insert 마다 시퀀스를 조회한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberInsertBenchmark {
+
+    private static final int MEMBERS_PER_TRANSACTION = 1000;
+
+    @Param({"1", "50", "500"})
+    int allocationSize;
+
+    ConfigurableApplicationContext context;
+    TransactionTemplate transactionTemplate;
+    EntityManager em;
+    Long teamId;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start("insert" + allocationSize,
+                "spring.jpa.properties.hibernate.id.block_allocation_size=" + allocationSize);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        em = context.getBean(EntityManager.class);
+        teamId = transactionTemplate.execute(status -> {
+            Team team = new Team("teamA");
+            em.persist(team);
+            return team.getId();
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MEMBERS_PER_TRANSACTION)
+    public void insertMembers() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = em.getReference(Team.class, teamId);
+            for (int i = 0; i < MEMBERS_PER_TRANSACTION; i++) {
+                em.persist(new Member("member" + i, i, team));
+            }
+        });
+    }
+
+    @Benchmark
+    @Threads(8)
+    @OperationsPerInvocation(MEMBERS_PER_TRANSACTION)
+    public void insertMembersConcurrently() {
+        insertMembers();
+    }
+}
@@ -0,0 +1,102 @@
+package com.spring.querydsl;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.dto.MemberTeamDto;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.repository.MemberRepository;
+import com.spring.querydsl.sql.MemberSqlReader;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 MemberSearchCondition 조회 비교 : JPA(JPQL -> SQL 변환, 결과 변환) vs querydsl-sql(JDBC 에서 바로 DTO)
+ * - search* : 팀 하나의 회원 전체 (rows 건)
+ * - page* : 나이 조건 + 첫 페이지 20건 + count
+ * 처리량과 함께 gc 프로파일러의 gc.alloc.rate.norm(연산당 할당 바이트)을 비교한다. ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberSearchPathBenchmark {
+
+    @Param({"100", "1000"})
+    int rows;
+
+    ConfigurableApplicationContext context;
+    TransactionTemplate transactionTemplate;
+    MemberRepository memberRepository;
+    MemberSqlReader memberSqlReader;
+    MemberSearchCondition teamCondition;
+    MemberSearchCondition ageCondition;
+    PageRequest firstPage = PageRequest.of(0, 20);
+
+    @Setup
+    public void setup() {
+        // 두 경로 모두 member left join team 으로 조회하도록 팀 차원은 끈다.
+        context = BenchmarkContext.start("searchpath" + rows,
+                "querydsl.sql-path.enabled=true",
+                "querydsl.sql-path.methods=",
+                "querydsl.team-dimension.enabled=false");
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(true);
+        memberRepository = context.getBean(MemberRepository.class);
+        memberSqlReader = context.getBean(MemberSqlReader.class);
+
+        EntityManager em = context.getBean(EntityManager.class);
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            for (int t = 0; t < 10; t++) {
+                Team team = new Team("team" + t);
+                em.persist(team);
+                for (int i = 0; i < rows; i++) {
+                    em.persist(new Member("member" + t + "-" + i, i % 100, team));
+                }
+                em.flush();
+                em.clear();
+            }
+        });
+
+        teamCondition = new MemberSearchCondition();
+        teamCondition.setTeamName("team3");
+        ageCondition = new MemberSearchCondition();
+        ageCondition.setAgeGoe(20);
+        ageCondition.setAgeLoe(40);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> jpaSearch() {
+        return transactionTemplate.execute(status -> memberRepository.search(teamCondition));
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> sqlSearch() {
+        return transactionTemplate.execute(status -> memberSqlReader.content(teamCondition, 0, null));
+    }
+
+    @Benchmark
+    public Object jpaPage() {
+        return transactionTemplate.execute(status -> memberRepository.searchPageComplex(ageCondition, firstPage));
+    }
+
+    @Benchmark
+    public Object sqlPage() {
+        return transactionTemplate.execute(status -> List.of(
+                memberSqlReader.content(ageCondition, firstPage.getOffset(), (long) firstPage.getPageSize()),
+                memberSqlReader.count(ageCondition)));
+    }
+}
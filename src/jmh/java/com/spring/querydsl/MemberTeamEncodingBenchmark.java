@@ -0,0 +1,52 @@
+package com.spring.querydsl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.spring.querydsl.dto.MemberTeamColumns;
+import com.spring.querydsl.dto.MemberTeamDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemberTeamDto 목록 인코딩 비교 : JSON(행 단위) vs CBOR(컬럼 + 팀 이름 사전 인코딩)
+ * 페이로드 크기는 @Setup 에서 한번 출력한다.
+ * ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemberTeamEncodingBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int rows;
+
+    List<MemberTeamDto> members;
+    ObjectMapper jsonMapper = new ObjectMapper();
+    ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+    @Setup
+    public void setup() throws Exception {
+        members = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            long teamId = i % 10;
+            members.add(new MemberTeamDto((long) i, "member" + i, i % 100, teamId, "team" + teamId));
+        }
+        System.out.printf("%nrows=%d json=%d bytes cbor=%d bytes%n", rows, json().length, cbor().length);
+    }
+
+    @Benchmark
+    public byte[] json() throws Exception {
+        return jsonMapper.writeValueAsBytes(members);
+    }
+
+    @Benchmark
+    public byte[] cbor() throws Exception {
+        return cborMapper.writeValueAsBytes(new MemberTeamColumns(members));
+    }
+}
@@ -0,0 +1,59 @@
+package com.spring.querydsl;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 기동 시간 측정 (새 JVM 에서 한번씩 : SingleShotTime + 여러 fork)
+ * - timeToReady : 컨텍스트 기동 완료까지
+ * - timeToFirstResponse : 기동 + 첫 /v3/members 응답까지 (둘의 차이가 첫 요청 지연)
+ * warmup 파라미터로 QueryWarmup 유무를 비교한다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark {
+
+    @Param({"false", "true"})
+    boolean warmup;
+
+    ConfigurableApplicationContext context;
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public Object timeToReady() {
+        context = start();
+        return context;
+    }
+
+    @Benchmark
+    public String timeToFirstResponse() throws Exception {
+        context = start();
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/v3/members?teamName=teamA")).build();
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private ConfigurableApplicationContext start() {
+        return BenchmarkContext.start("startup",
+                "spring.main.web-application-type=servlet",
+                "server.port=0",
+                "querydsl.warmup.enabled=" + warmup);
+    }
+}
@@ -0,0 +1,113 @@
+package com.spring.querydsl;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.spring.querydsl.dto.MemberDto;
+import com.spring.querydsl.dto.TeamWithMembersDto;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.repository.TeamRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static com.querydsl.core.group.GroupBy.groupBy;
+import static com.querydsl.core.group.GroupBy.list;
+import static com.spring.querydsl.entity.QMember.member;
+import static com.spring.querydsl.entity.QTeam.team;
+
+/**
+ * 팀 -> 회원 묶기 비교
+ * - manualRegroup : select(member, team) 튜플을 받아 Map 으로 다시 묶기 (QuerydslBasicTest 방식)
+ * - querydslGroupBy : transform(groupBy(team.id).list(...))
+ * - teamMembersTransformer : TeamRepository#findTeamsWithMembers (미리 크기를 잡은 목록에 한번에 채우기)
+ * gc 프로파일러(-prof gc)로 할당량을 같이 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TeamGroupingBenchmark {
+
+    @Param({"10"})
+    int teams;
+
+    @Param({"1000"})
+    int membersPerTeam;
+
+    ConfigurableApplicationContext context;
+    TransactionTemplate transactionTemplate;
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+    TeamRepository teamRepository;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start("grouping");
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(false);
+        em = context.getBean(EntityManager.class);
+        queryFactory = new JPAQueryFactory(em);
+        teamRepository = context.getBean(TeamRepository.class);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int t = 0; t < teams; t++) {
+                Team team = new Team("team" + t);
+                em.persist(team);
+                for (int m = 0; m < membersPerTeam; m++) {
+                    em.persist(new Member("member" + m, m % 100, team));
+                }
+                em.flush();
+                em.clear();
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<Team, List<Member>> manualRegroup() {
+        return transactionTemplate.execute(status -> {
+            List<Tuple> rows = queryFactory
+                    .select(member, team)
+                    .from(member)
+                    .join(member.team, team)
+                    .fetch();
+            Map<Team, List<Member>> grouped = new LinkedHashMap<>();
+            for (Tuple row : rows) {
+                grouped.computeIfAbsent(row.get(team), key -> new ArrayList<>()).add(row.get(member));
+            }
+            return grouped;
+        });
+    }
+
+    @Benchmark
+    public List<TeamWithMembersDto> querydslGroupBy() {
+        return transactionTemplate.execute(status -> queryFactory
+                .from(member)
+                .join(member.team, team)
+                .orderBy(team.id.asc())
+                .transform(groupBy(team.id).list(Projections.constructor(TeamWithMembersDto.class,
+                        team.id,
+                        team.name,
+                        list(Projections.constructor(MemberDto.class, member.username, member.age))))));
+    }
+
+    @Benchmark
+    public List<TeamWithMembersDto> teamMembersTransformer() {
+        return transactionTemplate.execute(status ->
+                teamRepository.findTeamsWithMembers(PageRequest.of(0, teams)).getContent());
+    }
+}
@@ -0,0 +1,89 @@
+package com.spring.querydsl;
+
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.service.TeamMoveLockMode;
+import com.spring.querydsl.service.TeamMoveService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동시 팀 이동 경합 비교 : OPTIMISTIC(재시도) / PESSIMISTIC_WRITE / STRIPED
+ * hotMembers 가 작을수록 같은 회원을 동시에 옮기는 경합이 커진다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TeamMoveContentionBenchmark {
+
+    @Param({"OPTIMISTIC", "PESSIMISTIC_WRITE", "STRIPED"})
+    TeamMoveLockMode lockMode;
+
+    @Param({"16"})
+    int hotMembers;
+
+    ConfigurableApplicationContext context;
+    TeamMoveService teamMoveService;
+    List<Long> memberIds = new ArrayList<>();
+    List<Long> teamIds = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start("teamMove", "querydsl.team-move.max-attempts=50");
+        teamMoveService = context.getBean(TeamMoveService.class);
+        EntityManager em = context.getBean(EntityManager.class);
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            for (int i = 0; i < 4; i++) {
+                Team team = new Team("team" + i);
+                em.persist(team);
+                teamIds.add(team.getId());
+            }
+            for (int i = 0; i < hotMembers; i++) {
+                Member member = new Member("member" + i, i, em.find(Team.class, teamIds.get(i % teamIds.size())));
+                em.persist(member);
+                memberIds.add(member.getId());
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void move1Thread() {
+        move();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void move4Threads() {
+        move();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void move16Threads() {
+        move();
+    }
+
+    private void move() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long memberId = memberIds.get(random.nextInt(memberIds.size()));
+        Long teamId = teamIds.get(random.nextInt(teamIds.size()));
+        teamMoveService.moveTeam(memberId, teamId, lockMode);
+    }
+}
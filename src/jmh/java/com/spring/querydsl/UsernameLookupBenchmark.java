@@ -0,0 +1,107 @@
+package com.spring.querydsl;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.repository.UsernameExpressions;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.spring.querydsl.entity.QMember.member;
+
+/**
+ * 대소문자 무시 username 조회 비교
+ * - functionLower* : lower(member.username) = ? / like ? (컬럼을 함수로 감싸서 전체 스캔)
+ * - normalized* : username_normalized = ? / like ? (인덱스)
+ * setup 에서 H2 EXPLAIN 결과를 출력한다. (tableScan vs IDX_MEMBER_USERNAME_NORMALIZED)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UsernameLookupBenchmark {
+
+    @Param({"100000"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    TransactionTemplate transactionTemplate;
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start("username");
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        em = context.getBean(EntityManager.class);
+        queryFactory = new JPAQueryFactory(em);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < members; i++) {
+                em.persist(new Member((i % 2 == 0 ? "Member" : "MEMBER") + i, i % 100));
+                if (i % 1000 == 999) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+        });
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        for (String where : new String[]{
+                "lower(username) = 'member4242'",
+                "username_normalized = 'member4242'",
+                "username_normalized like 'member424%'"}) {
+            List<String> plan = jdbcTemplate.queryForList("explain select member_id from member where " + where, String.class);
+            System.out.println("[explain] " + where + " -> " + plan.get(0).replaceAll("\\s+", " "));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Long> functionLowerEq() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(member.id)
+                .from(member)
+                .where(member.username.lower().eq("member4242"))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Long> normalizedEq() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(member.id)
+                .from(member)
+                .where(UsernameExpressions.normalize(member.username.lower().eq("member4242")))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Long> functionLowerPrefix() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(member.id)
+                .from(member)
+                .where(member.username.startsWithIgnoreCase("member424"))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Long> normalizedPrefix() {
+        return transactionTemplate.execute(status -> queryFactory
+                .select(member.id)
+                .from(member)
+                .where(UsernameExpressions.usernameStartsWithIgnoreCase("MEMBER424"))
+                .fetch());
+    }
+}
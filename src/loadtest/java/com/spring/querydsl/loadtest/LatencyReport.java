@@ -0,0 +1,139 @@
+package com.spring.querydsl.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 엔드포인트별 지연 시간(HdrHistogram, us) / 실패 수 집계와 기준값 비교
+ * 지연 시간은 응답 시각 - 보내기로 예정된 시각이다. (서버가 밀려 늦게 보낸 시간도 포함, coordinated omission 보정)
+ */
+@Slf4j
+class LatencyReport {
+
+    /**
+     * 기준값과 비교하는 지표 (ms)
+     */
+    private static final String[] COMPARED = {"p50", "p99"};
+
+    private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new TreeMap<>();
+    private final Map<String, Long> errorCounts = new TreeMap<>();
+
+    void record(String endpoint, long latencyNanos) {
+        recorders.computeIfAbsent(endpoint, key -> new Recorder(3)).recordValue(Math.max(1, latencyNanos / 1000));
+    }
+
+    void error(String endpoint) {
+        errors.computeIfAbsent(endpoint, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * 워밍업 구간 기록을 버린다.
+     */
+    void reset() {
+        recorders.values().forEach(Recorder::getIntervalHistogram);
+        errors.values().forEach(LongAdder::reset);
+    }
+
+    /**
+     * 측정 구간 기록을 확정한다.
+     */
+    void finish() {
+        recorders.forEach((endpoint, recorder) -> histograms.put(endpoint, recorder.getIntervalHistogram()));
+        errors.forEach((endpoint, count) -> {
+            errorCounts.put(endpoint, count.sum());
+            // 모두 실패한 엔드포인트도 결과에 남긴다.
+            histograms.putIfAbsent(endpoint, new Histogram(3));
+        });
+    }
+
+    Properties summary(int durationSeconds) {
+        Properties summary = new Properties();
+        histograms.forEach((endpoint, histogram) -> {
+            summary.setProperty(endpoint + ".count", String.valueOf(histogram.getTotalCount()));
+            summary.setProperty(endpoint + ".errors", String.valueOf(errorCounts.getOrDefault(endpoint, 0L)));
+            summary.setProperty(endpoint + ".throughput", format((double) histogram.getTotalCount() / durationSeconds));
+            summary.setProperty(endpoint + ".p50", millis(histogram.getValueAtPercentile(50)));
+            summary.setProperty(endpoint + ".p90", millis(histogram.getValueAtPercentile(90)));
+            summary.setProperty(endpoint + ".p99", millis(histogram.getValueAtPercentile(99)));
+            summary.setProperty(endpoint + ".p999", millis(histogram.getValueAtPercentile(99.9)));
+            summary.setProperty(endpoint + ".max", millis(histogram.getMaxValue()));
+        });
+        return summary;
+    }
+
+    /**
+     * @return 허용치를 넘은 실패율 목록 (비어 있으면 통과)
+     */
+    List<String> errorRates(Properties summary, double maxErrorRate) {
+        List<String> failures = new ArrayList<>();
+        for (String endpoint : histograms.keySet()) {
+            long count = Long.parseLong(summary.getProperty(endpoint + ".count"));
+            long errorCount = Long.parseLong(summary.getProperty(endpoint + ".errors"));
+            double errorRate = (double) errorCount / Math.max(1, count + errorCount);
+            if (errorRate > maxErrorRate) {
+                failures.add(String.format("%s error rate %.2f%% > %.2f%%", endpoint, errorRate * 100, maxErrorRate * 100));
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * @return 기준값을 넘었거나 기준값이 없는 지표 목록 (비어 있으면 통과)
+     */
+    List<String> regressions(Properties summary, Properties baseline, double tolerance) {
+        List<String> failures = new ArrayList<>();
+        for (String endpoint : histograms.keySet()) {
+            for (String metric : COMPARED) {
+                String key = endpoint + "." + metric;
+                String expected = baseline.getProperty(key);
+                if (expected == null) {
+                    failures.add(key + " has no baseline");
+                    continue;
+                }
+                double actual = Double.parseDouble(summary.getProperty(key));
+                double limit = Double.parseDouble(expected) * (1 + tolerance);
+                if (actual > limit) {
+                    failures.add(String.format("%s %.2fms > baseline %sms (+%.0f%%)", key, actual, expected, tolerance * 100));
+                }
+            }
+        }
+        return failures;
+    }
+
+    static Properties load(Path path) throws IOException {
+        Properties properties = new Properties();
+        if (Files.exists(path)) {
+            try (Reader reader = Files.newBufferedReader(path)) {
+                properties.load(reader);
+            }
+        }
+        return properties;
+    }
+
+    static void store(Properties properties, Path path, String comment) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            properties.store(writer, comment);
+        }
+    }
+
+    private static String millis(long micros) {
+        return format(micros / 1000.0);
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}
@@ -0,0 +1,161 @@
+package com.spring.querydsl.loadtest;
+
+import com.spring.querydsl.QuerydslApplication;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * /v1 ~ /v3/members 부하 테스트 (./gradlew loadTest)
+ * 1. 인메모리 H2 로 앱을 띄우고 teams x members-per-team 명을 넣는다.
+ * 2. rate(초당 요청 수)에 맞춰 응답과 무관하게 요청을 보낸다. (open model)
+ * 3. warmup-seconds 동안의 기록은 버리고 duration-seconds 동안 엔드포인트별 지연 시간을 모은다.
+ * 4. 결과를 report 파일(build 아래)에 남기고 기준값과 비교해서 느려졌거나 실패가 많으면 exit code 1 로 끝난다.
+ *    기준값이 없어도 실패한다. update-baseline 이면 비교 대신 build/loadtest/baseline.properties 에 새 기준값을 쓴다.
+ *    (실패율 검사는 항상 한다, 소스 트리의 기준값 파일은 직접 복사해서 커밋한다)
+ */
+@Slf4j
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = new LoadTestSettings();
+        int exitCode;
+        try (ConfigurableApplicationContext context = start(settings)) {
+            seed(context, settings);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            exitCode = run(new RequestMix("http://localhost:" + port, settings), settings);
+        }
+        System.exit(exitCode);
+    }
+
+    private static ConfigurableApplicationContext start(LoadTestSettings settings) {
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .profiles("loadtest")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                        "server.port=0",
+                        "logging.level.org.hibernate.SQL=warn")
+                .properties(settings.appProperties())
+                .run();
+    }
+
+    private static void seed(ConfigurableApplicationContext context, LoadTestSettings settings) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        EntityManager em = context.getBean(EntityManager.class);
+        transactionTemplate.executeWithoutResult(status -> {
+            int sequence = 0;
+            for (int t = 0; t < settings.getTeams(); t++) {
+                Team team = new Team("team" + t);
+                em.persist(team);
+                for (int m = 0; m < settings.getMembersPerTeam(); m++, sequence++) {
+                    em.persist(new Member("member" + sequence, 10 + sequence % 60, team));
+                }
+                em.flush();
+                em.clear();
+            }
+        });
+        log.info("seeded {} teams x {} members", settings.getTeams(), settings.getMembersPerTeam());
+    }
+
+    private static int run(RequestMix mix, LoadTestSettings settings) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        HttpClient client = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        LatencyReport report = new LatencyReport();
+        Semaphore inFlight = new Semaphore(settings.getMaxInFlight());
+        try {
+            drive(client, mix, report, inFlight, settings.getRate(), settings.getWarmupSeconds());
+            awaitInFlight(inFlight, settings.getMaxInFlight());
+            report.reset();
+
+            drive(client, mix, report, inFlight, settings.getRate(), settings.getDurationSeconds());
+            awaitInFlight(inFlight, settings.getMaxInFlight());
+            report.finish();
+        } finally {
+            executor.shutdownNow();
+        }
+        return compare(report, settings);
+    }
+
+    /**
+     * 예정 시각마다 요청을 보낸다. 지연 시간은 예정 시각부터 센다.
+     */
+    private static void drive(HttpClient client, RequestMix mix, LatencyReport report, Semaphore inFlight,
+                              int rate, int seconds) {
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        for (long scheduled = start; scheduled < end; scheduled += interval) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            RequestMix.Request request = mix.next();
+            if (!inFlight.tryAcquire()) {
+                report.error(request.endpoint);
+                continue;
+            }
+            long sentAt = scheduled;
+            HttpRequest httpRequest = HttpRequest.newBuilder(request.uri).timeout(Duration.ofSeconds(30)).GET().build();
+            client.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        inFlight.release();
+                        if (failure != null || response.statusCode() != 200) {
+                            report.error(request.endpoint);
+                        } else {
+                            report.record(request.endpoint, System.nanoTime() - sentAt);
+                        }
+                    });
+        }
+    }
+
+    private static void awaitInFlight(Semaphore inFlight, int maxInFlight) throws InterruptedException {
+        if (inFlight.tryAcquire(maxInFlight, 60, TimeUnit.SECONDS)) {
+            inFlight.release(maxInFlight);
+        }
+    }
+
+    private static int compare(LatencyReport report, LoadTestSettings settings) throws Exception {
+        Properties summary = report.summary(settings.getDurationSeconds());
+        LatencyReport.store(summary, settings.getReport(), "loadTest result");
+        summary.stringPropertyNames().stream().sorted().forEach(key -> log.info("{} = {}", key, summary.getProperty(key)));
+
+        List<String> failures = new ArrayList<>(report.errorRates(summary, settings.getMaxErrorRate()));
+        if (settings.isUpdateBaseline()) {
+            if (failures.isEmpty()) {
+                LatencyReport.store(summary, settings.getBaselineOutput(), "loadTest baseline (latency ms)");
+                log.info("baseline written to {}, copy it to {} to accept it", settings.getBaselineOutput(), settings.getBaseline());
+            }
+        } else {
+            Properties baseline = LatencyReport.load(settings.getBaseline());
+            if (baseline.isEmpty()) {
+                failures.add("no baseline in " + settings.getBaseline() + ", record one with -Ploadtest.update-baseline=true");
+            } else {
+                failures.addAll(report.regressions(summary, baseline, settings.getTolerance()));
+            }
+        }
+        failures.forEach(failure -> log.error("regression: {}", failure));
+        return failures.isEmpty() ? 0 : 1;
+    }
+}
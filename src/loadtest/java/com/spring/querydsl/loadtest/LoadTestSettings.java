@@ -0,0 +1,70 @@
+package com.spring.querydsl.loadtest;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 부하 테스트 설정 (시스템 프로퍼티 loadtest.*, gradle 에서는 -Ploadtest.* 로 넘긴다)
+ * loadtest.app.* 는 앞부분을 뗀 뒤 애플리케이션 프로퍼티로 넘긴다. (예: -Ploadtest.app.querydsl.team-dimension.enabled=false)
+ */
+@Getter
+class LoadTestSettings {
+
+    private final int teams = intValue("teams", 10);
+    private final int membersPerTeam = intValue("members-per-team", 2000);
+    /**
+     * 초당 요청 수 (응답을 기다리지 않고 이 간격으로 보낸다)
+     */
+    private final int rate = intValue("rate", 200);
+    private final int warmupSeconds = intValue("warmup-seconds", 10);
+    private final int durationSeconds = intValue("duration-seconds", 30);
+    /**
+     * 동시에 기다리는 요청이 이보다 많으면 보내지 않고 실패로 센다.
+     */
+    private final int maxInFlight = intValue("max-in-flight", 1000);
+    /**
+     * 엔드포인트 비중 (v1:1,v2:4,v3:4)
+     */
+    private final Map<String, Integer> mix = mix(System.getProperty("loadtest.mix", "v1:1,v2:4,v3:4"));
+    /**
+     * 기준값 대비 허용 증가율 (0.25 : 25% 까지)
+     */
+    private final double tolerance = doubleValue("tolerance", 0.25);
+    private final double maxErrorRate = doubleValue("max-error-rate", 0.01);
+    private final boolean updateBaseline = Boolean.parseBoolean(System.getProperty("loadtest.update-baseline", "false"));
+    private final Path baseline = Paths.get(System.getProperty("loadtest.baseline", "src/loadtest/resources/baseline.properties"));
+    private final Path report = Paths.get(System.getProperty("loadtest.report", "build/loadtest/result.properties"));
+    /**
+     * update-baseline 일 때 새 기준값을 쓰는 곳, 기준값 파일(baseline)은 직접 복사해서 커밋한다.
+     */
+    private final Path baselineOutput = Paths.get(System.getProperty("loadtest.baseline-output", "build/loadtest/baseline.properties"));
+
+    Map<String, Object> appProperties() {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("loadtest.app."))
+                .forEach(name -> properties.put(name.substring("loadtest.app.".length()), System.getProperty(name)));
+        return properties;
+    }
+
+    private static int intValue(String name, int defaultValue) {
+        return Integer.parseInt(System.getProperty("loadtest." + name, String.valueOf(defaultValue)));
+    }
+
+    private static double doubleValue(String name, double defaultValue) {
+        return Double.parseDouble(System.getProperty("loadtest." + name, String.valueOf(defaultValue)));
+    }
+
+    private static Map<String, Integer> mix(String value) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] pair = entry.trim().split(":");
+            weights.put(pair[0], Integer.parseInt(pair[1]));
+        }
+        return weights;
+    }
+}
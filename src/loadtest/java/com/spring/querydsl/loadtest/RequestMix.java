@@ -0,0 +1,69 @@
+package com.spring.querydsl.loadtest;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 엔드포인트 비중과 MemberSearchCondition / Pageable 조합으로 요청을 만든다.
+ * - teamName : 50%, ageGoe ~ ageLoe : 30%, username : 10% (각각 독립)
+ * - v2 / v3 : page 0 ~ 4, size 10 / 20 / 50
+ */
+class RequestMix {
+
+    private static final int[] PAGE_SIZES = {10, 20, 50};
+
+    private final String baseUrl;
+    private final int teams;
+    private final int members;
+    private final List<String> endpoints = new ArrayList<>();
+
+    RequestMix(String baseUrl, LoadTestSettings settings) {
+        this.baseUrl = baseUrl;
+        this.teams = settings.getTeams();
+        this.members = settings.getTeams() * settings.getMembersPerTeam();
+        for (Map.Entry<String, Integer> entry : settings.getMix().entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                endpoints.add(entry.getKey());
+            }
+        }
+    }
+
+    Request next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String endpoint = endpoints.get(random.nextInt(endpoints.size()));
+        StringBuilder query = new StringBuilder();
+        if (random.nextInt(100) < 50) {
+            append(query, "teamName", "team" + random.nextInt(teams));
+        }
+        if (random.nextInt(100) < 30) {
+            int ageGoe = 10 + random.nextInt(50);
+            append(query, "ageGoe", String.valueOf(ageGoe));
+            append(query, "ageLoe", String.valueOf(ageGoe + random.nextInt(20)));
+        }
+        if (random.nextInt(100) < 10) {
+            append(query, "username", "member" + random.nextInt(members));
+        }
+        if (!endpoint.equals("v1")) {
+            append(query, "page", String.valueOf(random.nextInt(5)));
+            append(query, "size", String.valueOf(PAGE_SIZES[random.nextInt(PAGE_SIZES.length)]));
+        }
+        return new Request(endpoint, URI.create(baseUrl + "/" + endpoint + "/members" + query));
+    }
+
+    private static void append(StringBuilder query, String name, String value) {
+        query.append(query.length() == 0 ? '?' : '&').append(name).append('=').append(value);
+    }
+
+    static class Request {
+        final String endpoint;
+        final URI uri;
+
+        Request(String endpoint, URI uri) {
+            this.endpoint = endpoint;
+            this.uri = uri;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.spring.querydsl.changefeed;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import com.spring.querydsl.entity.ChangeOperation;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.function.Consumer;
+
+/**
+ * 변경 피드에 영향받은 식별자 범위를 남기는 벌크 update/delete
+ * 실행 전에 같은 조건으로 min/max(id) 를 구해서 BULK_UPDATE/BULK_DELETE 한 건으로 기록한다.
+ * 범위 안의 모든 행이 바뀐 것은 아니므로 소비자는 범위를 무효화하거나 다시 조회해야 한다.
+ * querydsl.change-feed.enabled=false 이면 벌크 연산만 실행한다.
+ */
+@Component
+public class ChangeFeedBulk {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final boolean enabled;
+
+    public ChangeFeedBulk(EntityManager em,
+                          @Value("${querydsl.change-feed.enabled:false}") boolean enabled) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.enabled = enabled;
+    }
+
+    @Transactional
+    public long update(EntityPath<?> entity, NumberPath<Long> id, Predicate where,
+                       Consumer<JPAUpdateClause> assignments) {
+        long[] range = idRange(entity, id, where);
+        JPAUpdateClause update = queryFactory.update(entity).where(where);
+        assignments.accept(update);
+        long affected = update.execute();
+        record(entity, range, affected, ChangeOperation.BULK_UPDATE);
+        return affected;
+    }
+
+    @Transactional
+    public long delete(EntityPath<?> entity, NumberPath<Long> id, Predicate where) {
+        long[] range = idRange(entity, id, where);
+        long affected = queryFactory.delete(entity).where(where).execute();
+        record(entity, range, affected, ChangeOperation.BULK_DELETE);
+        return affected;
+    }
+
+    /**
+     * @return {min, max}, 기록하지 않거나 대상 행이 없으면 null
+     */
+    private long[] idRange(EntityPath<?> entity, NumberPath<Long> id, Predicate where) {
+        if (!enabled) {
+            return null;
+        }
+        NumberExpression<Long> min = id.min();
+        NumberExpression<Long> max = id.max();
+        Tuple range = queryFactory
+                .select(min, max)
+                .from(entity)
+                .where(where)
+                .fetchOne();
+        if (range == null || range.get(min) == null) {
+            return null;
+        }
+        return new long[]{range.get(min), range.get(max)};
+    }
+
+    private void record(EntityPath<?> entity, long[] range, long affected, ChangeOperation operation) {
+        if (range == null || affected == 0) {
+            return;
+        }
+        ChangeFeedWriter.append(em.unwrap(SessionImplementor.class), entity.getType().getSimpleName(), operation,
+                range[0], range[1]);
+    }
+}
@@ -0,0 +1,24 @@
+package com.spring.querydsl.changefeed;
+
+import com.spring.querydsl.entity.event.EntityCommitHook;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * querydsl.change-feed.enabled=true 일 때 change_event 기록 리스너를 등록한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "querydsl.change-feed.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ChangeFeedConfig {
+
+    private final EntityCommitHook entityCommitHook;
+
+    @PostConstruct
+    public void registerListener() {
+        entityCommitHook.subscribe(new ChangeFeedListener());
+    }
+}
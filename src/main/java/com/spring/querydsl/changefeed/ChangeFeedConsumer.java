@@ -0,0 +1,15 @@
+package com.spring.querydsl.changefeed;
+
+import java.util.List;
+
+/**
+ * 변경 피드 소비자 (캐시 무효화, 카운터, 검색 인덱스 등)
+ * 빈으로 등록하면 ChangeFeedRelay 가 id 순서대로 묶어서 전달한다.
+ * 예외를 던지면 해당 묶음부터 다음 주기에 다시 전달한다.
+ */
+public interface ChangeFeedConsumer {
+
+    String name();
+
+    void accept(List<ChangeRecord> changes);
+}
@@ -0,0 +1,22 @@
+package com.spring.querydsl.changefeed;
+
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.entity.event.EntityChange;
+import com.spring.querydsl.entity.event.EntityCommitListener;
+
+/**
+ * 엔티티 단위 Member/Team 변경을 change_event 에 기록하는 EntityCommitHook 구독자
+ * 벌크 연산은 이벤트가 발생하지 않으므로 ChangeFeedBulk 를 통해 실행해야 기록된다.
+ */
+public class ChangeFeedListener implements EntityCommitListener {
+
+    @Override
+    public void onChange(EntityChange change) {
+        if (change.is(Member.class) || change.is(Team.class)) {
+            long entityId = (Long) change.getId();
+            ChangeFeedWriter.append(change.getSession(), change.getEntity().getClass().getSimpleName(),
+                    change.getOperation(), entityId, entityId);
+        }
+    }
+}
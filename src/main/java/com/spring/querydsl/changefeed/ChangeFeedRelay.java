@@ -0,0 +1,245 @@
+package com.spring.querydsl.changefeed;
+
+import com.spring.querydsl.entity.ChangeOperation;
+import com.spring.querydsl.shard.ShardTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * change_event outbox 를 주기적으로 읽어 ChangeFeedConsumer 들에게 전달한다. (querydsl.change-feed.enabled=true)
+ * - 순서 : outbox id 순서대로, 최대 batch-size 건씩 묶어서 전달한다. 샤딩 시에는 샤드별 outbox 를 각각 전달한다.
+ * - at-least-once : 소비자별 전달 위치(offset)는 accept 가 정상 반환한 뒤에만 전진한다.
+ *   인스턴스(instance-id)마다 전달 위치를 change_feed_offset 에 저장하고, 살아 있는 모든 인스턴스의 모든 소비자에게
+ *   전달된 행만 지운다. 그래서 여러 인스턴스가 같은 outbox 를 읽어도 각 인스턴스가 모든 변경을 받는다.
+ *   같은 instance-id 로 재시작하면 저장된 위치부터, 새 instance-id 면 남은 행부터 다시 전달된다.
+ *   마지막으로 전달된 행 하나는 지우지 않고 남겨서 재시작 후 빈 id 검사의 기준으로 쓴다. (재시작 시 한번 더 전달될 수 있다)
+ * - 멈춘 인스턴스 : instance-timeout-ms 동안 poll 하지 않은 인스턴스의 위치는 지우고 기다리지 않는다.
+ *   그보다 오래 멈췄다 돌아온 인스턴스는 그사이 지워진 변경을 받지 못할 수 있다.
+ * - 빈 id : 먼저 id 를 받은 트랜잭션이 아직 커밋 전일 수 있으므로, 빈 id 를 처음 본 때부터 gap-timeout-ms 동안
+ *   그 뒤 행은 전달하지 않는다. 그 시간이 지나도 채워지지 않으면 롤백된 것으로 보고 건너뛴다.
+ *   전달/삭제 위치는 빈 id 검사를 마친 위치를 넘지 않는다.
+ * - 지연 : changefeed.lag (기록 시각 ~ 소비자 accept 완료) 를 소비자별로 기록한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "querydsl.change-feed.enabled", havingValue = "true")
+public class ChangeFeedRelay {
+
+    private static final RowMapper<ChangeRecord> ROW_MAPPER = (rs, rowNum) -> new ChangeRecord(
+            rs.getLong("change_event_id"),
+            rs.getString("entity_type"),
+            ChangeOperation.valueOf(rs.getString("operation")),
+            rs.getLong("id_from"),
+            rs.getLong("id_to"),
+            rs.getLong("created_at"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardTemplate shardTemplate;
+    private final List<ChangeFeedConsumer> consumers;
+    private final MeterRegistry meterRegistry;
+    private final Counter failures;
+    private final int batchSize;
+    private final long gapTimeoutMs;
+    private final String instanceId;
+    private final long instanceTimeoutMs;
+    private final Map<Integer, Feed> feeds = new HashMap<>();
+
+    public ChangeFeedRelay(JdbcTemplate jdbcTemplate,
+                           ObjectProvider<ShardTemplate> shardTemplate,
+                           ObjectProvider<ChangeFeedConsumer> consumers,
+                           MeterRegistry meterRegistry,
+                           @Value("${querydsl.change-feed.batch-size:500}") int batchSize,
+                           @Value("${querydsl.change-feed.gap-timeout-ms:1000}") long gapTimeoutMs,
+                           @Value("${querydsl.change-feed.instance-id:}") String instanceId,
+                           @Value("${querydsl.change-feed.instance-timeout-ms:60000}") long instanceTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardTemplate = shardTemplate.getIfAvailable();
+        this.consumers = consumers.orderedStream().collect(Collectors.toList());
+        this.meterRegistry = meterRegistry;
+        this.failures = meterRegistry.counter("changefeed.failures");
+        this.batchSize = batchSize;
+        this.gapTimeoutMs = gapTimeoutMs;
+        this.instanceId = instanceId.isEmpty() ? UUID.randomUUID().toString() : instanceId;
+        this.instanceTimeoutMs = instanceTimeoutMs;
+    }
+
+    public String instanceId() {
+        return instanceId;
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.change-feed.poll-interval-ms:200}")
+    public void scheduledPoll() {
+        poll();
+    }
+
+    /**
+     * 샤드(또는 단일 DB)마다 한 묶음씩 전달한다.
+     * @return 이번에 읽은 변경 수
+     */
+    public synchronized int poll() {
+        int shardCount = shardTemplate != null ? shardTemplate.shardCount() : 1;
+        int read = 0;
+        for (int shard = 0; shard < shardCount; shard++) {
+            Feed feed = feeds.computeIfAbsent(shard, key -> new Feed());
+            read += onShard(shard, feed::poll);
+        }
+        return read;
+    }
+
+    private <T> T onShard(int shard, Supplier<T> callback) {
+        return shardTemplate != null ? shardTemplate.write(shard, callback) : callback.get();
+    }
+
+    /**
+     * 한 outbox 의 읽기 상태
+     */
+    private class Feed {
+        /**
+         * 빈 id 검사를 마친 마지막 id (-1 : 기동 후 아직 읽지 않음)
+         */
+        private long settledUpTo = -1;
+        /**
+         * settledUpTo 다음 id 가 비어 있는 것을 처음 본 시각 (-1 : 기다리는 빈 id 없음)
+         */
+        private long gapSeenAt = -1;
+        private final Map<String, Long> offsets = new HashMap<>();
+        /**
+         * change_feed_offset 에 마지막으로 저장한 위치와 시각
+         */
+        private Map<String, Long> savedOffsets = new HashMap<>();
+        private long savedAt = -1;
+
+        int poll() {
+            if (settledUpTo < 0) {
+                start();
+            }
+            List<ChangeRecord> batch = settled(jdbcTemplate.query(ChangeFeedSql.SELECT_AFTER, ROW_MAPPER,
+                    lowestOffset(), batchSize));
+            if (!batch.isEmpty()) {
+                for (ChangeFeedConsumer consumer : consumers) {
+                    deliver(consumer, batch);
+                }
+            }
+            long now = System.currentTimeMillis();
+            saveOffsets(now);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            jdbcTemplate.update(ChangeFeedSql.DELETE_EXPIRED_OFFSETS, now - instanceTimeoutMs);
+            Long lowestOfAll = jdbcTemplate.queryForObject(ChangeFeedSql.SELECT_MIN_OFFSET, Long.class);
+            jdbcTemplate.update(ChangeFeedSql.DELETE_BEFORE,
+                    lowestOfAll == null ? lowestOffset() : Math.min(lowestOffset(), lowestOfAll));
+            return batch.size();
+        }
+
+        /**
+         * 저장된 위치를 읽고, 다른 인스턴스가 지우지 못하도록 남은 행을 읽기 전에 위치를 먼저 저장한다.
+         */
+        private void start() {
+            jdbcTemplate.query(ChangeFeedSql.SELECT_OFFSETS,
+                    rs -> { offsets.put(rs.getString("consumer"), rs.getLong("last_id")); }, instanceId);
+            saveOffsets(System.currentTimeMillis());
+            // 남아 있는 가장 작은 id 앞까지는 이전에 전달하고 지운 행이다. 비어 있으면 처음부터 (IDENTITY 는 1부터)
+            Long minId = jdbcTemplate.queryForObject(ChangeFeedSql.SELECT_MIN_ID, Long.class);
+            settledUpTo = minId == null ? 0 : minId - 1;
+            // 저장된 위치까지는 이 인스턴스의 모든 소비자가 이미 받았다.
+            if (!consumers.isEmpty() && consumers.stream().allMatch(consumer -> offsets.containsKey(consumer.name()))) {
+                settledUpTo = Math.max(settledUpTo, lowestOffset(Long.MAX_VALUE));
+            }
+        }
+
+        /**
+         * 위치가 바뀌었거나 instance-timeout-ms 의 1/4 이 지났을 때만 저장한다. (heartbeat)
+         * 멈춘 인스턴스로 보고 다른 인스턴스가 지운 행은 다시 넣는다.
+         */
+        private void saveOffsets(long now) {
+            if (offsets.equals(savedOffsets) && savedAt >= 0 && now - savedAt < instanceTimeoutMs / 4) {
+                return;
+            }
+            for (ChangeFeedConsumer consumer : consumers) {
+                long offset = offsets.getOrDefault(consumer.name(), 0L);
+                if (jdbcTemplate.update(ChangeFeedSql.UPDATE_OFFSET, offset, now, instanceId, consumer.name()) == 0) {
+                    jdbcTemplate.update(ChangeFeedSql.INSERT_OFFSET, instanceId, consumer.name(), offset, now);
+                }
+            }
+            savedOffsets = new HashMap<>(offsets);
+            savedAt = now;
+        }
+
+        private List<ChangeRecord> settled(List<ChangeRecord> rows) {
+            long now = System.currentTimeMillis();
+            List<ChangeRecord> result = new ArrayList<>(rows.size());
+            for (ChangeRecord row : rows) {
+                if (row.getId() > settledUpTo) {
+                    if (row.getId() != settledUpTo + 1) {
+                        if (gapSeenAt < 0) {
+                            gapSeenAt = now;
+                        }
+                        if (now - gapSeenAt < gapTimeoutMs) {
+                            break;
+                        }
+                        log.warn("change feed skipped ids {}..{}, not committed within {} ms", settledUpTo + 1, row.getId() - 1, gapTimeoutMs);
+                    }
+                    gapSeenAt = -1;
+                    settledUpTo = row.getId();
+                }
+                result.add(row);
+            }
+            return result;
+        }
+
+        private void deliver(ChangeFeedConsumer consumer, List<ChangeRecord> batch) {
+            long offset = offsets.getOrDefault(consumer.name(), 0L);
+            List<ChangeRecord> pending = batch.stream()
+                    .filter(change -> change.getId() > offset)
+                    .collect(Collectors.toList());
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                consumer.accept(pending);
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("change feed consumer {} failed, redelivering from {}", consumer.name(), offset + 1, e);
+                return;
+            }
+            long now = System.currentTimeMillis();
+            Timer lag = meterRegistry.timer("changefeed.lag", "consumer", consumer.name());
+            pending.forEach(change -> lag.record(now - change.getCreatedAt(), TimeUnit.MILLISECONDS));
+            meterRegistry.counter("changefeed.delivered", "consumer", consumer.name()).increment(pending.size());
+            offsets.put(consumer.name(), pending.get(pending.size() - 1).getId());
+        }
+
+        /**
+         * 모든 소비자에게 전달된 위치, 소비자가 없으면 빈 id 검사를 마친 위치 (빈 id 검사를 마친 위치를 넘지 않는다)
+         */
+        private long lowestOffset() {
+            return lowestOffset(settledUpTo);
+        }
+
+        private long lowestOffset(long lowest) {
+            for (ChangeFeedConsumer consumer : consumers) {
+                lowest = Math.min(lowest, offsets.getOrDefault(consumer.name(), 0L));
+            }
+            return lowest;
+        }
+    }
+}
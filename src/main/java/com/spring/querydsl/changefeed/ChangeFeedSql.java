@@ -0,0 +1,38 @@
+package com.spring.querydsl.changefeed;
+
+/**
+ * change_event outbox SQL
+ */
+final class ChangeFeedSql {
+
+    static final String INSERT =
+            "insert into change_event (entity_type, operation, id_from, id_to, created_at) values (?, ?, ?, ?, ?)";
+
+    static final String SELECT_AFTER =
+            "select change_event_id, entity_type, operation, id_from, id_to, created_at from change_event" +
+            " where change_event_id > ? order by change_event_id limit ?";
+
+    static final String SELECT_MIN_ID =
+            "select min(change_event_id) from change_event";
+
+    static final String DELETE_BEFORE =
+            "delete from change_event where change_event_id < ?";
+
+    static final String SELECT_OFFSETS =
+            "select consumer, last_id from change_feed_offset where instance_id = ?";
+
+    static final String UPDATE_OFFSET =
+            "update change_feed_offset set last_id = ?, heartbeat_at = ? where instance_id = ? and consumer = ?";
+
+    static final String INSERT_OFFSET =
+            "insert into change_feed_offset (instance_id, consumer, last_id, heartbeat_at) values (?, ?, ?, ?)";
+
+    static final String DELETE_EXPIRED_OFFSETS =
+            "delete from change_feed_offset where heartbeat_at < ?";
+
+    static final String SELECT_MIN_OFFSET =
+            "select min(last_id) from change_feed_offset";
+
+    private ChangeFeedSql() {
+    }
+}
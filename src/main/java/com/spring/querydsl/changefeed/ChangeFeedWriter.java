@@ -0,0 +1,35 @@
+package com.spring.querydsl.changefeed;
+
+import com.spring.querydsl.entity.ChangeOperation;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import java.sql.PreparedStatement;
+
+/**
+ * change_event 기록
+ * 커밋 직전(BeforeTransactionCompletion)에 같은 커넥션/트랜잭션으로 기록한다. 롤백되면 기록도 남지 않는다.
+ * 등록 순서대로 실행되므로 한 트랜잭션 안의 변경 순서가 outbox id 순서로 유지된다.
+ */
+final class ChangeFeedWriter {
+
+    static void append(SessionImplementor session, String entityType, ChangeOperation operation,
+                       long idFrom, long idTo) {
+        session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) s ->
+                s.doWork(connection -> {
+                    // 변경 시각이 아니라 outbox 에 넣는 시각 (커밋 직전), 지연 지표의 기준이다.
+                    long createdAt = System.currentTimeMillis();
+                    try (PreparedStatement ps = connection.prepareStatement(ChangeFeedSql.INSERT)) {
+                        ps.setString(1, entityType);
+                        ps.setString(2, operation.name());
+                        ps.setLong(3, idFrom);
+                        ps.setLong(4, idTo);
+                        ps.setLong(5, createdAt);
+                        ps.executeUpdate();
+                    }
+                }));
+    }
+
+    private ChangeFeedWriter() {
+    }
+}
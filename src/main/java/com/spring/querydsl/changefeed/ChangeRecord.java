@@ -0,0 +1,22 @@
+package com.spring.querydsl.changefeed;
+
+import com.spring.querydsl.entity.ChangeOperation;
+import lombok.Value;
+
+/**
+ * 소비자에게 전달되는 변경 한 건 (change_event 한 행)
+ * 같은 변경이 다시 전달될 수 있으므로(at-least-once) 소비자는 id 나 원본 재조회로 멱등하게 처리해야 한다.
+ */
+@Value
+public class ChangeRecord {
+    long id;
+    String entityType;
+    ChangeOperation operation;
+    long idFrom;
+    long idTo;
+    long createdAt;
+
+    public boolean covers(long entityId) {
+        return idFrom <= entityId && entityId <= idTo;
+    }
+}
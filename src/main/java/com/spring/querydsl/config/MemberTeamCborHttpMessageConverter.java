@@ -0,0 +1,87 @@
+package com.spring.querydsl.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.spring.querydsl.dto.MemberTeamColumns;
+import com.spring.querydsl.dto.MemberTeamDto;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accept: application/cbor 요청에 List/Page&lt;MemberTeamDto&gt; 를 컬럼 지향 CBOR 로 응답한다.
+ * 팀 이름은 사전 인코딩(MemberTeamColumns)되어 한번씩만 담긴다.
+ * Page 는 content 만 컬럼 지향이고 나머지 필드는 JSON 응답(PageJsonSerializer)과 같다.
+ */
+public class MemberTeamCborHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+    public MemberTeamCborHttpMessageConverter() {
+        super(MediaType.APPLICATION_CBOR);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType) || type == null) {
+            return false;
+        }
+        ResolvableType resolved = ResolvableType.forType(type);
+        if (!List.class.isAssignableFrom(clazz) && !Page.class.isAssignableFrom(clazz)) {
+            return false;
+        }
+        return resolved.as(Iterable.class).getGeneric(0).toClass() == MemberTeamDto.class;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (body instanceof Page) {
+            Page<MemberTeamDto> page = (Page<MemberTeamDto>) body;
+            Map<String, Object> envelope = new LinkedHashMap<>();
+            envelope.put("content", new MemberTeamColumns(page.getContent()));
+            envelope.put("pageable", page.getPageable());
+            envelope.put("totalElements", page.getTotalElements());
+            envelope.put("totalPages", page.getTotalPages());
+            envelope.put("number", page.getNumber());
+            envelope.put("size", page.getSize());
+            envelope.put("numberOfElements", page.getNumberOfElements());
+            envelope.put("first", page.isFirst());
+            envelope.put("last", page.isLast());
+            envelope.put("empty", page.isEmpty());
+            Map<String, Object> sort = new LinkedHashMap<>();
+            sort.put("sorted", page.getSort().isSorted());
+            sort.put("unsorted", page.getSort().isUnsorted());
+            sort.put("empty", page.getSort().isEmpty());
+            envelope.put("sort", sort);
+            cborMapper.writeValue(outputMessage.getBody(), envelope);
+        } else {
+            cborMapper.writeValue(outputMessage.getBody(), new MemberTeamColumns((List<MemberTeamDto>) body));
+        }
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("CBOR 요청 본문은 지원하지 않습니다.", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("CBOR 요청 본문은 지원하지 않습니다.", inputMessage);
+    }
+}
@@ -0,0 +1,114 @@
+package com.spring.querydsl.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.spring.querydsl.dto.MemberTeamDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.jackson.JsonComponent;
+import org.springframework.data.domain.Page;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Page 를 중간 트리(Map/JsonNode) 없이 JsonGenerator 로 바로 써내는 직렬화기
+ * MemberTeamDto 는 리플렉션 없이 필드를 직접 쓴다.
+ * 기본 PageImpl 직렬화 결과와 필드가 같다. (pageable 은 드물게 쓰이므로 기본 직렬화에 맡긴다)
+ */
+@JsonComponent
+@RequiredArgsConstructor
+public class PageJsonSerializer extends JsonSerializer<Page<?>> {
+
+    private final MeterRegistry meterRegistry;
+    /**
+     * uri 패턴별 타이머, 요청마다 Timer.builder().register() 로 레지스트리를 찾지 않는다.
+     */
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    @Override
+    public void serialize(Page<?> page, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        long start = System.nanoTime();
+
+        gen.writeStartObject();
+        gen.writeFieldName("content");
+        gen.writeStartArray();
+        for (Object item : page.getContent()) {
+            if (item instanceof MemberTeamDto) {
+                writeMemberTeam((MemberTeamDto) item, gen);
+            } else {
+                provider.defaultSerializeValue(item, gen);
+            }
+        }
+        gen.writeEndArray();
+
+        provider.defaultSerializeField("pageable", page.getPageable(), gen);
+        gen.writeNumberField("totalElements", page.getTotalElements());
+        gen.writeNumberField("totalPages", page.getTotalPages());
+        gen.writeNumberField("number", page.getNumber());
+        gen.writeNumberField("size", page.getSize());
+        gen.writeNumberField("numberOfElements", page.getNumberOfElements());
+        gen.writeBooleanField("first", page.isFirst());
+        gen.writeBooleanField("last", page.isLast());
+        gen.writeBooleanField("empty", page.isEmpty());
+        gen.writeFieldName("sort");
+        gen.writeStartObject();
+        gen.writeBooleanField("sorted", page.getSort().isSorted());
+        gen.writeBooleanField("unsorted", page.getSort().isUnsorted());
+        gen.writeBooleanField("empty", page.getSort().isEmpty());
+        gen.writeEndObject();
+        gen.writeEndObject();
+
+        String currentUri = currentUri();
+        if (currentUri != null) {
+            timers.computeIfAbsent(currentUri, uri -> Timer.builder("http.server.response.serialization")
+                            .description("Page 응답 JSON 직렬화 시간")
+                            .tag("uri", uri)
+                            .register(meterRegistry))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Class<Page<?>> handledType() {
+        return (Class<Page<?>>) (Class<?>) Page.class;
+    }
+
+    static void writeMemberTeam(MemberTeamDto dto, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        writeNullableNumber(gen, "memberId", dto.getMemberId());
+        gen.writeStringField("username", dto.getUsername());
+        gen.writeNumberField("age", dto.getAge());
+        writeNullableNumber(gen, "teamId", dto.getTeamId());
+        gen.writeStringField("teamName", dto.getTeamName());
+        gen.writeEndObject();
+    }
+
+    private static void writeNullableNumber(JsonGenerator gen, String name, Long value) throws IOException {
+        if (value == null) {
+            gen.writeNullField(name);
+        } else {
+            gen.writeNumberField(name, value);
+        }
+    }
+
+    /**
+     * 요청 밖(기동 워밍업 등)의 직렬화면 null, 응답 메트릭에 섞지 않는다.
+     */
+    static String currentUri() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object pattern = attributes.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return pattern == null ? "UNKNOWN" : pattern.toString();
+    }
+}
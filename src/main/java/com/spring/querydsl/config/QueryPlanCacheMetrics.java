@@ -0,0 +1,145 @@
+package com.spring.querydsl.config;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 하이버네이트 쿼리 플랜 캐시 메트릭
+ * - hibernate.query.plan.cache.hit.ratio : 전체 플랜 캐시 히트율
+ * - hibernate.query.plan.compile : 쿼리 모양별 컴파일 횟수(캐시 미스)와 누적 컴파일 시간
+ * 쿼리 모양은 JPQL 의 리터럴/파라미터/IN 목록을 ? 로 바꾼 문자열이고, shape 태그는 그 해시다. (모양과 해시는 debug 로그에 남긴다)
+ * JPQL 원문을 태그로 쓰면 리터럴이 다른 쿼리마다 메터가 생기므로 쓰지 않고,
+ * 모양이 max-query-shapes 개를 넘으면 나머지는 shape=other 하나로 합친다.
+ * hibernate.generate_statistics: true 일 때만 값이 쌓인다.
+ * MeterBinder 로 두면 MeterRegistry 생성(데이터소스 메트릭) 중에 EntityManagerFactory 를 요구해서 순환 참조가 되므로 직접 등록한다.
+ */
+@Slf4j
+@Component
+public class QueryPlanCacheMetrics {
+
+    static final String OTHER_SHAPE = "other";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern PARAMETER = Pattern.compile("\\?\\d*|:\\w+|\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final EntityManagerFactory emf;
+    private final MeterRegistry registry;
+    private final int maxShapes;
+
+    private final Set<String> registeredQueries = ConcurrentHashMap.newKeySet();
+    /**
+     * shape 태그별로 합친 쿼리 통계
+     */
+    private final Map<String, QueryShape> shapes = new ConcurrentHashMap<>();
+
+    public QueryPlanCacheMetrics(EntityManagerFactory emf, MeterRegistry registry,
+                                 @Value("${querydsl.metrics.max-query-shapes:100}") int maxShapes) {
+        this.emf = emf;
+        this.registry = registry;
+        this.maxShapes = maxShapes;
+    }
+
+    @PostConstruct
+    public void registerCacheMetrics() {
+        Statistics statistics = statistics();
+
+        Gauge.builder("hibernate.query.plan.cache.hit.ratio", statistics, QueryPlanCacheMetrics::hitRatio)
+                .description("JPQL 쿼리 플랜 캐시 히트율")
+                .register(registry);
+        Gauge.builder("hibernate.query.plan.cache.misses", statistics, Statistics::getQueryPlanCacheMissCount)
+                .register(registry);
+    }
+
+    /**
+     * 동적 쿼리는 실행 시점에 새로운 모양이 생기므로 주기적으로 새 쿼리를 찾아 모양별로 합친다.
+     */
+    @Scheduled(fixedDelayString = "${querydsl.metrics.plan-refresh-interval:30000}")
+    public synchronized void registerQueryShapes() {
+        Statistics statistics = statistics();
+        for (String query : statistics.getQueries()) {
+            if (!registeredQueries.add(query)) {
+                continue;
+            }
+            String normalized = normalize(query);
+            String tag = Integer.toHexString(normalized.hashCode());
+            QueryShape shape = shapes.get(tag);
+            if (shape == null) {
+                if (shapes.size() >= maxShapes) {
+                    tag = OTHER_SHAPE;
+                    shape = shapes.get(tag);
+                } else {
+                    log.debug("query shape {} : {}", tag, normalized);
+                }
+            }
+            if (shape == null) {
+                shape = register(tag);
+            }
+            shape.statistics.add(statistics.getQueryStatistics(query));
+        }
+    }
+
+    private QueryShape register(String tag) {
+        QueryShape shape = new QueryShape();
+        FunctionTimer.builder("hibernate.query.plan.compile", shape,
+                QueryShape::compileCount,
+                QueryShape::compileMicros,
+                TimeUnit.MICROSECONDS)
+                .tag("shape", tag)
+                .description("쿼리 모양별 JPQL 컴파일 시간")
+                .register(registry);
+        shapes.put(tag, shape);
+        return shape;
+    }
+
+    /**
+     * 리터럴과 파라미터는 ?, 파라미터만 있는 괄호 목록(IN 절)은 (?) 로 바꾸고 공백을 하나로 줄인다.
+     */
+    static String normalize(String query) {
+        String normalized = STRING_LITERAL.matcher(query).replaceAll("?");
+        normalized = PARAMETER.matcher(normalized).replaceAll("?");
+        normalized = PARAMETER_LIST.matcher(normalized).replaceAll("(?)");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    private Statistics statistics() {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private static double hitRatio(Statistics statistics) {
+        long hit = statistics.getQueryPlanCacheHitCount();
+        long total = hit + statistics.getQueryPlanCacheMissCount();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    private static class QueryShape {
+        private final List<QueryStatistics> statistics = new CopyOnWriteArrayList<>();
+
+        long compileCount() {
+            return statistics.stream().mapToLong(QueryStatistics::getPlanCacheMissCount).sum();
+        }
+
+        double compileMicros() {
+            return statistics.stream().mapToLong(QueryStatistics::getPlanCompilationTotalMicroseconds).sum();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.spring.querydsl.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.dto.MemberTeamDto;
+import com.spring.querydsl.query.QueryBudgetExceededException;
+import com.spring.querydsl.repository.MemberRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 기동 시 워밍업
+ * ApplicationRunner 는 ApplicationReadyEvent 전에 실행되므로, 준비 완료 시점에는 첫 요청 비용이 이미 치러져 있다.
+ * - MemberSearchCondition 조합(username/teamName/ageGoe/ageLoe 유무 16가지)별로 /v1 ~ /v3 의 조회/카운트 쿼리
+ *   (search, searchPageSimple 의 fetchResults, searchPageComplex, searchSlice, exists)를 한번씩 실행해
+ *   JPQL 컴파일 결과를 쿼리 플랜 캐시에 올린다. 조건이 없는 search 는 search-guard 허용치를 넘으면 건너뛴다.
+ * - 커넥션 풀을 최소 유휴 수만큼 미리 채운다.
+ * - MemberTeamDto / Page 직렬화기를 미리 만든다. (요청 밖이라 응답 직렬화 메트릭에는 기록되지 않는다)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "querydsl.warmup.enabled", havingValue = "true")
+public class QueryWarmup implements ApplicationRunner {
+
+    private final MemberRepository memberRepository;
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final ApplicationContext applicationContext;
+
+    @Value("${querydsl.warmup.connections:5}")
+    private int connections;
+    @Value("${querydsl.warmup.exit-on-ready:false}")
+    private boolean exitOnReady;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long start = System.nanoTime();
+        primeConnectionPool();
+        List<MemberSearchCondition> conditions = allConditionShapes();
+        for (MemberSearchCondition condition : conditions) {
+            compileQueries(condition);
+        }
+        objectMapper.writeValueAsBytes(new PageImpl<>(Collections.singletonList(
+                new MemberTeamDto(1L, "warmup", 0, 1L, "warmup"))));
+        log.info("warm-up finished: {} query shapes in {} ms", conditions.size(), (System.nanoTime() - start) / 1_000_000);
+
+        if (exitOnReady) {
+            // CDS 아카이브 생성(./gradlew cdsArchive)용 : 워밍업까지 로딩된 클래스를 덤프하고 종료한다.
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    private void compileQueries(MemberSearchCondition condition) {
+        try {
+            memberRepository.search(condition);
+        } catch (QueryBudgetExceededException e) {
+            // search-guard.mode=reject : 이 모양은 실제 요청에서도 실행되지 않는다.
+        }
+        memberRepository.searchPageSimple(condition, PageRequest.of(0, 1));
+        memberRepository.searchPageComplex(condition, PageRequest.of(0, 1));
+        memberRepository.searchSlice(condition, PageRequest.of(0, 1));
+        memberRepository.exists(condition);
+    }
+
+    private void primeConnectionPool() throws SQLException {
+        List<Connection> borrowed = new ArrayList<>();
+        try {
+            for (int i = 0; i < connections; i++) {
+                borrowed.add(dataSource.getConnection());
+            }
+        } finally {
+            for (Connection connection : borrowed) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * 조건 값의 유무만 쿼리 모양(JPQL)에 영향을 주므로 각 필드를 채우거나 비운 16가지 조합을 만든다.
+     */
+    static List<MemberSearchCondition> allConditionShapes() {
+        List<MemberSearchCondition> conditions = new ArrayList<>();
+        for (int mask = 0; mask < 16; mask++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername((mask & 1) != 0 ? "warmup" : null);
+            condition.setTeamName((mask & 2) != 0 ? "warmup" : null);
+            condition.setAgeGoe((mask & 4) != 0 ? 0 : null);
+            condition.setAgeLoe((mask & 8) != 0 ? 0 : null);
+            conditions.add(condition);
+        }
+        return conditions;
+    }
+}
@@ -0,0 +1,128 @@
+package com.spring.querydsl.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 엔드포인트별 응답 바이트 수(http.server.response.bytes)를 기록한다.
+ * 압축(server.compression)은 커넥터에서 일어나므로 여기서 재는 값은 압축 전 크기다.
+ * 비동기 요청(WebAsyncTask)은 응답을 써내는 async dispatch 에서 기록하고, 처음 dispatch 는 기록하지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ResponseSizeMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    /**
+     * uri 패턴 -> 응답 크기 분포
+     */
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CountingResponseWrapper wrapper = new CountingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+        } finally {
+            if (!request.isAsyncStarted()) {
+                wrapper.flushWriter();
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                summary(pattern == null ? "UNKNOWN" : pattern.toString()).record(wrapper.getCount());
+            }
+        }
+    }
+
+    private DistributionSummary summary(String uri) {
+        return summaries.computeIfAbsent(uri, key -> DistributionSummary.builder("http.server.response.bytes")
+                .baseUnit("bytes")
+                .tag("uri", key)
+                .register(meterRegistry));
+    }
+
+    private static class CountingResponseWrapper extends HttpServletResponseWrapper {
+        private long count;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        CountingResponseWrapper(HttpServletResponse response) {
+            super(response);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        void flushWriter() {
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                        delegate.setWriteListener(listener);
+                    }
+
+                    @Override
+                    public void write(int b) throws IOException {
+                        delegate.write(b);
+                        count++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        delegate.write(b, off, len);
+                        count += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        delegate.flush();
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+    }
+}
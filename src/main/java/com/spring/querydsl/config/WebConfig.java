@@ -0,0 +1,25 @@
+package com.spring.querydsl.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // JSON 이 기본 응답으로 남도록 JSON 뒤, 범용 Jackson CBOR 컨버터보다는 앞에 둔다.
+        int index = converters.size();
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i) instanceof MappingJackson2CborHttpMessageConverter) {
+                index = i;
+                break;
+            }
+        }
+        converters.add(index, new MemberTeamCborHttpMessageConverter());
+    }
+}
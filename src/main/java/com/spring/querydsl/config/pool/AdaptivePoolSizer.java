@@ -0,0 +1,105 @@
+package com.spring.querydsl.config.pool;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * 커넥션 풀 크기 자동 조절 (querydsl.pool.adaptive.enabled=true)
+ * 구간마다 평균 커넥션 대기 시간과 평균 점유 시간(= DB 작업 시간)을 비교한다.
+ * - 대기 시간이 점유 시간의 grow-ratio 배를 넘고 대기 스레드가 있으면 풀을 step 만큼 키운다.
+ * - 대기가 거의 없고(점유 시간의 5% 이하, 요청이 없던 구간 포함) 활성 커넥션이 최대치의 절반도 안 되면 step 만큼 줄인다.
+ * 크기는 항상 [min-size, max-size] 범위 안에 있다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "querydsl.pool.adaptive.enabled", havingValue = "true")
+public class AdaptivePoolSizer {
+
+    private final ConnectionMetricsDataSource metricsDataSource;
+    private final HikariDataSource hikariDataSource;
+    private final int minSize;
+    private final int maxSize;
+    private final int step;
+    private final double growRatio;
+
+    private final Window waitWindow = new Window();
+    private final Window checkoutWindow = new Window();
+
+    public AdaptivePoolSizer(DataSource dataSource,
+                             @Value("${querydsl.pool.adaptive.min-size:5}") int minSize,
+                             @Value("${querydsl.pool.adaptive.max-size:30}") int maxSize,
+                             @Value("${querydsl.pool.adaptive.step:2}") int step,
+                             @Value("${querydsl.pool.adaptive.grow-ratio:0.5}") double growRatio) {
+        if (!(dataSource instanceof ConnectionMetricsDataSource)) {
+            throw new IllegalStateException("AdaptivePoolSizer requires ConnectionMetricsDataSource");
+        }
+        this.metricsDataSource = (ConnectionMetricsDataSource) dataSource;
+        this.hikariDataSource = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+        if (hikariDataSource == null) {
+            throw new IllegalStateException("AdaptivePoolSizer requires a HikariDataSource");
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.step = step;
+        this.growRatio = growRatio;
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.pool.adaptive.interval-ms:10000}")
+    public void adjust() {
+        HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            return; // 아직 풀이 시작되지 않음
+        }
+        double avgWait = waitWindow.average(metricsDataSource.waitNanos.sum(), metricsDataSource.waitCount.sum());
+        double avgCheckout = checkoutWindow.average(metricsDataSource.checkoutNanos.sum(), metricsDataSource.checkoutCount.sum());
+
+        HikariConfigMXBean config = hikariDataSource.getHikariConfigMXBean();
+        int current = config.getMaximumPoolSize();
+        int target = targetSize(current, pool.getThreadsAwaitingConnection(), pool.getActiveConnections(),
+                avgWait, avgCheckout);
+
+        if (target != current) {
+            log.info("connection pool resize {} -> {} (avg wait {} us, avg checkout {} us)",
+                    current, target, (long) (avgWait / 1000), (long) (avgCheckout / 1000));
+            config.setMaximumPoolSize(target);
+            config.setMinimumIdle(Math.min(config.getMinimumIdle(), target));
+        }
+    }
+
+    /**
+     * 한 구간의 관측값으로 정한 다음 최대 풀 크기
+     */
+    int targetSize(int current, int threadsAwaiting, int activeConnections, double avgWait, double avgCheckout) {
+        if (threadsAwaiting > 0 && avgWait > avgCheckout * growRatio) {
+            return Math.min(maxSize, current + step);
+        }
+        if (avgWait <= avgCheckout * 0.05 && activeConnections < current / 2) {
+            return Math.max(minSize, current - step);
+        }
+        return current;
+    }
+
+    /**
+     * 누적값에서 직전 호출 이후 구간의 평균(나노초)을 구한다.
+     */
+    static class Window {
+        private long lastNanos;
+        private long lastCount;
+
+        double average(long totalNanos, long count) {
+            double average = count == lastCount ? 0 : (double) (totalNanos - lastNanos) / (count - lastCount);
+            lastNanos = totalNanos;
+            lastCount = count;
+            return average;
+        }
+    }
+}
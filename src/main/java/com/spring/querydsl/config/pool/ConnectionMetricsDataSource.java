@@ -0,0 +1,83 @@
+package com.spring.querydsl.config.pool;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 커넥션 획득 대기 시간(db.connection.wait)과 점유 시간(db.connection.checkout)을
+ * 리포지토리 메서드별(method 태그)로 기록하는 DataSource 래퍼
+ * 풀 자체 지표(active/idle/pending)는 hikaricp.connections.* 로 액추에이터가 노출한다.
+ */
+public class ConnectionMetricsDataSource extends DelegatingDataSource {
+
+    private final MeterRegistry meterRegistry;
+    /** 리포지토리 메서드 -> 타이머 */
+    private final Map<String, Timer> waitTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> checkoutTimers = new ConcurrentHashMap<>();
+
+    /** AdaptivePoolSizer 가 구간별 평균을 계산하기 위한 누적값 */
+    final LongAdder waitNanos = new LongAdder();
+    final LongAdder waitCount = new LongAdder();
+    final LongAdder checkoutNanos = new LongAdder();
+    final LongAdder checkoutCount = new LongAdder();
+
+    public ConnectionMetricsDataSource(DataSource target, MeterRegistry meterRegistry) {
+        super(target);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection();
+        return track(connection, start);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection(username, password);
+        return track(connection, start);
+    }
+
+    private Connection track(Connection connection, long requestedAt) {
+        long acquiredAt = System.nanoTime();
+        String method = RepositoryMethodAspect.currentMethod();
+        timer(waitTimers, "db.connection.wait", method).record(acquiredAt - requestedAt, TimeUnit.NANOSECONDS);
+        waitNanos.add(acquiredAt - requestedAt);
+        waitCount.increment();
+        Timer checkoutTimer = timer(checkoutTimers, "db.connection.checkout", method);
+
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, m, args) -> {
+                    if ("close".equals(m.getName()) && !connection.isClosed()) {
+                        long held = System.nanoTime() - acquiredAt;
+                        checkoutTimer.record(held, TimeUnit.NANOSECONDS);
+                        checkoutNanos.add(held);
+                        checkoutCount.increment();
+                    }
+                    try {
+                        return m.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    private Timer timer(Map<String, Timer> timers, String name, String method) {
+        return timers.computeIfAbsent(method, key -> Timer.builder(name)
+                .tag("method", key)
+                .register(meterRegistry));
+    }
+}
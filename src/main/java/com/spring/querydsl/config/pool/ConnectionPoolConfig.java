@@ -0,0 +1,53 @@
+package com.spring.querydsl.config.pool;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+
+import java.util.function.Supplier;
+
+@Configuration
+public class ConnectionPoolConfig {
+
+    /**
+     * 기본 DataSource 빈(dataSource)이 커넥션 풀(Hikari) 자체일 때만 ConnectionMetricsDataSource 로 감싼다.
+     * 다른 DataSource 빈, 샤딩 중의 라우팅 DataSource, 테스트용 래퍼는 그대로 둔다.
+     * Hikari 지표/설정은 DelegatingDataSource 를 풀어서(DataSourceUnwrapper) 그대로 사용할 수 있다.
+     */
+    @Bean
+    public static BeanPostProcessor connectionMetricsDataSourcePostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new PrimaryPoolMetricsPostProcessor(meterRegistry::getObject);
+    }
+
+    /**
+     * 다른 DataSource 후처리기(래퍼)보다 먼저 풀을 감싼다.
+     */
+    static class PrimaryPoolMetricsPostProcessor implements BeanPostProcessor, PriorityOrdered {
+
+        static final String PRIMARY_DATA_SOURCE = "dataSource";
+
+        private final Supplier<MeterRegistry> meterRegistry;
+
+        PrimaryPoolMetricsPostProcessor(Supplier<MeterRegistry> meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (PRIMARY_DATA_SOURCE.equals(beanName) && bean instanceof HikariDataSource) {
+                return new ConnectionMetricsDataSource((HikariDataSource) bean, meterRegistry.get());
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.spring.querydsl.config.pool;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * 현재 실행 중인 리포지토리 메서드 이름(MemberRepositoryCustom.search, JpaRepository.findAll 등)을 스레드에 남긴다.
+ * ConnectionMetricsDataSource 가 커넥션 대기/점유 시간을 이 이름으로 태깅한다.
+ */
+@Aspect
+@Component
+public class RepositoryMethodAspect {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    static String currentMethod() {
+        String method = CURRENT.get();
+        return method == null ? "none" : method;
+    }
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object tag(ProceedingJoinPoint joinPoint) throws Throwable {
+        String outer = CURRENT.get();
+        if (outer != null) {
+            // 리포지토리 안에서 다른 리포지토리를 부르면 바깥 메서드 기준으로 남긴다.
+            return joinPoint.proceed();
+        }
+        CURRENT.set(joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+}
@@ -2,33 +2,78 @@ package com.spring.querydsl.controller;
 
 import com.spring.querydsl.dto.MemberSearchCondition;
 import com.spring.querydsl.dto.MemberTeamDto;
+import com.spring.querydsl.query.MemberQueryExecutor;
 import com.spring.querydsl.repository.MemberRepository;
+import com.spring.querydsl.responsecache.MemberPageResponseCache;
+import com.spring.querydsl.responsecache.ResponseCacheKey;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
     private final MemberRepository memberRepository;
+    /**
+     * 엔드포인트별 쿼리 타임아웃 / 클라이언트 연결 끊김 시 쿼리 취소
+     */
+    private final MemberQueryExecutor memberQueryExecutor;
+    /**
+     * 앞쪽 페이지 인코딩된 응답 캐시 (querydsl.response-cache.enabled)
+     */
+    private final ObjectProvider<MemberPageResponseCache> responseCache;
 
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition)
+    public WebAsyncTask<List<MemberTeamDto>> searchMemberV1(MemberSearchCondition condition)
     {
-        return memberRepository.search(condition);
+        return memberQueryExecutor.execute("v1-members", () -> memberRepository.search(condition));
     }
 
+    /**
+     * size 는 spring.data.web.pageable.max-page-size 를 넘을 수 없다.
+     */
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageSimple(condition, pageable);
+    public WebAsyncTask<Page<MemberTeamDto>> searchMemberV2(MemberSearchCondition condition, @PageableDefault(size = 20) Pageable pageable) {
+        return memberQueryExecutor.execute("v2-members", () -> memberRepository.searchPageSimple(condition, pageable));
     }
 
+    /**
+     * Accept: application/cbor 는 응답 캐시(JSON 전용)를 거치지 않는다.
+     * CBOR 컨버터는 반환 타입의 제네릭(Page&lt;MemberTeamDto&gt;)으로 선택되므로 와일드카드인 JSON 핸들러와 나눈다.
+     */
+    @GetMapping(value = "/v3/members", produces = MediaType.APPLICATION_CBOR_VALUE)
+    public WebAsyncTask<Page<MemberTeamDto>> searchMemberV3Cbor(MemberSearchCondition condition, @PageableDefault(size = 20) Pageable pageable) {
+        return memberQueryExecutor.execute("v3-members", () -> memberRepository.searchPageComplex(condition, pageable));
+    }
+
+    /**
+     * 응답 캐시에 있으면 조회 없이 바로 써내고 null 을 반환한다.
+     * 캐시에 넣는 조회는 인코딩한 응답(ResponseEntity&lt;byte[]&gt;)을, 아니면 Page 를 반환한다.
+     */
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+    public WebAsyncTask<?> searchMemberV3(MemberSearchCondition condition, @PageableDefault(size = 20) Pageable pageable,
+                                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        MemberPageResponseCache cache = responseCache.getIfAvailable();
+        if (cache == null || !cache.isCacheable(pageable, request)) {
+            return memberQueryExecutor.execute("v3-members", () -> memberRepository.searchPageComplex(condition, pageable));
+        }
+        ResponseCacheKey key = cache.key(condition, pageable, request);
+        if (cache.writeIfCached(key, response)) {
+            return null;
+        }
+        long generation = cache.generation();
+        return memberQueryExecutor.execute("v3-members",
+                () -> cache.store(key, generation, memberRepository.searchPageComplex(condition, pageable)));
     }
 }
@@ -0,0 +1,29 @@
+package com.spring.querydsl.controller;
+
+import com.spring.querydsl.snapshot.MemberSnapshotExporter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberSnapshotController {
+    private final MemberSnapshotExporter memberSnapshotExporter;
+
+    /**
+     * @param full true 면 기존 스냅샷을 지우고 전체를 다시 내보낸다.
+     * @return 새로 만든 스냅샷 파일 이름
+     */
+    @PostMapping("/admin/snapshot/export")
+    public List<String> export(@RequestParam(defaultValue = "false") boolean full) {
+        List<Path> files = full ? memberSnapshotExporter.exportFull() : memberSnapshotExporter.exportIncremental();
+        return files.stream()
+                .map(file -> file.getFileName().toString())
+                .collect(Collectors.toList());
+    }
+}
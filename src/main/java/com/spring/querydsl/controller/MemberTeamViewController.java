@@ -0,0 +1,24 @@
+package com.spring.querydsl.controller;
+
+import com.spring.querydsl.readmodel.MemberTeamViewCheck;
+import com.spring.querydsl.readmodel.MemberTeamViewService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberTeamViewController {
+    private final MemberTeamViewService memberTeamViewService;
+
+    @GetMapping("/admin/read-model/check")
+    public MemberTeamViewCheck check() {
+        return memberTeamViewService.check();
+    }
+
+    @PostMapping("/admin/read-model/rebuild")
+    public int rebuild() {
+        return memberTeamViewService.rebuild();
+    }
+}
@@ -0,0 +1,31 @@
+package com.spring.querydsl.dto;
+
+import lombok.Value;
+
+/**
+ * 근사 distinct 결과
+ * - estimate : 추정값
+ * - relativeStandardError : 상대 표준 오차 (HyperLogLog 1.04 / sqrt(레지스터 수), 정확한 값이면 0)
+ * - lowerBound / upperBound : 약 95% 구간 (estimate ± 2 표준 오차)
+ */
+@Value
+public class ApproxDistinct {
+    long estimate;
+    double relativeStandardError;
+    long lowerBound;
+    long upperBound;
+
+    public static ApproxDistinct exact(long count) {
+        return new ApproxDistinct(count, 0, count, count);
+    }
+
+    public static ApproxDistinct estimated(long estimate, double relativeStandardError) {
+        double margin = estimate * relativeStandardError * 2;
+        return new ApproxDistinct(estimate, relativeStandardError,
+                Math.max(0, (long) Math.floor(estimate - margin)), (long) Math.ceil(estimate + margin));
+    }
+
+    public boolean isExact() {
+        return relativeStandardError == 0;
+    }
+}
@@ -0,0 +1,8 @@
+package com.spring.querydsl.dto;
+
+/**
+ * 근사 distinct 대상 컬럼 (MemberRepositoryCustom#approxDistinct)
+ */
+public enum MemberField {
+    USERNAME, AGE, TEAM
+}
@@ -0,0 +1,44 @@
+package com.spring.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MemberTeamDto 목록의 컬럼 지향 표현 (바이너리 응답용)
+ * 팀 정보는 반복되므로 teamIds/teamNames 사전에 한번씩만 담고, 각 행은 사전 인덱스(team)만 가진다.
+ * 팀이 없는 회원의 team 인덱스는 -1 이다.
+ */
+@Getter
+public class MemberTeamColumns {
+    private final long[] memberId;
+    private final String[] username;
+    private final int[] age;
+    private final int[] team;
+    private final List<Long> teamIds = new ArrayList<>();
+    private final List<String> teamNames = new ArrayList<>();
+
+    public MemberTeamColumns(List<MemberTeamDto> rows) {
+        int size = rows.size();
+        memberId = new long[size];
+        username = new String[size];
+        age = new int[size];
+        team = new int[size];
+
+        Map<Long, Integer> dictionary = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            MemberTeamDto row = rows.get(i);
+            memberId[i] = row.getMemberId();
+            username[i] = row.getUsername();
+            age[i] = row.getAge();
+            team[i] = row.getTeamId() == null ? -1 : dictionary.computeIfAbsent(row.getTeamId(), teamId -> {
+                teamIds.add(teamId);
+                teamNames.add(row.getTeamName());
+                return teamIds.size() - 1;
+            });
+        }
+    }
+}
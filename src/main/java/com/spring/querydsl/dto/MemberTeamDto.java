@@ -22,4 +22,12 @@ public class MemberTeamDto {
         this.teamId = teamId;
         this.teamName = teamName;
     }
+
+    /**
+     * 팀 이름 없이 조회할 때 사용 (TeamDimension 이 조회 후 채운다)
+     */
+    @QueryProjection
+    public MemberTeamDto(Long memberId, String username, int age, Long teamId) {
+        this(memberId, username, age, teamId, null);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.spring.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class TeamWithMembersDto {
+    private Long teamId;
+    private String teamName;
+    private List<MemberDto> members;
+
+    public TeamWithMembersDto() {
+    }
+    public TeamWithMembersDto(Long teamId, String teamName, List<MemberDto> members) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.members = members;
+    }
+    /**
+     * memberCount : 팀 회원 수를 미리 알면 목록 크기를 정확히 잡아서 만든다. (재할당 없음)
+     */
+    public TeamWithMembersDto(Long teamId, String teamName, int memberCount) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.members = new ArrayList<>(memberCount);
+    }
+}
@@ -0,0 +1,36 @@
+package com.spring.querydsl.entity;
+
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+
+/**
+ * Member/Team 변경 이력 outbox 테이블
+ * 변경을 일으킨 트랜잭션 안에서 함께 기록되므로 커밋된 변경만 남는다. (ChangeFeedWriter)
+ * 단건 변경은 id_from = id_to, 벌크 update/delete 는 영향받은 식별자 범위를 기록한다.
+ * ChangeFeedRelay 가 id 순서대로 읽어 소비자에게 전달한 뒤 지운다.
+ */
+@Entity
+@Immutable
+@Table(name = "change_event")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "entityType", "operation", "idFrom", "idTo"})
+public class ChangeEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "change_event_id")
+    private Long id;
+
+    @Column(name = "entity_type")
+    private String entityType;
+    @Enumerated(EnumType.STRING)
+    private ChangeOperation operation;
+    @Column(name = "id_from")
+    private Long idFrom;
+    @Column(name = "id_to")
+    private Long idTo;
+    @Column(name = "created_at")
+    private long createdAt;
+}
@@ -0,0 +1,38 @@
+package com.spring.querydsl.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * ChangeFeedRelay 인스턴스별 소비자 전달 위치
+ * 각 인스턴스가 poll 할 때마다 자기 행의 위치와 heartbeat_at 을 갱신하고,
+ * change_event 는 살아 있는 모든 인스턴스의 가장 작은 위치 앞까지만 지운다.
+ * heartbeat_at 이 instance-timeout-ms 보다 오래된 행은 멈춘 인스턴스로 보고 지운다.
+ */
+@Entity
+@Table(name = "change_feed_offset")
+@IdClass(ChangeFeedOffset.Key.class)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"instanceId", "consumer", "lastId"})
+public class ChangeFeedOffset {
+    @Id
+    @Column(name = "instance_id")
+    private String instanceId;
+    @Id
+    private String consumer;
+
+    @Column(name = "last_id")
+    private long lastId;
+    @Column(name = "heartbeat_at")
+    private long heartbeatAt;
+
+    @Data
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private String instanceId;
+        private String consumer;
+    }
+}
@@ -0,0 +1,9 @@
+package com.spring.querydsl.entity;
+
+public enum ChangeOperation {
+    INSERT, UPDATE, DELETE,
+    /**
+     * queryFactory.update/delete 벌크 연산 : 식별자 범위 안의 행 중 일부만 바뀌었을 수 있다.
+     */
+    BULK_UPDATE, BULK_DELETE
+}
@@ -1,19 +1,38 @@
 package com.spring.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = @Index(name = "idx_member_username_normalized", columnList = "username_normalized"))
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "member_seq")
+    @GenericGenerator(name = "member_seq", strategy = "com.spring.querydsl.entity.id.BlockSequenceGenerator",
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "member_seq"))
     @Column(name = "member_id")
     private Long id;
     private String username;
+    /**
+     * lower(username) 을 DB 가 계산해서 저장하는 인덱스 컬럼 (대소문자 무시 조건용, UsernameExpressions)
+     * 벌크 update, write-behind 같은 JDBC update 에도 DB 가 같이 갱신하므로 애플리케이션에서는 쓰지 않는다.
+     * 조회 전용이고 엔티티의 값은 insert/update 후 다시 읽지 않으므로 조건에서만 사용한다.
+     */
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    @Column(name = "username_normalized", insertable = false, updatable = false,
+            columnDefinition = "varchar(255) as lower(username)") // H2 계산 컬럼
+    private String usernameNormalized;
     private int age;
 
+    @Version
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
@@ -33,6 +52,6 @@ public class Member {
     }
     public void changeTeam(Team team) {
         this.team = team;
-        team.getMembers().add(this);
+        team.addMember(this);
     }
 }
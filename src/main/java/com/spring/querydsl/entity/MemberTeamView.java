@@ -0,0 +1,32 @@
+package com.spring.querydsl.entity;
+
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+
+/**
+ * MemberTeamDto 와 같은 모양의 비정규화 조회 테이블
+ * member - team 조인 없이 search/searchPage* 를 처리하기 위해 사용한다.
+ * 직접 수정하지 않고 MemberTeamViewListener / MemberTeamViewService 를 통해서만 갱신한다.
+ */
+@Entity
+@Immutable
+@Table(name = "member_team_view", indexes = {
+        @Index(name = "idx_member_team_view_team_name", columnList = "team_name"),
+        @Index(name = "idx_member_team_view_username", columnList = "username")})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"memberId", "username", "age", "teamId", "teamName"})
+public class MemberTeamView {
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+    private String username;
+    private int age;
+
+    @Column(name = "team_id")
+    private Long teamId;
+    @Column(name = "team_name")
+    private String teamName;
+}
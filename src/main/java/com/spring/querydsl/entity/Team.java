@@ -1,6 +1,13 @@
 package com.spring.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.annotations.LazyCollection;
+import org.hibernate.annotations.LazyCollectionOption;
+import org.hibernate.annotations.OptimisticLock;
+
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -10,15 +17,37 @@ import java.util.List;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
 public class Team {
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "team_seq")
+    @GenericGenerator(name = "team_seq", strategy = "com.spring.querydsl.entity.id.BlockSequenceGenerator",
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "team_seq"))
     @Column(name = "team_id")
     private Long id;
     private String name;
 
+    @Version
+    private Long version;
+
+    /**
+     * 회원 이동(changeTeam)마다 팀 버전이 올라가면 같은 팀으로의 이동끼리 충돌하므로 버전 증가에서 제외한다.
+     * 이동의 동시성은 Member 버전으로 제어한다.
+     * EXTRA : size()/contains() 는 컬렉션을 초기화하지 않고 count/exists 쿼리로 처리한다.
+     * 큰 팀의 회원 조회는 TeamRepository#findMembersAfter 로 나눠서 읽는다.
+     */
+    @OptimisticLock(excluded = true)
+    @LazyCollection(LazyCollectionOption.EXTRA)
     @OneToMany(mappedBy = "team")
     List<Member> members = new ArrayList<>();
 
     public Team(String name) {
         this.name = name;
     }
+
+    /**
+     * 아직 로딩되지 않은 컬렉션에 add 하면 초기화하지 않고 대기 작업으로 쌓는다. (연관관계 주인이 Member.team 인 inverse 컬렉션)
+     * extra lazy size()/contains() 는 대기 작업이 있으면 flush 한 뒤 조회하므로 방금 옮긴 회원도 센다.
+     */
+    void addMember(Member member) {
+        members.add(member);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.spring.querydsl.entity.event;
+
+import com.spring.querydsl.entity.ChangeOperation;
+import lombok.Getter;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.io.Serializable;
+
+/**
+ * 엔티티 변경 한 건 (하이버네이트 POST_INSERT / POST_UPDATE / POST_DELETE 이벤트)
+ * 상태 배열은 이벤트 시점의 복사본이므로 커밋 후에 읽어도 된다.
+ */
+@Getter
+public class EntityChange {
+
+    private final EventSource session;
+    private final Object entity;
+    private final Serializable id;
+    private final ChangeOperation operation;
+    private final EntityPersister persister;
+    /**
+     * 변경 후 상태 (delete 는 삭제 직전 상태)
+     */
+    private final Object[] state;
+    /**
+     * 변경 전 상태, update 이고 영속 상태 엔티티일 때만 있다. (분리 상태 엔티티의 update 는 null)
+     */
+    private final Object[] oldState;
+
+    EntityChange(EventSource session, Object entity, Serializable id, ChangeOperation operation,
+                 EntityPersister persister, Object[] state, Object[] oldState) {
+        this.session = session;
+        this.entity = entity;
+        this.id = id;
+        this.operation = operation;
+        this.persister = persister;
+        this.state = state == null ? null : state.clone();
+        this.oldState = oldState == null ? null : oldState.clone();
+    }
+
+    public boolean is(Class<?> entityType) {
+        return entityType.isInstance(entity);
+    }
+
+    public Object property(String name) {
+        return state[propertyIndex(name)];
+    }
+
+    public Object oldProperty(String name) {
+        return oldState[propertyIndex(name)];
+    }
+
+    private int propertyIndex(String name) {
+        return persister.getEntityMetamodel().getPropertyIndex(name);
+    }
+}
@@ -0,0 +1,118 @@
+package com.spring.querydsl.entity.event;
+
+import com.spring.querydsl.entity.ChangeOperation;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 엔티티 변경 이벤트를 한 번만 등록하고 구독자(EntityCommitListener)들에게 나눠 준다.
+ * - flush 중 : 변경마다 onChange
+ * - 커밋 후 : 세션(트랜잭션)마다 한 번 AfterTransactionCompletion 을 등록해서 그 트랜잭션의 변경 목록으로 afterCommit
+ * - 진행 중 : 아직 끝나지 않은 트랜잭션이 어떤 엔티티를 바꿨는지 hasChanged 로 확인한다.
+ * 벌크 연산(queryFactory.update/delete)과 JDBC 변경은 이벤트가 없으므로 전달되지 않는다.
+ * 구독자가 없으면 변경을 모으지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityCommitHook {
+
+    private final EntityManagerFactory emf;
+
+    private final List<EntityCommitListener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * 변경이 있었고 아직 끝나지 않은 세션(트랜잭션)
+     */
+    private final Map<SessionImplementor, SessionChanges> sessions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void registerListener() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        HookListener listener = new HookListener();
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+    }
+
+    public void subscribe(EntityCommitListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 세션의 진행 중인 트랜잭션이 entityType 을 바꿨으면(flush 된 것만) true
+     */
+    public boolean hasChanged(SessionImplementor session, Class<?> entityType) {
+        SessionChanges changes = sessions.get(session);
+        return changes != null && changes.types.stream().anyMatch(entityType::isAssignableFrom);
+    }
+
+    private void onChange(EntityChange change) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        EventSource session = change.getSession();
+        SessionChanges changes = sessions.get(session);
+        if (changes == null) {
+            changes = new SessionChanges();
+            sessions.put(session, changes);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, s) -> {
+                SessionChanges completed = sessions.remove(session);
+                if (success && completed != null) {
+                    List<EntityChange> committed = Collections.unmodifiableList(completed.changes);
+                    listeners.forEach(listener -> listener.afterCommit(committed));
+                }
+            });
+        }
+        changes.changes.add(change);
+        changes.types.add(change.getPersister().getMappedClass());
+        listeners.forEach(listener -> listener.onChange(change));
+    }
+
+    /**
+     * 한 세션의 변경, 그 세션의 스레드에서만 바뀐다.
+     */
+    private static class SessionChanges {
+        private final List<EntityChange> changes = new ArrayList<>();
+        private final Set<Class<?>> types = ConcurrentHashMap.newKeySet();
+    }
+
+    private class HookListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            onChange(new EntityChange(event.getSession(), event.getEntity(), event.getId(), ChangeOperation.INSERT,
+                    event.getPersister(), event.getState(), null));
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            onChange(new EntityChange(event.getSession(), event.getEntity(), event.getId(), ChangeOperation.UPDATE,
+                    event.getPersister(), event.getState(), event.getOldState()));
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            onChange(new EntityChange(event.getSession(), event.getEntity(), event.getId(), ChangeOperation.DELETE,
+                    event.getPersister(), event.getDeletedState(), null));
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.spring.querydsl.entity.event;
+
+import java.util.List;
+
+/**
+ * EntityCommitHook 구독자 (팀 차원, 스케치, 변경 피드, member_team_view, 응답 캐시)
+ * 엔티티 종류는 구분하지 않고 전달하므로 필요한 변경만 골라서 처리한다.
+ */
+public interface EntityCommitListener {
+
+    /**
+     * flush 중 변경마다 같은 세션/트랜잭션 안에서 호출된다.
+     * 커밋 직전에 같은 커넥션으로 반영할 작업은 여기서 세션의 ActionQueue 에 등록한다.
+     */
+    default void onChange(EntityChange change) {
+    }
+
+    /**
+     * 변경이 있었던 트랜잭션이 커밋되면 트랜잭션마다 한 번, 변경 순서대로 전달된다. (롤백되면 호출되지 않는다)
+     */
+    default void afterCommit(List<EntityChange> changes) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.spring.querydsl.entity.id;
+
+import com.spring.querydsl.shard.ShardContext;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 블록 단위로 식별자를 할당하는 시퀀스 생성기
+ * DB 시퀀스는 allocation size 만큼 증가하고(increment by N), 한번 조회한 값부터 N 개를 JVM 안에서 나눠준다.
+ * 노드마다 서로 다른 블록을 받으므로 여러 애플리케이션 인스턴스에서도 식별자가 겹치지 않는다.
+ *
+ * 샤딩 중에는 샤드마다 시퀀스가 따로 있으므로 블록도 샤드별로 나누고,
+ * 식별자를 (블록 값 * 샤드 수 + 샤드 번호)로 만들어 샤드 사이에서도 겹치지 않게 한다.
+ *
+ * 블록 크기 : hibernate.id.block_allocation_size (기본 50)
+ * 샤드 수 : hibernate.id.shard_count (기본 1, ShardingConfig 가 설정한다)
+ */
+public class BlockSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String ALLOCATION_SIZE_SETTING = "hibernate.id.block_allocation_size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+    public static final String SHARD_COUNT_SETTING = "hibernate.id.shard_count";
+
+    private final Map<Integer, LockFreePooledLoOptimizer> shardOptimizers = new ConcurrentHashMap<>();
+    private Class<?> returnClass;
+    private int allocationSize;
+    private int shardCount;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+        allocationSize = ConfigurationHelper.getInt(ALLOCATION_SIZE_SETTING, settings, DEFAULT_ALLOCATION_SIZE);
+        shardCount = ConfigurationHelper.getInt(SHARD_COUNT_SETTING, settings, 1);
+        returnClass = type.getReturnedClass();
+
+        params.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize));
+        params.setProperty(OPT_PARAM, LockFreePooledLoOptimizer.class.getName());
+        super.configure(type, params, serviceRegistry);
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        if (shardCount <= 1) {
+            return super.generate(session, object);
+        }
+        int shard = ShardContext.current();
+        LockFreePooledLoOptimizer optimizer = shardOptimizers.computeIfAbsent(shard,
+                key -> new LockFreePooledLoOptimizer(returnClass, allocationSize));
+        long value = ((Number) optimizer.generate(getDatabaseStructure().buildCallback(session))).longValue();
+        return value * shardCount + shard;
+    }
+}
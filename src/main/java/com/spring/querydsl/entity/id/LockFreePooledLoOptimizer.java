@@ -0,0 +1,97 @@
+package com.spring.querydsl.entity.id;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * pooled-lo 방식 옵티마이저의 락 없는 구현
+ * 시퀀스 값 lo 를 받으면 [lo, lo + incrementSize) 블록을 CAS 로 교체하며 나눠준다.
+ * 하이버네이트 기본 PooledLoOptimizer 는 generate 전체가 synchronized 라 삽입이 몰리면 여기서 줄을 선다.
+ * 블록이 소진되면 한 스레드만 시퀀스에서 새 블록을 받고, 나머지는 교체를 기다렸다가 새 블록에서 다시 받는다.
+ * (OptimizerFactory 가 (Class, int) 생성자로 만든다. AbstractOptimizer 의 생성자는 패키지 전용이라 Optimizer 를 직접 구현한다)
+ */
+public class LockFreePooledLoOptimizer implements Optimizer {
+
+    private final Class<?> returnClass;
+    private final int incrementSize;
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(0, 0));
+    private final ReentrantLock refillLock = new ReentrantLock();
+    private volatile IntegralDataTypeHolder lastSourceValue;
+
+    public LockFreePooledLoOptimizer(Class<?> returnClass, int incrementSize) {
+        if (incrementSize < 1) {
+            throw new IllegalArgumentException("incrementSize must be positive : " + incrementSize);
+        }
+        this.returnClass = returnClass;
+        this.incrementSize = incrementSize;
+    }
+
+    @Override
+    public Serializable generate(AccessCallback callback) {
+        while (true) {
+            Block block = current.get();
+            long value = block.next.getAndIncrement();
+            if (value < block.end) {
+                return make(value);
+            }
+            refill(block, callback);
+        }
+    }
+
+    /**
+     * 소진된 블록을 아직 아무도 바꾸지 않았으면 새 블록으로 바꾼다.
+     * 락을 기다린 스레드는 이미 바뀐 블록을 보고 그냥 돌아간다. (시퀀스 호출은 블록당 한 번)
+     */
+    private void refill(Block exhausted, AccessCallback callback) {
+        refillLock.lock();
+        try {
+            if (current.get() != exhausted) {
+                return;
+            }
+            IntegralDataTypeHolder source = callback.getNextValue();
+            lastSourceValue = source;
+            long lo = source.makeValue().longValue();
+            current.set(new Block(lo, lo + incrementSize));
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private Serializable make(long value) {
+        return IdentifierGeneratorHelper.getIntegralDataTypeHolder(returnClass)
+                .initialize(value)
+                .makeValue();
+    }
+
+    @Override
+    public IntegralDataTypeHolder getLastSourceValue() {
+        return lastSourceValue;
+    }
+
+    @Override
+    public int getIncrementSize() {
+        return incrementSize;
+    }
+
+    @Override
+    public boolean applyIncrementSizeToSourceValues() {
+        return true;
+    }
+
+    private static class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        Block(long next, long end) {
+            this.next = new AtomicLong(next);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.spring.querydsl.query;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 엔드포인트별 타임아웃으로 조회를 비동기 실행한다.
+ * - 타임아웃 : querydsl.query-timeout.<endpoint> (ms), 없으면 querydsl.query-timeout.default
+ *   요청을 받은 시각부터 잰다. (대기열에서 기다린 시간 포함) 리포지토리는 남은 시간을 JDBC 쿼리 타임아웃으로 건다. (QueryDeadline)
+ *   타임아웃은 요청 타임아웃이든 JDBC 쿼리 타임아웃이든 503 으로 응답한다.
+ * - 취소 : 요청이 타임아웃되거나 클라이언트 연결이 끊겨 비동기 요청이 에러로 끝나면
+ *   실행 중인 JDBC statement 를 Session#cancelQuery 로 취소한다.
+ * - 대기열 : 실행 중 pool-size + 대기 queue-capacity 를 넘는 요청은 바로 503 으로 거절한다.
+ * - 스레드 수 : 각 조회는 커넥션 하나를 잡은 채 REQUIRES_NEW 로 하나를 더 잡을 수 있으므로
+ *   pool-size 는 커넥션 풀 최대 크기의 절반을 넘을 수 없다. (기본값도 절반)
+ * 지표 : member.search.timeout, member.search.cancelled, member.search.rejected-busy
+ */
+@Slf4j
+@Component
+public class MemberQueryExecutor {
+
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTemplate;
+    private final Environment environment;
+    private final long defaultTimeoutMillis;
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private final Semaphore admissions;
+    private final Counter timeouts;
+    private final Counter cancellations;
+    private final Counter rejections;
+
+    public MemberQueryExecutor(EntityManager em, PlatformTransactionManager transactionManager,
+                               Environment environment, MeterRegistry meterRegistry,
+                               @Value("${querydsl.query-timeout.default:5000}") long defaultTimeoutMillis,
+                               @Value("${querydsl.query-timeout.pool-size:0}") int poolSize,
+                               @Value("${querydsl.query-timeout.queue-capacity:50}") int queueCapacity,
+                               @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maxConnections) {
+        int maxPoolSize = Math.max(1, maxConnections / 2);
+        if (poolSize > maxPoolSize) {
+            throw new IllegalStateException("querydsl.query-timeout.pool-size=" + poolSize + " can hold up to " + poolSize * 2
+                    + " connections with nested REQUIRES_NEW transactions, but spring.datasource.hikari.maximum-pool-size is "
+                    + maxConnections);
+        }
+        int threads = poolSize > 0 ? poolSize : maxPoolSize;
+
+        this.em = em;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.environment = environment;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.admissions = new Semaphore(threads + queueCapacity);
+        this.timeouts = meterRegistry.counter("member.search.timeout");
+        this.cancellations = meterRegistry.counter("member.search.cancelled");
+        this.rejections = meterRegistry.counter("member.search.rejected-busy");
+
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("member-query-");
+        executor.initialize();
+    }
+
+    /**
+     * @param endpoint 타임아웃 설정 키 (예: v1-members)
+     */
+    public <T> WebAsyncTask<T> execute(String endpoint, Supplier<T> query) {
+        long timeoutMillis = environment.getProperty("querydsl.query-timeout." + endpoint, Long.class, defaultTimeoutMillis);
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+        if (!admissions.tryAcquire()) {
+            rejections.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "too many queued queries");
+        }
+        // 슬롯은 작업이 끝날 때 돌려준다. 시작도 못 하고 끝난 요청(대기 중 타임아웃 등)은 onCompletion 에서 돌려준다.
+        AtomicBoolean started = new AtomicBoolean();
+        AtomicReference<Session> running = new AtomicReference<>();
+
+        WebAsyncTask<T> task = new WebAsyncTask<>(timeoutMillis, executor, () -> {
+            if (!started.compareAndSet(false, true)) {
+                return null;
+            }
+            try {
+                return readOnlyTemplate.execute(status -> {
+                    running.set(em.unwrap(Session.class));
+                    try {
+                        return QueryDeadline.runWith(deadline, query);
+                    } catch (javax.persistence.QueryTimeoutException | org.springframework.dao.QueryTimeoutException e) {
+                        timeouts.increment();
+                        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "query timed out after " + timeoutMillis + " ms", e);
+                    } finally {
+                        running.set(null);
+                    }
+                });
+            } finally {
+                admissions.release();
+            }
+        });
+        task.onTimeout(() -> {
+            cancel(running, endpoint, "timeout");
+            timeouts.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "query timed out after " + timeoutMillis + " ms");
+        });
+        task.onError(() -> {
+            // 클라이언트 연결 끊김 등으로 비동기 요청이 에러로 끝남
+            cancel(running, endpoint, "client error");
+            cancellations.increment();
+            return null;
+        });
+        task.onCompletion(() -> {
+            if (started.compareAndSet(false, true)) {
+                admissions.release();
+            }
+        });
+        return task;
+    }
+
+    private void cancel(AtomicReference<Session> running, String endpoint, String reason) {
+        Session session = running.get();
+        if (session != null) {
+            log.debug("cancel running query endpoint={} reason={}", endpoint, reason);
+            session.cancelQuery();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
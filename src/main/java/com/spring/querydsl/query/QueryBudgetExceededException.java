@@ -0,0 +1,15 @@
+package com.spring.querydsl.query;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 예상 조회 건수가 허용치를 넘어서 실행을 거절한 검색
+ */
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class QueryBudgetExceededException extends RuntimeException {
+    public QueryBudgetExceededException(long estimatedRows, long maxRows) {
+        super("estimated " + estimatedRows + " rows exceeds search budget of " + maxRows
+                + " rows, add a filter or use a paged endpoint");
+    }
+}
@@ -0,0 +1,59 @@
+package com.spring.querydsl.query;
+
+import javax.persistence.QueryTimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 현재 스레드에서 실행되는 쿼리의 마감 시각
+ * MemberQueryExecutor 가 엔드포인트별 타임아웃으로 시작하고, 리포지토리는 남은 시간을 쿼리 타임아웃 힌트로 건다.
+ */
+public final class QueryDeadline {
+
+    public static final String TIMEOUT_HINT = "javax.persistence.query.timeout";
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    /**
+     * 마감 시각(System.nanoTime 기준)을 걸고 작업을 실행한다. deadlineNanos 가 null 이면 마감 없음
+     */
+    public static <T> T runWith(Long deadlineNanos, Supplier<T> callback) {
+        Long previous = DEADLINE.get();
+        if (deadlineNanos == null) {
+            DEADLINE.remove();
+        } else {
+            DEADLINE.set(deadlineNanos);
+        }
+        try {
+            return callback.get();
+        } finally {
+            if (previous == null) {
+                DEADLINE.remove();
+            } else {
+                DEADLINE.set(previous);
+            }
+        }
+    }
+
+    public static Long current() {
+        return DEADLINE.get();
+    }
+
+    /**
+     * 남은 시간(ms), 마감이 없으면 null
+     * 이미 지났으면 쿼리를 보내지 않고 바로 실패시킨다.
+     */
+    public static Integer remainingMillis() {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return null;
+        }
+        long remaining = (deadline - System.nanoTime()) / 1_000_000;
+        if (remaining <= 0) {
+            throw new QueryTimeoutException("query deadline exceeded before execution");
+        }
+        return (int) Math.min(remaining, Integer.MAX_VALUE);
+    }
+
+    private QueryDeadline() {
+    }
+}
@@ -0,0 +1,93 @@
+package com.spring.querydsl.query;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.spring.querydsl.dto.MemberSearchCondition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+
+import static com.spring.querydsl.entity.QMember.member;
+import static com.spring.querydsl.entity.QTeam.team;
+import static org.springframework.util.StringUtils.isEmpty;
+
+/**
+ * 제한 없는 search 실행 전 비용 검사
+ * 캐시된 테이블 건수와 조건별 선택도로 예상 건수를 구하고, max-rows 를 넘으면 mode 에 따라
+ * - reject (기본) : QueryBudgetExceededException, 422 (member.search.rejected)
+ * - limit : max-rows 건까지만 조회 (member.search.truncated), 응답에는 잘렸다는 표시가 없다.
+ * - off : 검사하지 않음
+ * 선택도는 단순 추정이다. username 일치 1%, 팀 이름 1/팀 수, 나이 범위는 0~100세 균등 분포 가정
+ */
+@Component
+public class SearchCostGuard {
+
+    private static final double USERNAME_SELECTIVITY = 0.01;
+    private static final int AGE_SPAN = 100;
+
+    private final JPAQueryFactory queryFactory;
+    private final String mode;
+    private final long maxRows;
+    private final Counter truncated;
+    private final Counter rejected;
+
+    private volatile long memberCount = -1;
+    private volatile long teamCount = -1;
+
+    public SearchCostGuard(EntityManager em, MeterRegistry meterRegistry,
+                           @Value("${querydsl.search-guard.mode:reject}") String mode,
+                           @Value("${querydsl.search-guard.max-rows:10000}") long maxRows) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.mode = mode;
+        this.maxRows = maxRows;
+        this.truncated = meterRegistry.counter("member.search.truncated");
+        this.rejected = meterRegistry.counter("member.search.rejected");
+    }
+
+    /**
+     * @return 적용할 limit, 제한이 필요 없으면 null
+     */
+    public Long limitFor(MemberSearchCondition condition) {
+        if ("off".equals(mode)) {
+            return null;
+        }
+        long estimated = estimateRows(condition);
+        if (estimated <= maxRows) {
+            return null;
+        }
+        if ("reject".equals(mode)) {
+            rejected.increment();
+            throw new QueryBudgetExceededException(estimated, maxRows);
+        }
+        truncated.increment();
+        return maxRows;
+    }
+
+    public long estimateRows(MemberSearchCondition condition) {
+        if (memberCount < 0) {
+            refreshStatistics();
+        }
+        double rows = memberCount;
+        if (!isEmpty(condition.getUsername())) {
+            rows *= USERNAME_SELECTIVITY;
+        }
+        if (!isEmpty(condition.getTeamName())) {
+            rows /= Math.max(1, teamCount);
+        }
+        if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+            int from = condition.getAgeGoe() == null ? 0 : Math.max(0, condition.getAgeGoe());
+            int to = condition.getAgeLoe() == null ? AGE_SPAN : Math.min(AGE_SPAN, condition.getAgeLoe());
+            rows *= Math.max(0, to - from + 1) / (double) (AGE_SPAN + 1);
+        }
+        return (long) Math.ceil(rows);
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.search-guard.statistics-refresh-ms:60000}")
+    public void refreshStatistics() {
+        memberCount = queryFactory.selectFrom(member).fetchCount();
+        teamCount = queryFactory.selectFrom(team).fetchCount();
+    }
+}
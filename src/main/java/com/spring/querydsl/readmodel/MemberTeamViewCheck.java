@@ -0,0 +1,20 @@
+package com.spring.querydsl.readmodel;
+
+import lombok.Value;
+
+/**
+ * member_team_view 정합성 검사 결과
+ * - missing : member 에는 있지만 조회 테이블에 없는 행
+ * - stale : 값(username, age, team)이 원본과 다른 행
+ * - orphan : 조회 테이블에만 남아있는 행
+ */
+@Value
+public class MemberTeamViewCheck {
+    long missing;
+    long stale;
+    long orphan;
+
+    public boolean isConsistent() {
+        return missing == 0 && stale == 0 && orphan == 0;
+    }
+}
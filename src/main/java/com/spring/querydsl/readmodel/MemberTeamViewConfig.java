@@ -0,0 +1,24 @@
+package com.spring.querydsl.readmodel;
+
+import com.spring.querydsl.entity.event.EntityCommitHook;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * querydsl.read-model.enabled=true 일 때 member_team_view 증분 갱신 리스너를 등록한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "querydsl.read-model.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class MemberTeamViewConfig {
+
+    private final EntityCommitHook entityCommitHook;
+
+    @PostConstruct
+    public void registerListener() {
+        entityCommitHook.subscribe(new MemberTeamViewListener());
+    }
+}
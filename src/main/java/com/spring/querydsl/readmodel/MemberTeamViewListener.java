@@ -0,0 +1,61 @@
+package com.spring.querydsl.readmodel;
+
+import com.spring.querydsl.entity.ChangeOperation;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.entity.event.EntityChange;
+import com.spring.querydsl.entity.event.EntityCommitListener;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.event.spi.EventSource;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+
+/**
+ * Member/Team 변경을 member_team_view 에 증분 반영하는 EntityCommitHook 구독자
+ * JDBC 배치로 아직 실행되지 않은 insert 가 있을 수 있으므로 flush 중에 바로 반영하지 않고,
+ * 커밋 직전(BeforeTransactionCompletion)에 같은 커넥션/트랜잭션으로 반영한다.
+ * queryFactory.update/delete 같은 벌크 연산은 이벤트가 발생하지 않으므로 MemberTeamViewService#rebuild 로 맞춘다.
+ */
+public class MemberTeamViewListener implements EntityCommitListener {
+
+    @Override
+    public void onChange(EntityChange change) {
+        EventSource session = change.getSession();
+        Serializable id = change.getId();
+        if (change.is(Member.class)) {
+            if (change.getOperation() == ChangeOperation.DELETE) {
+                execute(session, MemberTeamViewSql.DELETE_MEMBER, id);
+            } else {
+                refreshMember(session, id);
+            }
+        } else if (change.is(Team.class)) {
+            if (change.getOperation() == ChangeOperation.UPDATE) {
+                // 팀 이름 변경 : 해당 팀 소속 행의 team_name 만 갱신
+                execute(session, MemberTeamViewSql.UPDATE_TEAM_NAME, id, id);
+            } else if (change.getOperation() == ChangeOperation.DELETE) {
+                execute(session, MemberTeamViewSql.DETACH_TEAM, id);
+            }
+        }
+    }
+
+    /**
+     * 회원 행은 삭제 후 member/team 원본에서 다시 만든다. (changeTeam, username/age 변경 모두 포함)
+     */
+    private void refreshMember(EventSource session, Serializable memberId) {
+        execute(session, MemberTeamViewSql.DELETE_MEMBER, memberId);
+        execute(session, MemberTeamViewSql.INSERT_MEMBER, memberId);
+    }
+
+    private void execute(EventSource eventSource, String sql, Object... params) {
+        eventSource.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) session ->
+                session.doWork(connection -> {
+                    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                        for (int i = 0; i < params.length; i++) {
+                            ps.setObject(i + 1, params[i]);
+                        }
+                        ps.executeUpdate();
+                    }
+                }));
+    }
+}
@@ -0,0 +1,39 @@
+package com.spring.querydsl.readmodel;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * member_team_view 재구축 / 정합성 검사
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberTeamViewService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 조회 테이블을 비우고 member/team 원본에서 한번에 다시 만든다.
+     * @return 재구축된 행 수
+     */
+    @Transactional
+    public int rebuild() {
+        jdbcTemplate.update(MemberTeamViewSql.DELETE_ALL);
+        return jdbcTemplate.update(MemberTeamViewSql.INSERT_ALL);
+    }
+
+    @Transactional(readOnly = true)
+    public MemberTeamViewCheck check() {
+        return new MemberTeamViewCheck(
+                count(MemberTeamViewSql.COUNT_MISSING),
+                count(MemberTeamViewSql.COUNT_STALE),
+                count(MemberTeamViewSql.COUNT_ORPHAN));
+    }
+
+    private long count(String sql) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,49 @@
+package com.spring.querydsl.readmodel;
+
+/**
+ * member_team_view 갱신/검증용 SQL
+ */
+final class MemberTeamViewSql {
+
+    private static final String SELECT_ROWS =
+            "select m.member_id, m.username, m.age, t.team_id, t.name" +
+            " from member m left outer join team t on m.team_id = t.team_id";
+
+    static final String INSERT_ALL =
+            "insert into member_team_view (member_id, username, age, team_id, team_name) " + SELECT_ROWS;
+
+    static final String INSERT_MEMBER = INSERT_ALL + " where m.member_id = ?";
+
+    static final String DELETE_ALL = "delete from member_team_view";
+
+    static final String DELETE_MEMBER = DELETE_ALL + " where member_id = ?";
+
+    static final String UPDATE_TEAM_NAME =
+            "update member_team_view set team_name = (select t.name from team t where t.team_id = ?)" +
+            " where team_id = ?";
+
+    static final String DETACH_TEAM =
+            "update member_team_view set team_id = null, team_name = null where team_id = ?";
+
+    static final String COUNT_MISSING =
+            "select count(*) from member m" +
+            " left outer join member_team_view v on v.member_id = m.member_id" +
+            " where v.member_id is null";
+
+    static final String COUNT_STALE =
+            "select count(*) from member m" +
+            " left outer join team t on m.team_id = t.team_id" +
+            " join member_team_view v on v.member_id = m.member_id" +
+            " where coalesce(v.username, '') <> coalesce(m.username, '')" +
+            " or v.age <> m.age" +
+            " or coalesce(v.team_id, -1) <> coalesce(m.team_id, -1)" +
+            " or coalesce(v.team_name, '') <> coalesce(t.name, '')";
+
+    static final String COUNT_ORPHAN =
+            "select count(*) from member_team_view v" +
+            " left outer join member m on m.member_id = v.member_id" +
+            " where m.member_id is null";
+
+    private MemberTeamViewSql() {
+    }
+}
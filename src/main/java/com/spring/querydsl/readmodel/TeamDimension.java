@@ -0,0 +1,209 @@
+package com.spring.querydsl.readmodel;
+
+import com.mysema.codegen.ECJEvaluatorFactory;
+import com.querydsl.collections.CollQuery;
+import com.querydsl.collections.CollQueryTemplates;
+import com.querydsl.collections.DefaultEvaluatorFactory;
+import com.querydsl.collections.DefaultQueryEngine;
+import com.querydsl.collections.QueryEngine;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.spring.querydsl.dto.MemberTeamDto;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.entity.event.EntityChange;
+import com.spring.querydsl.entity.event.EntityCommitHook;
+import com.spring.querydsl.entity.event.EntityCommitListener;
+import com.spring.querydsl.shard.ShardTemplate;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.spring.querydsl.entity.QTeam.team;
+
+/**
+ * 메모리에 복제한 팀 목록 (querydsl.team-dimension.enabled=true)
+ * 팀은 몇 건 안 되므로 member 조회에서 team 조인을 빼고,
+ * 팀 이름 조건은 조회 전에 team_id 목록으로 바꾸고 결과의 팀 이름은 여기서 채운다. (MemberRepositoryImpl)
+ * - 무효화 : Team insert/update/delete 가 있었던 트랜잭션이 커밋되면 버리고 다음 조회 때 다시 읽는다. (EntityCommitHook)
+ *   벌크 연산이나 다른 인스턴스의 변경은 refresh-ms 주기로 반영된다.
+ * - 같은 트랜잭션 : 팀을 바꾼 트랜잭션 안에서는 커밋 전 상태가 보여야 하므로 사용하지 않는다. (isUsable)
+ */
+@Component
+@ConditionalOnProperty(name = "querydsl.team-dimension.enabled", havingValue = "true")
+public class TeamDimension implements EntityCommitListener {
+
+    /**
+     * querydsl-collections 는 조건을 자바 코드로 만들어 컴파일한다.
+     * 자바 9 이상은 클래스로더가 URLClassLoader 가 아니라서 ECJ 를 쓰는데, 기본 옵션은 소스 레벨을
+     * java.specification.version("11")으로 잡고 ECJ 4.3 은 이를 몰라 1.3 으로 컴파일하다 실패하므로 1.7 로 고정한다.
+     */
+    private static final QueryEngine QUERY_ENGINE = new DefaultQueryEngine(new DefaultEvaluatorFactory(
+            CollQueryTemplates.DEFAULT, new ECJEvaluatorFactory(TeamDimension.class.getClassLoader(), compilerOptions())));
+
+    private final EntityCommitHook entityCommitHook;
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final ShardTemplate shardTemplate;
+
+    private Snapshot snapshot;
+    private long generation;
+
+    public TeamDimension(EntityCommitHook entityCommitHook, EntityManager em, ObjectProvider<ShardTemplate> shardTemplate) {
+        this.entityCommitHook = entityCommitHook;
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.shardTemplate = shardTemplate.getIfAvailable();
+    }
+
+    @PostConstruct
+    public void registerListener() {
+        entityCommitHook.subscribe(this);
+    }
+
+    @Override
+    public void afterCommit(List<EntityChange> changes) {
+        if (changes.stream().anyMatch(change -> change.is(Team.class))) {
+            invalidate();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.team-dimension.refresh-ms:60000}")
+    public synchronized void invalidate() {
+        generation++;
+        snapshot = null;
+    }
+
+    /**
+     * 현재 트랜잭션이 팀을 변경했으면 false (조인으로 조회해야 한다)
+     * 아직 flush 되지 않은 변경도 확인하기 위해 변경이 있으면 먼저 flush 한다. (AUTO flush 가 조회 직전에 하는 일과 같다)
+     */
+    public boolean isUsable() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return true;
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        if (session.isDirty()) {
+            session.flush();
+        }
+        return !entityCommitHook.hasChanged(session, Team.class);
+    }
+
+    /**
+     * 팀 이름 -> team_id 목록 (이름은 유일하지 않다)
+     * 메모리에 없으면 그 사이 다른 곳에서 만든 팀일 수 있으므로 DB 에서 확인한다.
+     */
+    public List<Long> teamIds(String teamName) {
+        List<Long> ids = snapshot().idsByName.get(teamName);
+        if (ids != null) {
+            return ids;
+        }
+        List<Long> found = fetchTeams(team.name.eq(teamName)).stream()
+                .map(row -> row.get(team.id))
+                .collect(Collectors.toList());
+        if (!found.isEmpty()) {
+            invalidate();
+        }
+        return found;
+    }
+
+    /**
+     * team.id / team.name 만 사용하는 조건을 메모리의 팀 목록에 평가한다. (querydsl-collections)
+     */
+    public List<Long> teamIds(Predicate teamPredicate) {
+        return new CollQuery<Void>(QUERY_ENGINE).from(team, snapshot().teams)
+                .where(teamPredicate)
+                .select(team.id)
+                .fetch();
+    }
+
+    public void fillTeamNames(List<MemberTeamDto> content) {
+        Map<Long, String> names = snapshot().namesById;
+        Set<Long> missing = new HashSet<>();
+        for (MemberTeamDto dto : content) {
+            if (dto.getTeamId() != null && !names.containsKey(dto.getTeamId())) {
+                missing.add(dto.getTeamId());
+            }
+        }
+        if (!missing.isEmpty()) {
+            // 조회 사이에 새로 생긴 팀 : 이번 결과는 DB 에서 채우고 다음 조회 때 다시 읽는다.
+            names = new HashMap<>(names);
+            for (Tuple row : fetchTeams(team.id.in(missing))) {
+                names.put(row.get(team.id), row.get(team.name));
+            }
+            invalidate();
+        }
+        for (MemberTeamDto dto : content) {
+            if (dto.getTeamId() != null) {
+                dto.setTeamName(names.get(dto.getTeamId()));
+            }
+        }
+    }
+
+    private Snapshot snapshot() {
+        long loadingGeneration;
+        synchronized (this) {
+            if (snapshot != null) {
+                return snapshot;
+            }
+            loadingGeneration = generation;
+        }
+        Snapshot loaded = new Snapshot(fetchTeams(null));
+        synchronized (this) {
+            // 읽는 도중 무효화되었으면 이번 조회에만 쓰고 보관하지 않는다.
+            if (generation == loadingGeneration) {
+                snapshot = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    private List<Tuple> fetchTeams(Predicate where) {
+        if (shardTemplate == null) {
+            return queryFactory.select(team.id, team.name).from(team).where(where).fetch();
+        }
+        return shardTemplate.readAll(() -> queryFactory.select(team.id, team.name).from(team).where(where).fetch())
+                .stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    private static CompilerOptions compilerOptions() {
+        Map<String, String> settings = new HashMap<>();
+        settings.put(CompilerOptions.OPTION_Source, CompilerOptions.VERSION_1_7);
+        settings.put(CompilerOptions.OPTION_TargetPlatform, CompilerOptions.VERSION_1_7);
+        settings.put(CompilerOptions.OPTION_Compliance, CompilerOptions.VERSION_1_7);
+        settings.put(CompilerOptions.OPTION_ReportDeprecation, CompilerOptions.IGNORE);
+        return new CompilerOptions(settings);
+    }
+
+    private static class Snapshot {
+        private final Map<Long, String> namesById = new HashMap<>();
+        private final Map<String, List<Long>> idsByName = new HashMap<>();
+        /**
+         * querydsl-collections 평가용 복사본 (영속성 컨텍스트와 무관한 Team 객체)
+         */
+        private final List<Team> teams = new ArrayList<>();
+
+        Snapshot(List<Tuple> rows) {
+            for (Tuple row : rows) {
+                Long id = row.get(team.id);
+                String name = row.get(team.name);
+                namesById.put(id, name);
+                idsByName.computeIfAbsent(name, key -> new ArrayList<>()).add(id);
+                Team copy = new Team(name);
+                copy.setId(id);
+                teams.add(copy);
+            }
+        }
+    }
+}
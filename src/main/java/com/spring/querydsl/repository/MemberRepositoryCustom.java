@@ -1,14 +1,24 @@
 package com.spring.querydsl.repository;
 
+import com.querydsl.core.types.Predicate;
+import com.spring.querydsl.dto.ApproxDistinct;
+import com.spring.querydsl.dto.MemberField;
 import com.spring.querydsl.dto.MemberSearchCondition;
 import com.spring.querydsl.dto.MemberTeamDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+    boolean exists(MemberSearchCondition condition);
+    boolean exists(Predicate predicate);
+    ApproxDistinct approxDistinct(MemberSearchCondition condition, MemberField field);
+    List<MemberTeamDto> findAllMemberTeamDtosByIds(Collection<Long> ids);
 }
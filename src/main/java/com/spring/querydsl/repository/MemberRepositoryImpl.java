@@ -1,49 +1,145 @@
 package com.spring.querydsl.repository;
 
+import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.SimpleExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.spring.querydsl.dto.ApproxDistinct;
+import com.spring.querydsl.dto.MemberField;
 import com.spring.querydsl.dto.MemberSearchCondition;
 import com.spring.querydsl.dto.MemberTeamDto;
 import com.spring.querydsl.dto.QMemberTeamDto;
 import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.query.QueryDeadline;
+import com.spring.querydsl.query.SearchCostGuard;
+import com.spring.querydsl.readmodel.TeamDimension;
+import com.spring.querydsl.service.MemberWriteBehindBuffer;
+import com.spring.querydsl.sketch.MemberSketches;
+import com.spring.querydsl.sql.MemberSqlReader;
+import com.spring.querydsl.shard.ShardContext;
+import com.spring.querydsl.shard.ShardTemplate;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static com.spring.querydsl.entity.QMember.member;
+import static com.spring.querydsl.entity.QMemberTeamView.memberTeamView;
 import static com.spring.querydsl.entity.QTeam.team;
 import static org.springframework.util.StringUtils.isEmpty;
 
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    /**
+     * findAllMemberTeamDtosByIds 의 IN 절 최대 크기
+     * in_clause_parameter_padding 으로 1, 2, 4 ... 256 개의 쿼리 모양만 생긴다.
+     */
+    static final int ID_CHUNK_SIZE = 256;
+
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    /**
+     * true 이면 member - team 조인 대신 비정규화 조회 테이블(member_team_view)에서 읽는다.
+     * 조회 테이블은 querydsl.read-model.enabled=true 로 증분 갱신해야 하며(아니면 기동 실패), /admin/read-model/rebuild 로 재구축한다.
+     */
+    private final boolean readFromView;
+    /**
+     * 샤딩(querydsl.sharding.enabled) 중이면 대상 샤드에 병렬로 조회하고 member id 순으로 병합한다. 아니면 null
+     */
+    private final ShardTemplate shardTemplate;
+    /**
+     * write-behind(querydsl.write-behind.enabled) 중이면 아직 반영되지 않은 username/age 변경을 조회 결과에 반영한다. 아니면 null
+     */
+    private final MemberWriteBehindBuffer writeBehindBuffer;
+    /**
+     * 제한 없는 search 의 예상 건수 검사 (허용치를 넘으면 limit 을 걸거나 거절)
+     */
+    private final SearchCostGuard searchCostGuard;
+    /**
+     * 팀 차원(querydsl.team-dimension.enabled) 을 쓰면 team 조인 없이 member 테이블만 조회한다. 아니면 null
+     */
+    private final TeamDimension teamDimension;
+    /**
+     * 팀별 스케치(querydsl.sketch.enabled) 를 쓰면 approxDistinct 를 메모리에서 계산한다. 아니면 null
+     */
+    private final MemberSketches memberSketches;
+    /**
+     * querydsl-sql 조회(querydsl.sql-path.enabled) 를 쓰면 querydsl.sql-path.methods 의 메서드는 JDBC 로 바로 조회한다. 아니면 null
+     */
+    private final MemberSqlReader memberSqlReader;
 
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em,
+                                @Value("${querydsl.read-model.serve-reads:false}") boolean readFromView,
+                                @Value("${querydsl.read-model.enabled:false}") boolean viewMaintained,
+                                ObjectProvider<ShardTemplate> shardTemplate,
+                                ObjectProvider<MemberWriteBehindBuffer> writeBehindBuffer,
+                                SearchCostGuard searchCostGuard,
+                                ObjectProvider<TeamDimension> teamDimension,
+                                ObjectProvider<MemberSketches> memberSketches,
+                                ObjectProvider<MemberSqlReader> memberSqlReader) {
+        if (readFromView && !viewMaintained) {
+            // 증분 갱신 리스너 없이 조회 테이블에서 읽으면 재구축 이후의 변경이 보이지 않는다.
+            throw new IllegalStateException(
+                    "querydsl.read-model.serve-reads=true requires querydsl.read-model.enabled=true");
+        }
+        this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.readFromView = readFromView;
+        this.shardTemplate = shardTemplate.getIfAvailable();
+        this.writeBehindBuffer = writeBehindBuffer.getIfAvailable();
+        this.searchCostGuard = searchCostGuard;
+        this.teamDimension = teamDimension.getIfAvailable();
+        this.memberSketches = memberSketches.getIfAvailable();
+        this.memberSqlReader = memberSqlReader.getIfAvailable();
     }
 
     @Override
     //회원명, 팀명, 나이(ageGoe, ageLoe)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id,
-                        member.username,
-                        member.age,
-                        team.id,
-                        team.name))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()), ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
-                .fetch();
+        if (sqlPath("search")) {
+            Search search = prepareSql(condition);
+            return complete(search, memberSqlReader.content(condition, 0, searchCostGuard.limitFor(condition)));
+        }
+        Search search = prepare(condition);
+        Long limit = searchCostGuard.limitFor(condition);
+        List<MemberTeamDto> content;
+        if (shardTemplate != null) {
+            content = shardedContent(search, 0, limit);
+        } else {
+            JPAQuery<MemberTeamDto> query = contentQuery(search);
+            content = limit == null ? query.fetch() : query.limit(limit).fetch();
+        }
+        return complete(search, content);
     }
 
     private BooleanExpression usernameEq(String username) {
@@ -58,24 +154,26 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
     private BooleanExpression ageLoe(Integer ageLoe) {
         return ageLoe == null ? null : member.age.loe(ageLoe);
     }
+    private BooleanExpression teamIdIn(List<Long> teamIds) {
+        return teamIds == null ? null : member.team.id.in(teamIds);
+    }
 
     /**
      * 단순한 페이징, fetchResults() 사용
      */
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory
-                .select(new QMemberTeamDto( member.id,
-                        member.username,
-                        member.age,
-                        team.id,
-                        team.name))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
+        if (sqlPath("searchPageSimple")) {
+            Search search = prepareSql(condition);
+            List<MemberTeamDto> content = memberSqlReader.content(condition, pageable.getOffset(), (long) pageable.getPageSize());
+            return new PageImpl<>(complete(search, content), pageable, memberSqlReader.count(condition));
+        }
+        Search search = prepare(condition);
+        if (shardTemplate != null) {
+            List<MemberTeamDto> content = shardedContent(search, pageable.getOffset(), (long) pageable.getPageSize());
+            return new PageImpl<>(complete(search, content), pageable, shardedCount(search));
+        }
+        QueryResults<MemberTeamDto> results = contentQuery(search)
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetchResults();
@@ -84,7 +182,7 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
          *  fetchResult() 는 카운트 쿼리 실행시 필요없는 order by 는 제거한다.
          */
 
-        List<MemberTeamDto> content = results.getResults();
+        List<MemberTeamDto> content = complete(search, results.getResults());
         long total = results.getTotal();
 
         return new PageImpl<>(content, pageable, total);
@@ -97,21 +195,20 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
      */
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory .select(new QMemberTeamDto(
-                member.id,
-                member.username,
-                member.age,
-                team.id,
-                team.name))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
+        if (sqlPath("searchPageComplex")) {
+            Search search = prepareSql(condition);
+            List<MemberTeamDto> content = memberSqlReader.content(condition, pageable.getOffset(), (long) pageable.getPageSize());
+            return PageableExecutionUtils.getPage(complete(search, content), pageable, () -> memberSqlReader.count(condition));
+        }
+        Search search = prepare(condition);
+        if (shardTemplate != null) {
+            List<MemberTeamDto> content = shardedContent(search, pageable.getOffset(), (long) pageable.getPageSize());
+            return PageableExecutionUtils.getPage(complete(search, content), pageable, () -> shardedCount(search));
+        }
+        List<MemberTeamDto> content = complete(search, contentQuery(search)
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
-                .fetch();
+                .fetch());
 
 /*
         long total = queryFactory
@@ -127,19 +224,467 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 */
 
         // CountQuery 최적화
-        JPAQuery<Member> countQuery = queryFactory
-                .select(member)
+        JPAQuery<?> countQuery = countQuery(search);
+        // return new PageImpl<>(content, pageable, total);
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
+    }
+
+    /**
+     * 전체 카운트 없이 다음 페이지 존재 여부만 필요할 때
+     * limit + 1 건을 조회해서 남는 한 건으로 hasNext 를 판단한다.
+     */
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        boolean sql = sqlPath("searchSlice");
+        Search search = sql ? prepareSql(condition) : prepare(condition);
+        List<MemberTeamDto> content = sql
+                ? memberSqlReader.content(condition, pageable.getOffset(), pageable.getPageSize() + 1L)
+                : shardTemplate != null
+                ? shardedContent(search, pageable.getOffset(), pageable.getPageSize() + 1L)
+                : contentQuery(search)
+                        .offset(pageable.getOffset())
+                        .limit(pageable.getPageSize() + 1)
+                        .fetch();
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(complete(search, content), pageable, hasNext);
+    }
+
+    /**
+     * fetchCount() 나 fetchFirst() 로 엔티티를 조회하지 않고 select 1 ... limit 1 로 존재 여부만 확인한다.
+     */
+    @Override
+    public boolean exists(MemberSearchCondition condition) {
+        Search search = prepare(condition);
+        if (shardTemplate != null) {
+            return shardTemplate.readShards(targetShards(search), () -> existsLocal(search)).contains(true);
+        }
+        return existsLocal(search);
+    }
+
+    private boolean existsLocal(Search search) {
+        Integer found = countQuery(search)
+                .select(Expressions.ONE)
+                .fetchFirst();
+        return found != null;
+    }
+
+    /**
+     * member, team(member.team 으로 left join) 경로를 사용하는 임의의 조건
+     * 대소문자 무시 username 조건은 username_normalized 컬럼 조건으로 바꾼다. (UsernameExpressions)
+     * 팀 차원을 쓰면 team.id / team.name 만 쓰는 조건은 메모리에서 team_id 목록으로 바꾸고 조인을 뺀다.
+     */
+    @Override
+    public boolean exists(Predicate condition) {
+        Predicate predicate = UsernameExpressions.normalize(condition);
+        if (writeBehindBuffer != null && writeBehindBuffer.hasPending()) {
+            // 임의 조건은 username/age 를 쓰는지 알 수 없으므로 먼저 반영한다.
+            writeBehindBuffer.flush();
+        }
+        TeamPredicateSplit split = teamDimension == null ? null : TeamPredicateSplit.of(predicate);
+        if (split != null && teamDimension.isUsable()) {
+            Predicate memberOnly = split.getTeamPart() == null
+                    ? split.getMemberPart()
+                    : ExpressionUtils.allOf(split.getMemberPart(),
+                            member.team.id.in(teamDimension.teamIds(split.getTeamPart())));
+            return shardTemplate != null
+                    ? shardTemplate.readAll(() -> existsLocal(memberOnly, false)).contains(true)
+                    : existsLocal(memberOnly, false);
+        }
+        if (shardTemplate != null) {
+            return shardTemplate.readAll(() -> existsLocal(predicate, true)).contains(true);
+        }
+        return existsLocal(predicate, true);
+    }
+
+    /**
+     * 조건에 맞는 회원의 username / age / 팀 distinct 개수
+     * 스케치가 준비되어 있으면 메모리에서 계산하고(커밋된 변경 기준), 아니면 count(distinct) 로 정확히 센다.
+     * username 조건은 스케치로 답할 수 없으므로 항상 정확히 센다.
+     */
+    @Override
+    public ApproxDistinct approxDistinct(MemberSearchCondition condition, MemberField field) {
+        Search search = prepare(condition);
+        if (memberSketches != null && memberSketches.isReady() && isEmpty(condition.getUsername())) {
+            List<Long> teamIds = isEmpty(condition.getTeamName()) ? null
+                    : search.teamIds != null ? search.teamIds : teamIdsByName(condition.getTeamName());
+            return memberSketches.approxDistinct(teamIds, condition.getAgeGoe(), condition.getAgeLoe(), field);
+        }
+        return ApproxDistinct.exact(exactDistinct(search, field));
+    }
+
+    /**
+     * id 목록으로 한 번에 조회, 결과는 입력 순서(중복 id 는 처음 위치)를 따르고 없는 id 는 빠진다.
+     * 현재 영속성 컨텍스트에 이미 있는 회원은 조회하지 않고, 나머지만 한 번에 조회한다. (fetchByIds)
+     * 샤딩 중이면 member id 로 샤드를 알 수 있으므로 샤드별로 나눈 id 를 해당 샤드들에 병렬로 조회한다.
+     */
+    @Override
+    public List<MemberTeamDto> findAllMemberTeamDtosByIds(Collection<Long> ids) {
+        Search search = prepare(new MemberSearchCondition());
+        Map<Long, MemberTeamDto> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            if (id == null) {
+                continue;
+            }
+            MemberTeamDto cached = fromPersistenceContext(search, id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<MemberTeamDto> fetched;
+            if (shardTemplate == null) {
+                fetched = fetchByIds(search, missing);
+            } else {
+                Map<Integer, List<Long>> byShard = missing.stream()
+                        .collect(Collectors.groupingBy(shardTemplate::shardOf, TreeMap::new, Collectors.toList()));
+                fetched = shardTemplate.readShards(byShard.keySet(), () -> fetchByIds(search, byShard.get(ShardContext.current())))
+                        .stream()
+                        .flatMap(List::stream)
+                        .collect(Collectors.toList());
+            }
+            fetched.forEach(dto -> found.put(dto.getMemberId(), dto));
+        }
+        List<MemberTeamDto> content = new LinkedHashSet<>(ids).stream()
+                .filter(Objects::nonNull)
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return complete(search, content);
+    }
+
+    /**
+     * ID_CHUNK_SIZE 개씩 나눈 IN 조건을 or 로 묶어 한 번에 조회한다.
+     * IN 절 하나의 크기가 제한되고 패딩되므로(in_clause_parameter_padding) 쿼리 모양이 몇 가지로 정해진다.
+     */
+    private List<MemberTeamDto> fetchByIds(Search search, List<Long> ids) {
+        BooleanBuilder idIn = new BooleanBuilder();
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size()));
+            idIn.or(readFromView ? memberTeamView.memberId.in(chunk) : member.id.in(chunk));
+        }
+        return contentQuery(search).where(idIn).fetch();
+    }
+
+    /**
+     * 트랜잭션 안에서 이미 읽었거나 저장한 회원이면 엔티티로 DTO 를 만든다.
+     * 팀 이름을 채울 수 없으면(초기화되지 않은 팀 프록시, 팀 차원 미사용) 조회 대상으로 남긴다.
+     */
+    private MemberTeamDto fromPersistenceContext(Search search, Long id) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return null;
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+        Object entity = session.getPersistenceContext().getEntity(session.generateEntityKey(id, persister));
+        if (!(entity instanceof Member)) {
+            return null;
+        }
+        EntityEntry entry = session.getPersistenceContext().getEntry(entity);
+        if (entry == null || entry.getStatus() != Status.MANAGED) {
+            return null;
+        }
+        Member cached = (Member) entity;
+        Team cachedTeam = cached.getTeam();
+        if (cachedTeam == null) {
+            return new MemberTeamDto(cached.getId(), cached.getUsername(), cached.getAge(), null, null);
+        }
+        if (Hibernate.isInitialized(cachedTeam)) {
+            return new MemberTeamDto(cached.getId(), cached.getUsername(), cached.getAge(),
+                    cachedTeam.getId(), cachedTeam.getName());
+        }
+        return search.teamDimension
+                ? new MemberTeamDto(cached.getId(), cached.getUsername(), cached.getAge(), cachedTeam.getId())
+                : null;
+    }
+
+    private long exactDistinct(Search search, MemberField field) {
+        SimpleExpression<?> target = distinctTarget(field);
+        if (shardTemplate != null) {
+            // 샤드끼리 값이 겹칠 수 있으므로 샤드별 distinct 값을 모아서 다시 센다.
+            return shardTemplate.readShards(targetShards(search), () -> distinctValues(search, target))
+                    .stream()
+                    .flatMap(List::stream)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .count();
+        }
+        Long count = countQuery(search)
+                .select(target.countDistinct())
+                .fetchOne();
+        return count == null ? 0 : count;
+    }
+
+    private List<?> distinctValues(Search search, SimpleExpression<?> target) {
+        return countQuery(search).select(target).distinct().fetch();
+    }
+
+    private SimpleExpression<?> distinctTarget(MemberField field) {
+        switch (field) {
+            case USERNAME:
+                return readFromView ? memberTeamView.username : member.username;
+            case AGE:
+                return readFromView ? memberTeamView.age : member.age;
+            default:
+                return readFromView ? memberTeamView.teamId : member.team.id;
+        }
+    }
+
+    private boolean existsLocal(Predicate predicate, boolean joinTeam) {
+        JPAQuery<Integer> query = queryFactory
+                .selectOne()
+                .from(member);
+        if (joinTeam) {
+            query.leftJoin(member.team, team);
+        }
+        Integer found = query
+                .where(predicate)
+                .fetchFirst();
+        return found != null;
+    }
+
+    private JPAQuery<MemberTeamDto> contentQuery(Search search) {
+        return withDeadline(viewOrJoinContentQuery(search));
+    }
+
+    private JPAQuery<?> countQuery(Search search) {
+        return withDeadline(viewOrJoinCountQuery(search));
+    }
+
+    /**
+     * MemberQueryExecutor 로 실행 중이면 남은 시간을 JDBC 쿼리 타임아웃으로 건다.
+     */
+    private <T> JPAQuery<T> withDeadline(JPAQuery<T> query) {
+        Integer remainingMillis = QueryDeadline.remainingMillis();
+        return remainingMillis == null ? query : query.setHint(QueryDeadline.TIMEOUT_HINT, remainingMillis);
+    }
+
+    private JPAQuery<MemberTeamDto> viewOrJoinContentQuery(Search search) {
+        MemberSearchCondition condition = search.condition;
+        if (readFromView) {
+            return queryFactory
+                    .select(new QMemberTeamDto(
+                            memberTeamView.memberId,
+                            memberTeamView.username,
+                            memberTeamView.age,
+                            memberTeamView.teamId,
+                            memberTeamView.teamName))
+                    .from(memberTeamView)
+                    .where(viewPredicates(condition));
+        }
+        if (search.teamDimension) {
+            // 팀 이름은 조회 후 TeamDimension 으로 채운다. (member.team.id 는 외래 키 컬럼이라 조인하지 않는다)
+            return queryFactory
+                    .select(new QMemberTeamDto(
+                            member.id,
+                            member.username,
+                            member.age,
+                            member.team.id))
+                    .from(member)
+                    .where(usernameEq(condition.getUsername()),
+                            teamIdIn(search.teamIds),
+                            ageGoe(condition.getAgeGoe()),
+                            ageLoe(condition.getAgeLoe()));
+        }
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe()));
-        // return new PageImpl<>(content, pageable, total);
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
     }
 
+    private JPAQuery<?> viewOrJoinCountQuery(Search search) {
+        MemberSearchCondition condition = search.condition;
+        if (readFromView) {
+            return queryFactory
+                    .select(memberTeamView.memberId)
+                    .from(memberTeamView)
+                    .where(viewPredicates(condition));
+        }
+        JPAQuery<?> query = queryFactory
+                .select(member)
+                .from(member);
+        if (search.teamDimension) {
+            return query
+                    .where(usernameEq(condition.getUsername()),
+                            teamIdIn(search.teamIds),
+                            ageGoe(condition.getAgeGoe()),
+                            ageLoe(condition.getAgeLoe()));
+        }
+        // member.team 은 다대일이라 left join 이 건수를 바꾸지 않으므로, 팀 조건이 있을 때만 조인한다.
+        if (!isEmpty(condition.getTeamName())) {
+            query.leftJoin(member.team, team);
+        }
+        return query
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()));
+    }
+
+    /**
+     * 조회 테이블(member_team_view)용 조건, 조인 없이 team_name 컬럼으로 바로 필터링한다.
+     */
+    private BooleanExpression[] viewPredicates(MemberSearchCondition condition) {
+        return new BooleanExpression[]{
+                isEmpty(condition.getUsername()) ? null : memberTeamView.username.eq(condition.getUsername()),
+                isEmpty(condition.getTeamName()) ? null : memberTeamView.teamName.eq(condition.getTeamName()),
+                condition.getAgeGoe() == null ? null : memberTeamView.age.goe(condition.getAgeGoe()),
+                condition.getAgeLoe() == null ? null : memberTeamView.age.loe(condition.getAgeLoe())
+        };
+    }
+
+    /**
+     * 샤딩 : 대상 샤드마다 member id 순으로 앞에서 offset + limit 건까지만 읽고,
+     * 병합해서 전역 member id 순서로 offset ~ offset + limit 구간을 잘라낸다. (limit 이 null 이면 전체)
+     * 뒤쪽 페이지일수록 샤드마다 읽는 양이 늘어나므로 깊은 페이지는 searchSlice / 키셋 조회가 유리하다.
+     */
+    private List<MemberTeamDto> shardedContent(Search search, long offset, Long limit) {
+        List<List<MemberTeamDto>> perShard = shardTemplate.readShards(targetShards(search), () -> {
+            JPAQuery<MemberTeamDto> query = contentQuery(search).orderBy(memberIdAsc());
+            return limit == null ? query.fetch() : query.limit(offset + limit).fetch();
+        });
+
+        List<MemberTeamDto> merged = perShard.stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(MemberTeamDto::getMemberId))
+                .collect(Collectors.toList());
+        int from = (int) Math.min(offset, merged.size());
+        int to = limit == null ? merged.size() : (int) Math.min(offset + limit, merged.size());
+        return merged.subList(from, to);
+    }
+
+    private long shardedCount(Search search) {
+        return shardTemplate.readShards(targetShards(search), () -> countQuery(search).fetchCount())
+                .stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    /**
+     * 팀 이름 조건이 있으면 그 팀이 있는 샤드만 조회한다.
+     * 팀 이름 -> team_id 는 팀 차원에서 이미 구했으면 그대로 쓰고, 아니면 작은 팀 테이블만 전체 샤드에 조회해서
+     * team_id 로 샤드를 계산한다.
+     */
+    private List<Integer> targetShards(Search search) {
+        MemberSearchCondition condition = search.condition;
+        if (isEmpty(condition.getTeamName())) {
+            return IntStream.range(0, shardTemplate.shardCount()).boxed().collect(Collectors.toList());
+        }
+        List<Long> teamIds = search.teamIds != null ? search.teamIds : teamIdsByName(condition.getTeamName());
+        return teamIds.stream()
+                .map(shardTemplate::shardOf)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private List<Long> teamIdsByName(String teamName) {
+        if (shardTemplate == null) {
+            return queryFactory.select(team.id).from(team).where(team.name.eq(teamName)).fetch();
+        }
+        return shardTemplate.readAll(() -> queryFactory
+                        .select(team.id)
+                        .from(team)
+                        .where(team.name.eq(teamName))
+                        .fetch())
+                .stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    private OrderSpecifier<Long> memberIdAsc() {
+        return readFromView ? memberTeamView.memberId.asc() : member.id.asc();
+    }
+
+    /**
+     * username/age 조건이 있으면 대기 중인 변경이 결과 포함 여부를 바꿀 수 있으므로 조회 전에 반영한다.
+     */
+    private void flushIfFiltered(MemberSearchCondition condition) {
+        if (writeBehindBuffer == null || !writeBehindBuffer.hasPending()) {
+            return;
+        }
+        if (!isEmpty(condition.getUsername()) || condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+            writeBehindBuffer.flush();
+        }
+    }
+
+    /**
+     * 조회 전 준비 : write-behind 반영, 팀 차원을 쓸 수 있으면 팀 이름 조건을 team_id 목록으로 바꾼다.
+     * 샤드 작업 스레드가 아니라 호출한 스레드에서 미리 해 둔다.
+     */
+    private Search prepare(MemberSearchCondition condition) {
+        flushIfFiltered(condition);
+        if (readFromView || teamDimension == null || !teamDimension.isUsable()) {
+            return new Search(condition, false, null);
+        }
+        List<Long> teamIds = isEmpty(condition.getTeamName()) ? null : teamDimension.teamIds(condition.getTeamName());
+        return new Search(condition, true, teamIds);
+    }
+
+    /**
+     * querydsl.sql-path.methods 에 있는 메서드인지, 조회 테이블/샤딩 중에는 JPA 경로만 쓴다.
+     */
+    private boolean sqlPath(String method) {
+        return memberSqlReader != null && !readFromView && shardTemplate == null && memberSqlReader.serves(method);
+    }
+
+    /**
+     * querydsl-sql 조회 전 준비 : 같은 트랜잭션의 아직 flush 되지 않은 엔티티 변경은 JDBC 로 보이지 않으므로 먼저 반영한다.
+     * 팀 이름은 조인으로 읽으므로 팀 차원은 쓰지 않는다.
+     */
+    private Search prepareSql(MemberSearchCondition condition) {
+        flushIfFiltered(condition);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            em.flush();
+        }
+        return new Search(condition, false, null);
+    }
+
+    /**
+     * 조회 후 처리 : 팀 이름 채우기, write-behind 대기 값 덮어쓰기
+     */
+    private List<MemberTeamDto> complete(Search search, List<MemberTeamDto> content) {
+        if (search.teamDimension) {
+            teamDimension.fillTeamNames(content);
+        }
+        return overlayPending(content);
+    }
 
+    private List<MemberTeamDto> overlayPending(List<MemberTeamDto> content) {
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.overlay(content);
+        }
+        return content;
+    }
 
+    /**
+     * 조회 한 번의 조건
+     * teamDimension 이 true 이면 member 테이블만 조회하고, teamIds 는 팀 이름 조건의 team_id 목록(조건이 없으면 null)이다.
+     */
+    private static class Search {
+        private final MemberSearchCondition condition;
+        private final boolean teamDimension;
+        private final List<Long> teamIds;
 
-}
\ No newline at end of file
+        Search(MemberSearchCondition condition, boolean teamDimension, List<Long> teamIds) {
+            this.condition = condition;
+            this.teamDimension = teamDimension;
+            this.teamIds = teamIds;
+        }
+    }
+}
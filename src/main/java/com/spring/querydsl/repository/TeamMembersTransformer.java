@@ -0,0 +1,70 @@
+package com.spring.querydsl.repository;
+
+import com.querydsl.core.FetchableQuery;
+import com.querydsl.core.ResultTransformer;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.AbstractJPAQuery;
+import com.spring.querydsl.dto.MemberDto;
+import com.spring.querydsl.dto.TeamWithMembersDto;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.spring.querydsl.entity.QMember.member;
+
+/**
+ * 팀 id 순으로 정렬된 회원 조회 결과를 한번 훑으면서 팀별 회원 목록을 채운다.
+ * GroupBy.groupBy(...).list(...) 와 달리 중간 Map 이나 그룹 객체를 만들지 않고,
+ * 미리 회원 수만큼 크기를 잡아 둔 TeamWithMembersDto 목록에 바로 담는다.
+ * 결과는 JPA getResultStream() 으로 스트리밍해서 전체 행을 한번에 메모리에 올리지 않는다. (트랜잭션 안에서 호출해야 한다)
+ *
+ * 사용 : queryFactory.from(member).where(member.team.id.in(ids)).orderBy(member.team.id.asc(), member.id.asc())
+ *        .transform(new TeamMembersTransformer(teams))
+ */
+public class TeamMembersTransformer implements ResultTransformer<List<TeamWithMembersDto>> {
+
+    private static final int FETCH_SIZE = 500;
+
+    /** 팀 id 오름차순, 회원 조회 정렬과 같은 순서 */
+    private final List<TeamWithMembersDto> teams;
+
+    public TeamMembersTransformer(List<TeamWithMembersDto> teams) {
+        this.teams = teams;
+    }
+
+    @Override
+    public List<TeamWithMembersDto> transform(FetchableQuery<?, ?> query) {
+        if (teams.isEmpty()) {
+            return teams;
+        }
+        AbstractJPAQuery<?, ?> jpaQuery = (AbstractJPAQuery<?, ?>) query.select(member.team.id, member.username, member.age);
+        Iterator<TeamWithMembersDto> cursor = teams.iterator();
+        TeamWithMembersDto current = cursor.next();
+
+        try (Stream<?> rows = jpaQuery.createQuery()
+                .setHint("org.hibernate.fetchSize", FETCH_SIZE)
+                .getResultStream()) {
+            Iterator<?> it = rows.iterator();
+            while (it.hasNext()) {
+                Object[] row = toArray(it.next());
+                Long teamId = (Long) row[0];
+                while (!current.getTeamId().equals(teamId)) {
+                    if (!cursor.hasNext()) {
+                        throw new IllegalStateException("member row of team " + teamId + " is not in the requested teams or not ordered by team id");
+                    }
+                    current = cursor.next();
+                }
+                current.getMembers().add(new MemberDto((String) row[1], (Integer) row[2]));
+            }
+        }
+        return teams;
+    }
+
+    /**
+     * 하이버네이트 사용 시 Querydsl 이 튜플 변환기를 걸어두면 행이 Tuple 로 온다.
+     */
+    private static Object[] toArray(Object row) {
+        return row instanceof Tuple ? ((Tuple) row).toArray() : (Object[]) row;
+    }
+}
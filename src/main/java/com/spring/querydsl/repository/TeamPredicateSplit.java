@@ -0,0 +1,160 @@
+package com.spring.querydsl.repository;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.*;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.spring.querydsl.entity.QTeam.team;
+
+/**
+ * member, team(member.team 으로 left join) 경로를 쓰는 조건을 and 단위로 나눈다.
+ * - teamPart : team.id / team.name 만 쓰는 조건 (TeamDimension 으로 메모리에서 평가)
+ * - memberPart : team 별칭을 쓰지 않는 나머지 조건
+ * 하나의 조건에 team 과 member 가 섞여 있거나(or 등) team 의 다른 경로, 서브쿼리를 쓰면 나눌 수 없다. (of 가 null)
+ *
+ * teamPart 는 member.team.id in (맞는 팀 id) 로 바뀌므로 팀이 없는 회원은 항상 빠진다.
+ * left join 에서 팀이 없는 회원은 team 컬럼이 모두 null 인 행이 되므로, team 이 null 일 때 참이 될 수 없는 조건만 나눈다.
+ * (team.name.isNull(), coalesce 등은 나눌 수 없다)
+ */
+class TeamPredicateSplit {
+
+    /**
+     * 인자 중 하나라도 null 이면 결과가 null 인 연산
+     */
+    private static final Set<Ops> NULL_PROPAGATING = EnumSet.of(
+            Ops.EQ, Ops.NE, Ops.LT, Ops.GT, Ops.LOE, Ops.GOE, Ops.BETWEEN, Ops.IN, Ops.NOT_IN,
+            Ops.LIKE, Ops.LIKE_IC, Ops.LIKE_ESCAPE, Ops.LIKE_ESCAPE_IC, Ops.EQ_IGNORE_CASE,
+            Ops.STARTS_WITH, Ops.STARTS_WITH_IC, Ops.ENDS_WITH, Ops.ENDS_WITH_IC,
+            Ops.STRING_CONTAINS, Ops.STRING_CONTAINS_IC,
+            Ops.LOWER, Ops.UPPER, Ops.TRIM, Ops.CONCAT, Ops.SUBSTR_1ARG, Ops.SUBSTR_2ARGS, Ops.STRING_LENGTH,
+            Ops.ADD, Ops.SUB, Ops.MULT, Ops.DIV, Ops.MOD, Ops.NEGATE, Ops.NOT);
+
+    private final Predicate teamPart;
+    private final Predicate memberPart;
+
+    private TeamPredicateSplit(Predicate teamPart, Predicate memberPart) {
+        this.teamPart = teamPart;
+        this.memberPart = memberPart;
+    }
+
+    static TeamPredicateSplit of(Predicate predicate) {
+        List<Predicate> teamConditions = new ArrayList<>();
+        List<Predicate> memberConditions = new ArrayList<>();
+        for (Predicate condition : conjuncts(predicate)) {
+            PathUsage usage = new PathUsage();
+            if (!usage.collect(condition) || (usage.usesTeam && usage.usesOther)) {
+                return null;
+            }
+            if (usage.usesTeam && !rejectsNullTeam(condition)) {
+                return null;
+            }
+            (usage.usesTeam ? teamConditions : memberConditions).add(condition);
+        }
+        return new TeamPredicateSplit(ExpressionUtils.allOf(teamConditions), ExpressionUtils.allOf(memberConditions));
+    }
+
+    Predicate getTeamPart() {
+        return teamPart;
+    }
+
+    Predicate getMemberPart() {
+        return memberPart;
+    }
+
+    /**
+     * team 이 null 인 행에서 null 또는 false 가 되는지
+     */
+    private static boolean rejectsNullTeam(Expression<?> expression) {
+        if (expression instanceof Operation) {
+            Operation<?> operation = (Operation<?>) expression;
+            if (operation.getOperator() == Ops.AND) {
+                return operation.getArgs().stream().anyMatch(TeamPredicateSplit::rejectsNullTeam);
+            }
+            if (operation.getOperator() == Ops.OR) {
+                return operation.getArgs().stream().allMatch(TeamPredicateSplit::rejectsNullTeam);
+            }
+        }
+        return isNullForNullTeam(expression);
+    }
+
+    /**
+     * team 이 null 인 행에서 null 이 되는지
+     */
+    private static boolean isNullForNullTeam(Expression<?> expression) {
+        if (expression instanceof Path) {
+            return ((Path<?>) expression).getRoot().equals(team);
+        }
+        if (expression instanceof Operation) {
+            Operation<?> operation = (Operation<?>) expression;
+            if (operation.getOperator() == Ops.AND || operation.getOperator() == Ops.OR) {
+                return operation.getArgs().stream().allMatch(TeamPredicateSplit::isNullForNullTeam);
+            }
+            return NULL_PROPAGATING.contains(operation.getOperator())
+                    && operation.getArgs().stream().anyMatch(TeamPredicateSplit::isNullForNullTeam);
+        }
+        return false;
+    }
+
+    private static List<Predicate> conjuncts(Predicate predicate) {
+        List<Predicate> result = new ArrayList<>();
+        if (predicate instanceof BooleanBuilder) {
+            predicate = ((BooleanBuilder) predicate).getValue();
+        }
+        if (predicate == null) {
+            return result;
+        }
+        if (predicate instanceof Operation && ((Operation<?>) predicate).getOperator() == Ops.AND) {
+            for (Expression<?> arg : ((Operation<?>) predicate).getArgs()) {
+                result.addAll(conjuncts((Predicate) arg));
+            }
+        } else {
+            result.add(predicate);
+        }
+        return result;
+    }
+
+    private static class PathUsage {
+        private boolean usesTeam;
+        private boolean usesOther;
+
+        /**
+         * @return 메모리에서 평가할 수 없는 식(서브쿼리, team 의 다른 경로)이 있으면 false
+         */
+        boolean collect(Expression<?> expression) {
+            if (expression instanceof Path) {
+                Path<?> path = (Path<?>) expression;
+                if (!path.getRoot().equals(team)) {
+                    usesOther = true;
+                    return true;
+                }
+                usesTeam = true;
+                return path.equals(team.id) || path.equals(team.name);
+            }
+            if (expression instanceof Operation) {
+                return collectAll(((Operation<?>) expression).getArgs());
+            }
+            if (expression instanceof TemplateExpression) {
+                for (Object arg : ((TemplateExpression<?>) expression).getArgs()) {
+                    if (arg instanceof Expression && !collect((Expression<?>) arg)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return expression instanceof Constant;
+        }
+
+        private boolean collectAll(List<Expression<?>> args) {
+            for (Expression<?> arg : args) {
+                if (!collect(arg)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.spring.querydsl.repository;
+
+import com.spring.querydsl.entity.Team;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TeamRepository extends JpaRepository<Team, Long>, TeamRepositoryCustom {
+}
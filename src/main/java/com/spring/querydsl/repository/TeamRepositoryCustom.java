@@ -0,0 +1,18 @@
+package com.spring.querydsl.repository;
+
+import com.spring.querydsl.dto.TeamWithMembersDto;
+import com.spring.querydsl.entity.Member;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Team.members 컬렉션을 로딩하지 않는 팀 소속 회원 접근
+ */
+public interface TeamRepositoryCustom {
+    long countMembers(Long teamId);
+    boolean containsMember(Long teamId, Long memberId);
+    List<Member> findMembersAfter(Long teamId, Long lastMemberId, int size);
+    Page<TeamWithMembersDto> findTeamsWithMembers(Pageable pageable);
+}
@@ -0,0 +1,104 @@
+package com.spring.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.spring.querydsl.dto.TeamWithMembersDto;
+import com.spring.querydsl.entity.Member;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.spring.querydsl.entity.QMember.member;
+import static com.spring.querydsl.entity.QTeam.team;
+
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+
+    private final JPAQueryFactory queryFactory;
+
+    public TeamRepositoryImpl(EntityManager em) {
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    @Override
+    public long countMembers(Long teamId) {
+        return queryFactory
+                .selectFrom(member)
+                .where(member.team.id.eq(teamId))
+                .fetchCount();
+    }
+
+    /**
+     * select 1 ... limit 1, 엔티티를 만들지 않는다.
+     */
+    @Override
+    public boolean containsMember(Long teamId, Long memberId) {
+        Integer found = queryFactory
+                .selectOne()
+                .from(member)
+                .where(member.team.id.eq(teamId),
+                        member.id.eq(memberId))
+                .fetchFirst();
+        return found != null;
+    }
+
+    /**
+     * 키셋 페이징, lastMemberId 다음 회원부터 size 만큼 id 순으로 조회한다.
+     * offset 방식과 달리 뒤쪽 페이지도 앞 페이지를 건너뛰며 읽지 않는다.
+     */
+    @Override
+    public List<Member> findMembersAfter(Long teamId, Long lastMemberId, int size) {
+        return queryFactory
+                .selectFrom(member)
+                .where(member.team.id.eq(teamId),
+                        memberIdGt(lastMemberId))
+                .orderBy(member.id.asc())
+                .limit(size)
+                .fetch();
+    }
+
+    private BooleanExpression memberIdGt(Long lastMemberId) {
+        return lastMemberId == null ? null : member.id.gt(lastMemberId);
+    }
+
+    /**
+     * 팀 단위 페이징 + 팀별 회원 목록
+     * 1. 팀 페이지를 회원 수와 함께 조회 (회원 수로 목록 크기를 미리 잡는다)
+     * 2. 해당 팀들의 회원을 팀 id 순으로 한번에 조회해서 TeamMembersTransformer 로 채운다.
+     * select(member, team) 튜플을 받아 Map 으로 다시 묶는 방식과 달리 엔티티를 만들지 않고 한번만 훑는다.
+     * 결과 스트림은 트랜잭션에 묶인 EntityManager 가 있어야 열 수 있으므로 읽기 전용 트랜잭션에서 실행한다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<TeamWithMembersDto> findTeamsWithMembers(Pageable pageable) {
+        List<Tuple> teamRows = queryFactory
+                .select(team.id, team.name, member.count())
+                .from(team)
+                .leftJoin(team.members, member)
+                .groupBy(team.id, team.name)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        List<TeamWithMembersDto> teams = new ArrayList<>(teamRows.size());
+        for (Tuple row : teamRows) {
+            teams.add(new TeamWithMembersDto(row.get(team.id), row.get(team.name), row.get(member.count()).intValue()));
+        }
+        List<Long> teamIds = teams.stream().map(TeamWithMembersDto::getTeamId).collect(Collectors.toList());
+
+        List<TeamWithMembersDto> content = queryFactory
+                .from(member)
+                .where(member.team.id.in(teamIds))
+                .orderBy(member.team.id.asc(), member.id.asc())
+                .transform(new TeamMembersTransformer(teams));
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> queryFactory.selectFrom(team).fetchCount());
+    }
+}
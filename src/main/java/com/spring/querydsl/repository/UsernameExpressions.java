@@ -0,0 +1,117 @@
+package com.spring.querydsl.repository;
+
+import com.querydsl.core.support.ReplaceVisitor;
+import com.querydsl.core.types.*;
+import com.querydsl.core.types.dsl.BooleanExpression;
+
+import java.util.List;
+import java.util.Locale;
+
+import static com.spring.querydsl.entity.QMember.member;
+
+/**
+ * 대소문자 무시 username 조건
+ * lower(member.username) = ? 처럼 컬럼을 함수로 감싸면 인덱스를 못 타므로 username_normalized(lower(username)) 컬럼을 사용한다.
+ * normalize 는 이미 만들어진 조건 안의 다음 모양을 찾아 username_normalized 조건으로 바꾼다.
+ * - member.username.equalsIgnoreCase(x), member.username.startsWithIgnoreCase(x)
+ * - member.username.lower().eq(x), member.username.lower().startsWith(x) (function('lower', {0}) 템플릿 포함)
+ * - member.username.upper().eq(x), member.username.upper().startsWith(x)
+ * lower/upper 비교는 상수가 이미 소문자/대문자일 때만 바꾼다. (예: upper(username) = 'Ab' 은 항상 거짓이므로 그대로 둔다)
+ */
+public final class UsernameExpressions {
+
+    private static final Normalizer NORMALIZER = new Normalizer();
+
+    public static BooleanExpression usernameEqIgnoreCase(String username) {
+        return username == null ? null : member.usernameNormalized.eq(lower(username));
+    }
+
+    public static BooleanExpression usernameStartsWithIgnoreCase(String prefix) {
+        return prefix == null ? null : member.usernameNormalized.startsWith(lower(prefix));
+    }
+
+    public static Predicate normalize(Predicate predicate) {
+        return predicate == null ? null : (Predicate) predicate.accept(NORMALIZER, null);
+    }
+
+    private static String lower(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static class Normalizer extends ReplaceVisitor<Void> {
+
+        @Override
+        public Expression<?> visit(Operation<?> expr, Void context) {
+            Expression<?> normalized = normalized(expr);
+            return normalized != null ? normalized : super.visit(expr, context);
+        }
+
+        private Expression<?> normalized(Operation<?> expr) {
+            List<Expression<?>> args = expr.getArgs();
+            if (args.size() != 2 || !(args.get(1) instanceof Constant)
+                    || !(((Constant<?>) args.get(1)).getConstant() instanceof String)) {
+                return null;
+            }
+            String value = (String) ((Constant<?>) args.get(1)).getConstant();
+            Operator operator = expr.getOperator();
+
+            if (isUsername(args.get(0))) {
+                if (operator == Ops.EQ_IGNORE_CASE) {
+                    return usernameEqIgnoreCase(value);
+                }
+                if (operator == Ops.STARTS_WITH_IC) {
+                    return usernameStartsWithIgnoreCase(value);
+                }
+                return null;
+            }
+            String function = caseFunction(args.get(0));
+            if (function == null || (operator != Ops.EQ && operator != Ops.STARTS_WITH)) {
+                return null;
+            }
+            boolean sameCase = function.equals("lower")
+                    ? value.equals(lower(value))
+                    : lower(value).toUpperCase(Locale.ROOT).equals(value);
+            if (!sameCase) {
+                return null;
+            }
+            return operator == Ops.EQ ? usernameEqIgnoreCase(value) : usernameStartsWithIgnoreCase(value);
+        }
+
+        private static boolean isUsername(Object expression) {
+            return member.username.equals(expression);
+        }
+
+        /**
+         * lower(member.username) / upper(member.username) 이면 함수 이름, 아니면 null
+         */
+        private static String caseFunction(Expression<?> expression) {
+            if (expression instanceof Operation) {
+                Operation<?> operation = (Operation<?>) expression;
+                if (operation.getArgs().size() == 1 && isUsername(operation.getArg(0))) {
+                    if (operation.getOperator() == Ops.LOWER) {
+                        return "lower";
+                    }
+                    if (operation.getOperator() == Ops.UPPER) {
+                        return "upper";
+                    }
+                }
+            }
+            if (expression instanceof TemplateExpression) {
+                TemplateExpression<?> template = (TemplateExpression<?>) expression;
+                String text = template.getTemplate().toString().replace(" ", "").toLowerCase(Locale.ROOT);
+                if (template.getArgs().size() == 1 && isUsername(template.getArg(0))) {
+                    if (text.equals("function('lower',{0})") || text.equals("lower({0})")) {
+                        return "lower";
+                    }
+                    if (text.equals("function('upper',{0})") || text.equals("upper({0})")) {
+                        return "upper";
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    private UsernameExpressions() {
+    }
+}
@@ -0,0 +1,430 @@
+package com.spring.querydsl.responsecache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.spring.querydsl.changefeed.ChangeFeedConsumer;
+import com.spring.querydsl.changefeed.ChangeRecord;
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.entity.ChangeOperation;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.entity.event.EntityChange;
+import com.spring.querydsl.entity.event.EntityCommitHook;
+import com.spring.querydsl.entity.event.EntityCommitListener;
+import com.spring.querydsl.readmodel.TeamDimension;
+import com.spring.querydsl.service.MemberWriteBehindBuffer;
+import com.spring.querydsl.service.WriteBehindFlushListener;
+import com.spring.querydsl.shard.ShardTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import static com.spring.querydsl.entity.QTeam.team;
+
+/**
+ * /v3/members 앞쪽 페이지의 JSON 응답을 인코딩된 바이트로 보관한다. (querydsl.response-cache.enabled=true)
+ * - 저장 : 직렬화한 JSON 을(gzip 을 받는 요청이면 압축까지 해서) 힙 밖의 direct ByteBuffer 에 둔다.
+ *   적중하면 조회/직렬화/압축 없이 그대로 써낸다. 이미 Content-Encoding 이 있으므로 커넥터가 다시 압축하지 않는다.
+ * - 대상 : page < max-page, JSON 응답 (CBOR 요청은 캐시하지 않는다)
+ * - 무효화 : Member/Team 을 바꾼 트랜잭션이 커밋되면(EntityCommitHook) 영향받는 키만 버린다.
+ *   팀 조건이 없는 키와, 바뀐 회원의 이전/새 팀 또는 바뀐 팀을 조건으로 쓰는 키가 대상이다.
+ *   팀 조건 키는 저장할 때 조건의 팀 이름을 team_id 목록으로 바꿔 두고, 새로 생기거나 이름이 바뀐 팀은 이름으로 맞춘다.
+ *   이전 상태를 모르는 변경(분리 상태 엔티티의 update)은 전부 버린다.
+ * - write-behind : 버퍼에 대기 중인 변경이 있으면 캐시를 거치지 않는다. (보관된 응답에는 조회 덮어쓰기가 없다)
+ *   flush 가 커밋되면 어느 팀인지 알 수 없으므로 전부 버린다. (WriteBehindFlushListener)
+ * - 변경 피드 : 이 인스턴스가 이미 반영한 변경은 건너뛰고, 그 밖의 변경(벌크 연산, 다른 인스턴스)은
+ *   어느 팀인지 알 수 없으므로 전부 버린다. 다른 인스턴스의 변경은 ChangeFeedRelay 가 인스턴스마다 전달 위치를
+ *   따로 저장하므로 모든 인스턴스에 전달된다. (instance-timeout-ms 넘게 멈췄던 인스턴스는 놓칠 수 있다)
+ *   피드를 끄면 그런 변경은 refresh-ms 주기로 버린다.
+ * 지표 : member.response.cache.hit / miss, member.response.cache.bytes
+ */
+@Component
+@ConditionalOnProperty(name = "querydsl.response-cache.enabled", havingValue = "true")
+public class MemberPageResponseCache implements ChangeFeedConsumer, EntityCommitListener, WriteBehindFlushListener {
+
+    private final EntityCommitHook entityCommitHook;
+    private final JPAQueryFactory queryFactory;
+    private final TeamDimension teamDimension;
+    private final ShardTemplate shardTemplate;
+    private final MemberWriteBehindBuffer writeBehindBuffer;
+    private final ObjectMapper objectMapper;
+    private final int maxPage;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final int gzipMinBytes;
+    private final Counter hits;
+    private final Counter misses;
+    private final boolean changeFeedEnabled;
+
+    /**
+     * 접근 순서 LinkedHashMap, 개수/바이트 상한을 넘으면 오래 안 쓴 것부터 버린다.
+     */
+    private final Map<ResponseCacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    /**
+     * 무효화할 때마다 오른다. 조회 전에 읽은 값보다 뒤에 관련 키가 무효화되었으면 결과를 보관하지 않는다.
+     */
+    private long generation;
+    private long clearedAt;
+    private final Map<Long, Long> teamInvalidatedAt = new HashMap<>();
+    private final Map<String, Long> teamNameInvalidatedAt = new HashMap<>();
+    /**
+     * 이 인스턴스가 커밋 후 이미 반영한 변경 (entityType:operation:id -> 건수), 변경 피드로 다시 오면 건너뛴다.
+     */
+    private final Map<String, Integer> appliedChanges = new HashMap<>();
+
+    public MemberPageResponseCache(EntityCommitHook entityCommitHook, EntityManager em,
+                                   ObjectProvider<TeamDimension> teamDimension,
+                                   ObjectProvider<ShardTemplate> shardTemplate,
+                                   ObjectProvider<MemberWriteBehindBuffer> writeBehindBuffer,
+                                   ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                   @Value("${querydsl.response-cache.max-page:3}") int maxPage,
+                                   @Value("${querydsl.response-cache.max-entries:1000}") int maxEntries,
+                                   @Value("${querydsl.response-cache.max-bytes:67108864}") long maxBytes,
+                                   @Value("${querydsl.response-cache.gzip-min-bytes:2048}") int gzipMinBytes,
+                                   @Value("${querydsl.change-feed.enabled:false}") boolean changeFeedEnabled) {
+        this.entityCommitHook = entityCommitHook;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.teamDimension = teamDimension.getIfAvailable();
+        this.shardTemplate = shardTemplate.getIfAvailable();
+        this.writeBehindBuffer = writeBehindBuffer.getIfAvailable();
+        this.objectMapper = objectMapper;
+        this.maxPage = maxPage;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.gzipMinBytes = gzipMinBytes;
+        this.changeFeedEnabled = changeFeedEnabled;
+        this.hits = meterRegistry.counter("member.response.cache.hit");
+        this.misses = meterRegistry.counter("member.response.cache.miss");
+        Gauge.builder("member.response.cache.bytes", this, MemberPageResponseCache::cachedBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void registerListener() {
+        entityCommitHook.subscribe(this);
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.subscribe(this);
+        }
+    }
+
+    /**
+     * write-behind 버퍼에 대기 중인 변경이 있으면 false, 조회해야 덮어쓴 값이 보인다.
+     */
+    public boolean isCacheable(Pageable pageable, HttpServletRequest request) {
+        return pageable.getPageNumber() < maxPage && acceptsJson(request.getHeader(HttpHeaders.ACCEPT))
+                && (writeBehindBuffer == null || !writeBehindBuffer.hasPending());
+    }
+
+    public ResponseCacheKey key(MemberSearchCondition condition, Pageable pageable, HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return ResponseCacheKey.of(condition, pageable, acceptEncoding != null && acceptEncoding.contains("gzip"));
+    }
+
+    /**
+     * 조회 전에 읽어 두고 store 에 넘긴다. 그 사이 이 키에 해당하는 무효화가 있었으면 결과를 보관하지 않는다.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * 캐시에 있으면 응답을 써내고 true
+     */
+    public boolean writeIfCached(ResponseCacheKey key, HttpServletResponse response) throws IOException {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            misses.increment();
+            return false;
+        }
+        hits.increment();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (entry.gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        ByteBuffer body = entry.body.duplicate();
+        response.setContentLength(body.remaining());
+        // 서블릿 API 는 ByteBuffer 를 받지 않으므로 채널이 작은 버퍼 단위로 옮겨 쓴다. 응답 전체를 힙에 복사하지 않는다.
+        WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+        while (body.hasRemaining()) {
+            channel.write(body);
+        }
+        return true;
+    }
+
+    /**
+     * 조회 결과를 인코딩해서 보관하고 응답으로 돌려준다.
+     */
+    public ResponseEntity<byte[]> store(ResponseCacheKey key, long readGeneration, Page<?> page) {
+        byte[] encoded;
+        boolean gzip;
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(page);
+            gzip = key.isGzip() && json.length >= gzipMinBytes;
+            encoded = gzip ? gzip(json) : json;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // 조회 뒤에 팀 목록을 읽는다. 그 사이 생긴 같은 이름의 팀은 이름 무효화로 걸러진다.
+        Set<Long> teamIds = key.getTeamName() == null ? null : new HashSet<>(teamIds(key.getTeamName()));
+        if (isCurrent(key, teamIds, readGeneration) && encoded.length <= maxBytes) {
+            ByteBuffer body = ByteBuffer.allocateDirect(encoded.length);
+            body.put(encoded).flip();
+            put(key, readGeneration, new Entry(body.asReadOnlyBuffer(), gzip, teamIds));
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(encoded);
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.response-cache.refresh-ms:60000}")
+    public synchronized void invalidate() {
+        clearedAt = ++generation;
+        entries.clear();
+        bytes = 0;
+        teamInvalidatedAt.clear();
+        teamNameInvalidatedAt.clear();
+        // 피드로 아직 오지 않은 변경이 있어도 방금 전부 버렸으므로 더 기억할 필요가 없다.
+        appliedChanges.clear();
+    }
+
+    /**
+     * 팀 조건이 없는 키와, 조건의 팀이 teamIds 에 있거나 팀 이름이 teamNames 에 있는 키를 버린다.
+     */
+    synchronized void invalidate(Set<Long> teamIds, Set<String> teamNames) {
+        long invalidatedAt = ++generation;
+        teamIds.forEach(teamId -> teamInvalidatedAt.put(teamId, invalidatedAt));
+        teamNames.forEach(teamName -> teamNameInvalidatedAt.put(teamName, invalidatedAt));
+        Iterator<Map.Entry<ResponseCacheKey, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<ResponseCacheKey, Entry> cached = iterator.next();
+            String teamName = cached.getKey().getTeamName();
+            if (teamName == null || teamNames.contains(teamName)
+                    || !Collections.disjoint(cached.getValue().teamIds, teamIds)) {
+                bytes -= cached.getValue().size();
+                iterator.remove();
+            }
+        }
+    }
+
+    @Override
+    public void afterCommit(List<EntityChange> changes) {
+        Set<Long> teamIds = new HashSet<>();
+        Set<String> teamNames = new HashSet<>();
+        boolean unknown = false;
+        boolean changed = false;
+        List<String> applied = new ArrayList<>();
+        for (EntityChange change : changes) {
+            if (change.is(Member.class)) {
+                addTeamId(teamIds, change.property("team"));
+                if (change.getOperation() == ChangeOperation.UPDATE) {
+                    // 이전 팀을 모르면 어느 팀 키가 바뀌었는지 알 수 없다.
+                    if (change.getOldState() == null) {
+                        unknown = true;
+                    } else {
+                        addTeamId(teamIds, change.oldProperty("team"));
+                    }
+                }
+            } else if (change.is(Team.class)) {
+                // 이전 이름의 키는 team_id 로, 새 이름(새 팀, 이름 변경)의 키는 이름으로 찾는다.
+                teamIds.add((Long) change.getId());
+                teamNames.add((String) change.property("name"));
+            } else {
+                continue;
+            }
+            changed = true;
+            applied.add(changeKey(change.getEntity().getClass().getSimpleName(), change.getOperation(), (Long) change.getId()));
+        }
+        if (!changed) {
+            return;
+        }
+        synchronized (this) {
+            if (unknown) {
+                invalidate();
+            } else {
+                invalidate(teamIds, teamNames);
+            }
+            if (changeFeedEnabled) {
+                applied.forEach(key -> appliedChanges.merge(key, 1, Integer::sum));
+            }
+        }
+    }
+
+    /**
+     * write-behind 변경의 팀은 알 수 없으므로 전부 버린다. 같은 변경이 변경 피드로 다시 오면 건너뛴다.
+     */
+    @Override
+    public synchronized void afterFlush(Collection<Long> memberIds) {
+        invalidate();
+        if (changeFeedEnabled) {
+            memberIds.forEach(memberId -> appliedChanges.merge(
+                    changeKey(Member.class.getSimpleName(), ChangeOperation.UPDATE, memberId), 1, Integer::sum));
+        }
+    }
+
+    @Override
+    public String name() {
+        return "member-response-cache";
+    }
+
+    /**
+     * 이 인스턴스가 커밋 후 이미 반영한 변경은 건너뛰고, 하나라도 모르는 변경이 있으면 전부 버린다.
+     */
+    @Override
+    public synchronized void accept(List<ChangeRecord> changes) {
+        boolean unknown = false;
+        for (ChangeRecord change : changes) {
+            if (!consumeApplied(changeKey(change.getEntityType(), change.getOperation(), change.getIdFrom()))) {
+                unknown = true;
+            }
+        }
+        if (unknown) {
+            invalidate();
+        }
+    }
+
+    private boolean consumeApplied(String key) {
+        Integer count = appliedChanges.get(key);
+        if (count == null) {
+            return false;
+        }
+        if (count == 1) {
+            appliedChanges.remove(key);
+        } else {
+            appliedChanges.put(key, count - 1);
+        }
+        return true;
+    }
+
+    /**
+     * 조건의 팀 이름 -> team_id 목록 (팀 차원이 있으면 메모리에서)
+     */
+    private List<Long> teamIds(String teamName) {
+        if (teamDimension != null) {
+            return teamDimension.teamIds(teamName);
+        }
+        if (shardTemplate == null) {
+            return queryFactory.select(team.id).from(team).where(team.name.eq(teamName)).fetch();
+        }
+        return shardTemplate.readAll(() -> queryFactory.select(team.id).from(team).where(team.name.eq(teamName)).fetch())
+                .stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    private synchronized boolean isCurrent(ResponseCacheKey key, Set<Long> teamIds, long readGeneration) {
+        if (key.getTeamName() == null) {
+            return readGeneration == generation;
+        }
+        if (clearedAt > readGeneration || teamNameInvalidatedAt.getOrDefault(key.getTeamName(), 0L) > readGeneration) {
+            return false;
+        }
+        return teamIds.stream().allMatch(teamId -> teamInvalidatedAt.getOrDefault(teamId, 0L) <= readGeneration);
+    }
+
+    private synchronized void put(ResponseCacheKey key, long readGeneration, Entry entry) {
+        if (!isCurrent(key, entry.teamIds, readGeneration)) {
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        bytes += entry.size() - (previous == null ? 0 : previous.size());
+        Iterator<Entry> eldest = entries.values().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+            bytes -= eldest.next().size();
+            eldest.remove();
+        }
+    }
+
+    private synchronized long cachedBytes() {
+        return bytes;
+    }
+
+    /**
+     * Accept 가 없거나 JSON 을 받을 수 있고 CBOR 를 요청하지 않았으면 true
+     */
+    private static boolean acceptsJson(String accept) {
+        if (accept == null || accept.isEmpty()) {
+            return true;
+        }
+        if (accept.contains(MediaType.APPLICATION_CBOR_VALUE)) {
+            return false;
+        }
+        return accept.contains(MediaType.APPLICATION_JSON_VALUE) || accept.contains("*/*") || accept.contains("application/*");
+    }
+
+    private static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        }
+        return out.toByteArray();
+    }
+
+    private static String changeKey(String entityType, ChangeOperation operation, long id) {
+        return entityType + ":" + operation + ":" + id;
+    }
+
+    private static void addTeamId(Set<Long> teamIds, Object team) {
+        if (team instanceof HibernateProxy) {
+            teamIds.add((Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier());
+        } else if (team != null) {
+            teamIds.add(((Team) team).getId());
+        }
+    }
+
+    private static class Entry {
+        private final ByteBuffer body;
+        private final boolean gzip;
+        /**
+         * 키의 팀 이름에 해당하는 team_id (팀 조건이 없으면 null)
+         */
+        private final Set<Long> teamIds;
+
+        Entry(ByteBuffer body, boolean gzip, Set<Long> teamIds) {
+            this.body = body;
+            this.gzip = gzip;
+            this.teamIds = teamIds;
+        }
+
+        long size() {
+            return body.capacity();
+        }
+    }
+}
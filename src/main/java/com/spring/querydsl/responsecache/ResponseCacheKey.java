@@ -0,0 +1,37 @@
+package com.spring.querydsl.responsecache;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+import lombok.Value;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * 응답 캐시 키 : 조건 + 페이지 + 응답 인코딩
+ * 리포지토리가 빈 문자열 조건을 무시하므로 빈 문자열은 null 로 맞춘다.
+ */
+@Value
+public class ResponseCacheKey {
+    String username;
+    String teamName;
+    Integer ageGoe;
+    Integer ageLoe;
+    int page;
+    int size;
+    String sort;
+    boolean gzip;
+
+    static ResponseCacheKey of(MemberSearchCondition condition, Pageable pageable, boolean gzip) {
+        return new ResponseCacheKey(
+                emptyToNull(condition.getUsername()),
+                emptyToNull(condition.getTeamName()),
+                condition.getAgeGoe(),
+                condition.getAgeLoe(),
+                pageable.getPageNumber(),
+                pageable.getPageSize(),
+                pageable.getSort().toString(),
+                gzip);
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
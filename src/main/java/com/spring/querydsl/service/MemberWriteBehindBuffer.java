@@ -0,0 +1,225 @@
+package com.spring.querydsl.service;
+
+import com.spring.querydsl.dto.MemberTeamDto;
+import com.spring.querydsl.shard.ShardTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Member.age / username 고빈도 변경용 write-behind 버퍼 (querydsl.write-behind.enabled=true)
+ * 같은 회원에 대한 변경은 메모리에서 마지막 값으로 합치고, 주기(flush-interval-ms) 또는 개수(max-pending)에 도달하면
+ * 더티 체킹 없이 JDBC 배치 update 로 한번에 반영한다.
+ * - 메모리 : 대기 중인 회원 수가 max-pending 에 도달하면 새 회원의 변경을 받기 전에 호출한 스레드에서 flush 한다.
+ *          flush 가 실패하면 예외를 호출한 쪽으로 던지고 변경을 받지 않으므로 버퍼는 max-pending 을 넘지 않는다.
+ * - 반영 : 커밋될 때까지 변경을 버퍼에 남겨 두고(조회 덮어쓰기가 계속 보인다), 커밋 후 그 사이 바뀌지 않은 값만 지운다.
+ *          샤딩 중에는 회원 id 의 샤드별로 나눠서 각 샤드에 반영한다. 삭제된 회원의 변경은 버린다.
+ * - 종료 : 빈 소멸 시(@PreDestroy) 남은 변경을 모두 flush 한다. (정상 종료 기준, 프로세스 강제 종료 시에는 유실될 수 있다)
+ * - 조회 : MemberRepositoryImpl 이 search 결과에 대기 중인 값을 덮어쓰거나, 조건에 걸리면 먼저 flush 한다.
+ * 변경 피드(querydsl.change-feed.enabled=true)에는 같은 트랜잭션에서 회원별 UPDATE 로 기록한다.
+ * 엔티티 이벤트가 없으므로 메모리에 둔 파생 상태(스케치, 응답 캐시)는 커밋 후 WriteBehindFlushListener 로 알린다.
+ * 버전(version)도 같이 올려서 동시에 진행 중인 낙관적 락 트랜잭션이 변경을 덮어쓰지 못하게 한다.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "querydsl.write-behind.enabled", havingValue = "true")
+public class MemberWriteBehindBuffer {
+
+    private static final String UPDATE_MEMBER =
+            "update member set username = coalesce(?, username), age = coalesce(?, age), version = version + 1" +
+            " where member_id = ?";
+    private static final String UPDATE_MEMBER_TEAM_VIEW =
+            "update member_team_view set username = coalesce(?, username), age = coalesce(?, age)" +
+            " where member_id = ?";
+    private static final String INSERT_CHANGE_EVENT =
+            "insert into change_event (entity_type, operation, id_from, id_to, created_at)" +
+            " values ('Member', 'UPDATE', ?, ?, ?)";
+
+    private final Map<Long, PendingUpdate> pending = new ConcurrentHashMap<>();
+    private final List<WriteBehindFlushListener> listeners = new CopyOnWriteArrayList<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardTemplate shardTemplate;
+    private final int maxPending;
+    private final boolean readModelEnabled;
+    private final boolean changeFeedEnabled;
+
+    public MemberWriteBehindBuffer(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   ObjectProvider<ShardTemplate> shardTemplate,
+                                   @Value("${querydsl.write-behind.max-pending:10000}") int maxPending,
+                                   @Value("${querydsl.read-model.enabled:false}") boolean readModelEnabled,
+                                   @Value("${querydsl.change-feed.enabled:false}") boolean changeFeedEnabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.shardTemplate = shardTemplate.getIfAvailable();
+        this.maxPending = maxPending;
+        this.readModelEnabled = readModelEnabled;
+        this.changeFeedEnabled = changeFeedEnabled;
+    }
+
+    public void subscribe(WriteBehindFlushListener listener) {
+        listeners.add(listener);
+    }
+
+    public void updateAge(Long memberId, int age) {
+        merge(memberId, new PendingUpdate(null, age));
+    }
+
+    public void updateUsername(Long memberId, String username) {
+        merge(memberId, new PendingUpdate(username, null));
+    }
+
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * 대기 중인 변경을 조회 결과에 덮어쓴다. (username/age 조건이 없는 조회에서만 사용, 포함 여부가 바뀌지 않으므로)
+     */
+    public void overlay(List<MemberTeamDto> results) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (MemberTeamDto dto : results) {
+            PendingUpdate update = pending.get(dto.getMemberId());
+            if (update != null) {
+                if (update.username != null) {
+                    dto.setUsername(update.username);
+                }
+                if (update.age != null) {
+                    dto.setAge(update.age);
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.write-behind.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        int flushed = flush();
+        log.info("write-behind buffer flushed {} members on shutdown", flushed);
+    }
+
+    /**
+     * flush 는 한번에 하나만 실행한다. 동시에 실행되면 먼저 읽은 옛 값이 나중에 커밋될 수 있기 때문이다.
+     * @return 반영한 회원 수
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            Map<Integer, Map<Long, PendingUpdate>> byShard = new TreeMap<>();
+            pending.forEach((memberId, update) -> byShard
+                    .computeIfAbsent(shardTemplate == null ? 0 : shardTemplate.shardOf(memberId), shard -> new HashMap<>())
+                    .put(memberId, update));
+
+            int flushed = 0;
+            for (Map.Entry<Integer, Map<Long, PendingUpdate>> entry : byShard.entrySet()) {
+                Map<Long, PendingUpdate> updates = entry.getValue();
+                // 실패하면 예외를 던지고, 커밋하지 못한 변경은 버퍼에 그대로 남는다.
+                List<Long> updatedIds = shardTemplate == null
+                        ? transactionTemplate.execute(status -> apply(updates))
+                        : shardTemplate.write(entry.getKey(), () -> apply(updates));
+                // 커밋 후에 지운다. 그 사이 들어온 더 새로운 값(다른 인스턴스)은 남겨서 다음 flush 에 반영한다.
+                updates.forEach(pending::remove);
+                flushed += updatedIds.size();
+                if (!updatedIds.isEmpty()) {
+                    listeners.forEach(listener -> listener.afterFlush(updatedIds));
+                }
+            }
+            return flushed;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * @return 반영한 회원 (삭제되어 update 되지 않은 회원 제외)
+     */
+    private List<Long> apply(Map<Long, PendingUpdate> updates) {
+        List<Long> memberIds = new ArrayList<>(updates.keySet());
+        List<Object[]> batch = new ArrayList<>(memberIds.size());
+        for (Long memberId : memberIds) {
+            PendingUpdate update = updates.get(memberId);
+            batch.add(new Object[]{update.username, update.age, memberId});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_MEMBER, batch);
+
+        List<Long> updatedIds = new ArrayList<>(memberIds.size());
+        List<Object[]> updatedBatch = new ArrayList<>(memberIds.size());
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                log.warn("write-behind update of member {} dropped, the member no longer exists", memberIds.get(i));
+                continue;
+            }
+            updatedIds.add(memberIds.get(i));
+            updatedBatch.add(batch.get(i));
+        }
+        if (updatedIds.isEmpty()) {
+            return updatedIds;
+        }
+        if (readModelEnabled) {
+            jdbcTemplate.batchUpdate(UPDATE_MEMBER_TEAM_VIEW, updatedBatch);
+        }
+        if (changeFeedEnabled) {
+            long now = System.currentTimeMillis();
+            jdbcTemplate.batchUpdate(INSERT_CHANGE_EVENT, updatedIds.stream()
+                    .map(memberId -> new Object[]{memberId, memberId, now})
+                    .collect(Collectors.toList()));
+        }
+        return updatedIds;
+    }
+
+    private void merge(Long memberId, PendingUpdate update) {
+        if (pending.size() >= maxPending && !pending.containsKey(memberId)) {
+            flush();
+        }
+        pending.merge(memberId, update, PendingUpdate::then);
+    }
+
+    private static class PendingUpdate {
+        private final String username;
+        private final Integer age;
+
+        PendingUpdate(String username, Integer age) {
+            this.username = username;
+            this.age = age;
+        }
+
+        /**
+         * 나중 변경의 값이 있으면 그 값을, 없으면 이전 값을 유지한다.
+         */
+        PendingUpdate then(PendingUpdate next) {
+            return new PendingUpdate(
+                    next.username != null ? next.username : username,
+                    next.age != null ? next.age : age);
+        }
+    }
+}
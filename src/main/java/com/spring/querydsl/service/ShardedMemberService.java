@@ -0,0 +1,39 @@
+package com.spring.querydsl.service;
+
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.shard.ShardTemplate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 샤딩 중 쓰기 : 팀은 이름 해시로 정한 샤드에 만들고, 회원은 소속 팀(team_id)의 샤드에 쓴다.
+ * 다른 샤드의 팀으로 옮기는 changeTeam 은 지원하지 않는다. (회원 행을 다른 DB 로 옮겨야 한다)
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "querydsl.sharding.enabled", havingValue = "true")
+public class ShardedMemberService {
+
+    private final ShardTemplate shardTemplate;
+    private final EntityManager em;
+
+    public Long createTeam(String name) {
+        return shardTemplate.write(shardTemplate.shardForNewTeam(name), () -> {
+            Team team = new Team(name);
+            em.persist(team);
+            return team.getId();
+        });
+    }
+
+    public Long join(Long teamId, String username, int age) {
+        return shardTemplate.writeOnTeamShard(teamId, () -> {
+            Member member = new Member(username, age, em.getReference(Team.class, teamId));
+            em.persist(member);
+            return member.getId();
+        });
+    }
+}
@@ -0,0 +1,13 @@
+package com.spring.querydsl.service;
+
+/**
+ * 회원 팀 이동 시 동시성 제어 방식
+ */
+public enum TeamMoveLockMode {
+    /** @Version 낙관적 락, 충돌 시 백오프 후 재시도 */
+    OPTIMISTIC,
+    /** select ... for update */
+    PESSIMISTIC_WRITE,
+    /** 회원 id 기준 JVM 내부 스트라이프 락 (단일 인스턴스에서만 유효) */
+    STRIPED
+}
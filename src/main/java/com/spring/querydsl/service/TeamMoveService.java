@@ -0,0 +1,108 @@
+package com.spring.querydsl.service;
+
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.LockModeType;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PersistenceContext;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 회원 팀 이동(Member.changeTeam) 실행기
+ * 낙관적 락 충돌 시 지수 백오프 + 지터로 재시도한다. 재시도마다 새 트랜잭션에서 최신 상태를 다시 읽는다.
+ */
+@Slf4j
+@Service
+public class TeamMoveService {
+
+    private static final int STRIPES = 64;
+
+    @PersistenceContext
+    EntityManager em;
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    public TeamMoveService(PlatformTransactionManager transactionManager,
+                           @Value("${querydsl.team-move.max-attempts:5}") int maxAttempts,
+                           @Value("${querydsl.team-move.initial-backoff-ms:5}") long initialBackoffMillis,
+                           @Value("${querydsl.team-move.max-backoff-ms:200}") long maxBackoffMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public void moveTeam(Long memberId, Long teamId) {
+        moveTeam(memberId, teamId, TeamMoveLockMode.OPTIMISTIC);
+    }
+
+    public void moveTeam(Long memberId, Long teamId, TeamMoveLockMode lockMode) {
+        switch (lockMode) {
+            case PESSIMISTIC_WRITE:
+                transactionTemplate.executeWithoutResult(status -> move(memberId, teamId, LockModeType.PESSIMISTIC_WRITE));
+                return;
+            case STRIPED:
+                ReentrantLock lock = stripes[Math.floorMod(memberId.hashCode(), STRIPES)];
+                lock.lock();
+                try {
+                    transactionTemplate.executeWithoutResult(status -> move(memberId, teamId, LockModeType.NONE));
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            default:
+                moveWithRetry(memberId, teamId);
+        }
+    }
+
+    private void moveWithRetry(Long memberId, Long teamId) {
+        long backoff = initialBackoffMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> move(memberId, teamId, LockModeType.OPTIMISTIC));
+                return;
+            } catch (ObjectOptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("team move conflict memberId={} attempt={}", memberId, attempt);
+                sleep(ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1));
+                backoff = Math.min(backoff * 2, maxBackoffMillis);
+            }
+        }
+    }
+
+    private void move(Long memberId, Long teamId, LockModeType lockMode) {
+        Member member = em.find(Member.class, memberId, lockMode);
+        if (member == null) {
+            throw new EntityNotFoundException("member not found: " + memberId);
+        }
+        member.changeTeam(em.getReference(Team.class, teamId));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("team move interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.spring.querydsl.service;
+
+import java.util.Collection;
+
+/**
+ * MemberWriteBehindBuffer 구독자 (스케치, 응답 캐시)
+ * write-behind 는 JDBC 배치 update 라 엔티티 이벤트가 없으므로 EntityCommitHook 으로는 전달되지 않는다.
+ */
+public interface WriteBehindFlushListener {
+
+    /**
+     * 대기 중이던 변경이 커밋되면 호출된다. (샤딩 중에는 샤드마다 한 번)
+     * @param memberIds 반영된 회원 (삭제되어 버려진 회원 제외)
+     */
+    void afterFlush(Collection<Long> memberIds);
+}
@@ -0,0 +1,28 @@
+package com.spring.querydsl.shard;
+
+/**
+ * 현재 스레드가 사용할 샤드 번호 (ShardTemplate 이 지정하고 ShardRoutingDataSource / BlockSequenceGenerator 가 읽는다)
+ * 샤드 수는 전역 값으로 두지 않고 ShardTemplate, ShardRoutingDataSource, BlockSequenceGenerator 에 각각 주입한다.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    static Integer set(Integer shard) {
+        Integer previous = CURRENT.get();
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+        return previous;
+    }
+
+    private ShardContext() {
+    }
+}
@@ -0,0 +1,26 @@
+package com.spring.querydsl.shard;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * ShardContext 의 샤드 번호로 커넥션을 얻을 DataSource 를 고른다.
+ * 트랜잭션은 시작 시점에 커넥션을 잡으므로 샤드 지정은 트랜잭션 밖에서 해야 한다. (ShardTemplate)
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final int shardCount;
+
+    public ShardRoutingDataSource(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        int shard = ShardContext.current();
+        if (shard >= shardCount) {
+            // 기본 샤드로 조용히 넘어가지 않는다.
+            throw new IllegalStateException("shard " + shard + " is out of range, shard count is " + shardCount);
+        }
+        return shard;
+    }
+}
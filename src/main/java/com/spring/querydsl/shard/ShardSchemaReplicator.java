@@ -0,0 +1,57 @@
+package com.spring.querydsl.shard;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 로컬 H2 샤드용 스키마 복제 (querydsl.sharding.replicate-schema=true)
+ * 하이버네이트 ddl-auto 는 기본 샤드(0)에만 스키마를 만들므로,
+ * EntityManagerFactory 생성 뒤 0번 샤드의 DDL(H2 SCRIPT NODATA)을 나머지 샤드에 그대로 실행한다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = {"querydsl.sharding.enabled", "querydsl.sharding.replicate-schema"}, havingValue = "true")
+public class ShardSchemaReplicator {
+
+    private final DataSource dataSource;
+    // 스키마가 0번 샤드에 만들어진 뒤 실행되도록 의존한다.
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void replicate() throws SQLException {
+        ShardRoutingDataSource routing = DataSourceUnwrapper.unwrap(dataSource, ShardRoutingDataSource.class);
+        Map<Object, DataSource> shards = routing.getResolvedDataSources();
+
+        List<String> ddl = new ArrayList<>();
+        try (Connection connection = shards.get(0).getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SCRIPT NODATA")) {
+            while (rs.next()) {
+                ddl.add(rs.getString(1));
+            }
+        }
+
+        for (int shard = 1; shard < shards.size(); shard++) {
+            try (Connection connection = shards.get(shard).getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+                for (String sql : ddl) {
+                    statement.execute(sql);
+                }
+            }
+        }
+    }
+}
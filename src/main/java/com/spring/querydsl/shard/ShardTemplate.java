@@ -0,0 +1,123 @@
+package com.spring.querydsl.shard;
+
+import com.spring.querydsl.query.QueryDeadline;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 샤드를 지정해서 작업을 실행한다.
+ * 각 작업은 지정한 샤드의 커넥션으로 새 트랜잭션(REQUIRES_NEW)에서 실행된다.
+ * 여러 샤드에 걸친 작업은 fan-out 스레드 풀에서 병렬로 실행하고 결과를 샤드 순서대로 돌려준다.
+ * 풀은 여러 요청의 fan-out 이 동시에 돌 수 있도록 샤드 수보다 크게 잡는다. (querydsl.sharding.fan-out-threads)
+ *
+ * 샤딩 중에는 모든 식별자가 (블록 값 * 샤드 수 + 샤드 번호)로 만들어지므로(BlockSequenceGenerator)
+ * team_id, member_id 만으로 샤드를 알 수 있다. (shardOf = id % 샤드 수)
+ * 샤드 수를 바꾸면 기존 행의 id % 샤드 수가 모두 달라져 라우팅이 전부 틀어진다.
+ * 샤드를 추가하려면 기존 데이터를 새 샤드 수 기준으로 옮겨(재적재) 식별자와 위치를 다시 맞춰야 한다.
+ */
+public class ShardTemplate {
+
+    private final int shardCount;
+    private final TransactionTemplate writeTemplate;
+    private final TransactionTemplate readTemplate;
+    private final ExecutorService executor;
+
+    public ShardTemplate(PlatformTransactionManager transactionManager, int shardCount, int fanOutThreads) {
+        this.shardCount = shardCount;
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTemplate.setReadOnly(true);
+
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(shardCount, fanOutThreads), runnable -> {
+            Thread thread = new Thread(runnable, "shard-" + sequence.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public int shardOf(long id) {
+        return (int) Math.floorMod(id, (long) shardCount);
+    }
+
+    /**
+     * 새 팀은 이름 해시로 샤드를 정한다. 이후로는 team_id 로 샤드를 찾는다.
+     */
+    public int shardForNewTeam(String teamName) {
+        return Math.floorMod(teamName.hashCode(), shardCount());
+    }
+
+    public <T> T writeOnTeamShard(Long teamId, Supplier<T> callback) {
+        return execute(shardOf(teamId), writeTemplate, callback);
+    }
+
+    public <T> T write(int shard, Supplier<T> callback) {
+        return execute(shard, writeTemplate, callback);
+    }
+
+    public <T> T read(int shard, Supplier<T> callback) {
+        return execute(shard, readTemplate, callback);
+    }
+
+    public <T> List<T> readAll(Supplier<T> callback) {
+        return readShards(IntStream.range(0, shardCount()).boxed().collect(Collectors.toList()), callback);
+    }
+
+    public <T> List<T> readShards(Collection<Integer> shards, Supplier<T> callback) {
+        if (shards.size() == 1) {
+            // 한 샤드만 대상이면 스레드를 넘기지 않는다.
+            List<T> single = new ArrayList<>(1);
+            single.add(read(shards.iterator().next(), callback));
+            return single;
+        }
+        // 호출한 스레드의 쿼리 마감 시각을 샤드 작업 스레드로 넘긴다.
+        Long deadline = QueryDeadline.current();
+        List<CompletableFuture<T>> futures = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(
+                        () -> QueryDeadline.runWith(deadline, () -> read(shard, callback)), executor))
+                .collect(Collectors.toList());
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        return results;
+    }
+
+    private <T> T execute(int shard, TransactionTemplate template, Supplier<T> callback) {
+        Integer previous = ShardContext.set(shard);
+        try {
+            return template.execute(status -> callback.get());
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,62 @@
+package com.spring.querydsl.shard;
+
+import com.spring.querydsl.entity.id.BlockSequenceGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 팀 단위 샤딩 (querydsl.sharding.enabled=true)
+ * querydsl.sharding.urls 의 각 JDBC URL 이 하나의 샤드가 된다. 계정/드라이버는 spring.datasource 설정을 따른다.
+ * 하나의 EntityManagerFactory 가 ShardRoutingDataSource 를 통해 모든 샤드를 사용한다.
+ * 샤드 수는 URL 개수이며 라우팅, 식별자 생성기, ShardTemplate 에 각각 넘긴다. (컨텍스트마다 따로 가진다)
+ * 샤드 수를 바꾸면 id % 샤드 수 라우팅이 기존 행과 맞지 않게 되므로 데이터 재배치가 필요하다. (ShardTemplate)
+ */
+@Configuration
+@ConditionalOnProperty(name = "querydsl.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties,
+                                 @Value("${querydsl.sharding.urls}") String[] urls) {
+        Map<Object, Object> shards = new HashMap<>();
+        for (int i = 0; i < urls.length; i++) {
+            HikariDataSource shard = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls[i])
+                    .build();
+            shard.setPoolName("shard-" + i);
+            shards.put(i, shard);
+        }
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(urls.length);
+        routing.setTargetDataSources(shards);
+        routing.setDefaultTargetDataSource(shards.get(0));
+        return routing;
+    }
+
+    /**
+     * 식별자 생성기는 하이버네이트가 만들므로 샤드 수를 하이버네이트 설정으로 넘긴다.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer shardCountHibernateProperties(@Value("${querydsl.sharding.urls}") String[] urls) {
+        return properties -> properties.put(BlockSequenceGenerator.SHARD_COUNT_SETTING, urls.length);
+    }
+
+    @Bean
+    public ShardTemplate shardTemplate(PlatformTransactionManager transactionManager,
+                                       @Value("${querydsl.sharding.urls}") String[] urls,
+                                       @Value("${querydsl.sharding.fan-out-threads:16}") int fanOutThreads) {
+        return new ShardTemplate(transactionManager, urls.length, fanOutThreads);
+    }
+}
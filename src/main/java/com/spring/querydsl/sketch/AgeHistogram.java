@@ -0,0 +1,93 @@
+package com.spring.querydsl.sketch;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 나이별 회원 수, 나이마다 정확히 센다. (0 ~ 127 은 배열, 그 밖의 나이는 TreeMap)
+ * 삭제/변경 시 이전 나이를 빼서 정확한 개수를 유지한다. 동기화하지 않으므로 호출하는 쪽에서 잠근다.
+ * bucket() 은 나이 칸 번호로, 0 미만은 첫 칸, 127 이상은 마지막 칸에 모은다. (username HyperLogLog 용)
+ */
+public final class AgeHistogram {
+
+    public static final int BUCKETS = 128;
+
+    private final int[] counts = new int[BUCKETS];
+    private final NavigableMap<Integer, Integer> outliers = new TreeMap<>();
+
+    public static int bucket(int age) {
+        return Math.max(0, Math.min(age, BUCKETS - 1));
+    }
+
+    /**
+     * 칸에 들어가는 가장 작은 / 큰 나이
+     */
+    public static int bucketFrom(int bucket) {
+        return bucket == 0 ? Integer.MIN_VALUE : bucket;
+    }
+
+    public static int bucketTo(int bucket) {
+        return bucket == BUCKETS - 1 ? Integer.MAX_VALUE : bucket;
+    }
+
+    public void add(int age) {
+        if (age >= 0 && age < BUCKETS) {
+            counts[age]++;
+        } else {
+            outliers.merge(age, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * @return 뺄 회원이 없으면 false (개수는 그대로 둔다, 같은 변경을 두 번 반영했거나 추가를 놓친 경우)
+     */
+    public boolean remove(int age) {
+        if (age >= 0 && age < BUCKETS) {
+            if (counts[age] == 0) {
+                return false;
+            }
+            counts[age]--;
+            return true;
+        }
+        Integer count = outliers.get(age);
+        if (count == null) {
+            return false;
+        }
+        if (count == 1) {
+            outliers.remove(age);
+        } else {
+            outliers.put(age, count - 1);
+        }
+        return true;
+    }
+
+    /**
+     * fromAge ~ toAge (포함) 회원 수
+     */
+    public long count(int fromAge, int toAge) {
+        long sum = 0;
+        for (int age = Math.max(fromAge, 0); age <= Math.min(toAge, BUCKETS - 1); age++) {
+            sum += counts[age];
+        }
+        for (int count : outliers.subMap(fromAge, true, toAge, true).values()) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    /**
+     * fromAge ~ toAge (포함) 에 회원이 있는 나이를 present 에 담는다.
+     */
+    public void collectAges(Set<Integer> present, int fromAge, int toAge) {
+        for (int age = Math.max(fromAge, 0); age <= Math.min(toAge, BUCKETS - 1); age++) {
+            if (counts[age] > 0) {
+                present.add(age);
+            }
+        }
+        for (Map.Entry<Integer, Integer> entry : outliers.subMap(fromAge, true, toAge, true).entrySet()) {
+            present.add(entry.getKey());
+        }
+    }
+}
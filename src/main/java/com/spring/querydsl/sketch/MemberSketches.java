@@ -0,0 +1,302 @@
+package com.spring.querydsl.sketch;
+
+import com.spring.querydsl.dto.ApproxDistinct;
+import com.spring.querydsl.dto.MemberField;
+import com.spring.querydsl.entity.ChangeOperation;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.entity.event.EntityChange;
+import com.spring.querydsl.entity.event.EntityCommitHook;
+import com.spring.querydsl.entity.event.EntityCommitListener;
+import com.spring.querydsl.service.MemberWriteBehindBuffer;
+import com.spring.querydsl.service.WriteBehindFlushListener;
+import com.spring.querydsl.shard.ShardTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 팀별 회원 스케치 (querydsl.sketch.enabled=true)
+ * distinct 정렬/해시 없이 대시보드용 근사 distinct 를 메모리에서 계산한다. (MemberRepositoryCustom#approxDistinct)
+ * - USERNAME : 팀 x 나이 칸별 HyperLogLog 를 합쳐서 추정 (상대 표준 오차 1.04 / sqrt(2^precision))
+ * - AGE, TEAM : 나이별 회원 수로 정확히 센다. (엔티티 변경으로 개수를 정확히 유지)
+ *   빼려는 나이에 회원이 없으면(같은 변경을 두 번 반영했거나 이벤트 없이 바뀐 회원) 개수를 믿을 수 없으므로
+ *   다음 재구축까지 isReady 를 false 로 두어 정확한 count(distinct) 로 대신하게 한다.
+ * 갱신 : Member insert/update/delete 가 커밋되면 반영한다. (EntityCommitHook) HyperLogLog 는 값을 뺄 수 없으므로
+ * 지워지거나 바뀐 username 은 다음 재구축(rebuild-interval-ms) 전까지 계속 세어진다. (추정값이 커지는 쪽으로만 어긋난다)
+ * 벌크 연산처럼 엔티티 이벤트가 없는 변경도 재구축 때 반영된다.
+ * write-behind flush 는 이전 나이/팀을 모르므로 어긋남으로 보고, 어긋난 스케치는 drift-rebuild-ms 안에 다시 만든다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "querydsl.sketch.enabled", havingValue = "true")
+public class MemberSketches implements EntityCommitListener, WriteBehindFlushListener {
+
+    /**
+     * 팀이 없는 회원
+     */
+    private static final long NO_TEAM = Long.MIN_VALUE;
+    private static final String SCAN_MEMBERS = "select team_id, username, age from member";
+
+    private final EntityCommitHook entityCommitHook;
+    private final MemberWriteBehindBuffer writeBehindBuffer;
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardTemplate shardTemplate;
+    private final int precision;
+
+    private final Object lock = new Object();
+    /**
+     * 재구축은 한 번에 하나씩 (정기/어긋남 재구축과 직접 호출이 겹치면 replay 를 서로 덮어쓴다)
+     */
+    private final Object rebuildLock = new Object();
+    private volatile Map<Long, TeamSketch> sketches = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    /**
+     * 현재 스케치의 나이 개수가 어긋났는지 (lock 으로 보호)
+     */
+    private boolean drifted;
+    /**
+     * 재구축 중 커밋된 변경, 새 스케치에 다시 반영한다. (재구축 중이 아니면 null)
+     */
+    private List<Consumer<Map<Long, TeamSketch>>> replay;
+
+    public MemberSketches(EntityCommitHook entityCommitHook,
+                          ObjectProvider<MemberWriteBehindBuffer> writeBehindBuffer,
+                          JdbcTemplate jdbcTemplate,
+                          ObjectProvider<ShardTemplate> shardTemplate,
+                          @Value("${querydsl.sketch.precision:10}") int precision) {
+        this.entityCommitHook = entityCommitHook;
+        this.writeBehindBuffer = writeBehindBuffer.getIfAvailable();
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardTemplate = shardTemplate.getIfAvailable();
+        this.precision = precision;
+    }
+
+    @PostConstruct
+    public void registerListener() {
+        entityCommitHook.subscribe(this);
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.subscribe(this);
+        }
+    }
+
+    /**
+     * 커밋된 Member 변경만 스케치에 반영한다.
+     */
+    @Override
+    public void afterCommit(List<EntityChange> changes) {
+        for (EntityChange change : changes) {
+            if (!change.is(Member.class)) {
+                continue;
+            }
+            if (change.getOperation() == ChangeOperation.INSERT) {
+                MemberState state = new MemberState(change, false);
+                apply(sketches -> sketch(sketches, state.teamId).add(state.username, state.age));
+            } else if (change.getOperation() == ChangeOperation.DELETE) {
+                MemberState state = new MemberState(change, false);
+                apply(sketches -> remove(sketches, state.teamId, state.age));
+            } else if (change.getOldState() != null) {
+                // 이전 상태를 모르면(분리 상태 엔티티의 update) 나이 개수를 맞출 수 없으므로 재구축에 맡긴다.
+                MemberState before = new MemberState(change, true);
+                MemberState after = new MemberState(change, false);
+                apply(sketches -> {
+                    remove(sketches, before.teamId, before.age);
+                    sketch(sketches, after.teamId).add(after.username, after.age);
+                });
+            }
+        }
+    }
+
+    /**
+     * write-behind 로 바뀐 회원의 이전 나이/팀을 모르므로 개수를 맞출 수 없다. 재구축 중이면 새 스케치에도 어긋남으로 남긴다.
+     */
+    @Override
+    public void afterFlush(Collection<Long> memberIds) {
+        synchronized (lock) {
+            if (!drifted) {
+                log.debug("member sketches drifted by {} write-behind updates, using exact counts until the next rebuild", memberIds.size());
+            }
+            drifted = true;
+            ready = false;
+            if (replay != null) {
+                replay.add(sketches -> drifted = true);
+            }
+        }
+    }
+
+    /**
+     * 첫 재구축이 끝나기 전이나 나이 개수가 어긋나면 false (호출하는 쪽은 정확한 count(distinct) 로 대신한다)
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * member 테이블 전체를 한 번 읽어 새 스케치를 만들고 바꿔 끼운다.
+     * 읽는 동안 커밋된 변경은 새 스케치에도 반영하므로, 읽기 직전에 커밋된 변경은 두 번 반영될 수 있다. (다음 재구축에서 맞춰진다)
+     * 두 번 반영된 삭제는 나이 개수 어긋남으로 잡혀 다음 재구축까지 isReady 가 false 가 된다.
+     */
+    @Scheduled(fixedDelayString = "${querydsl.sketch.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            rebuildSketches();
+        }
+    }
+
+    private void rebuildSketches() {
+        synchronized (lock) {
+            replay = new ArrayList<>();
+        }
+        Map<Long, TeamSketch> rebuilt = new ConcurrentHashMap<>();
+        RowCallbackHandler handler = rs -> {
+            long teamId = rs.getObject("team_id") == null ? NO_TEAM : rs.getLong("team_id");
+            sketch(rebuilt, teamId).add(rs.getString("username"), rs.getInt("age"));
+        };
+        try {
+            if (shardTemplate == null) {
+                jdbcTemplate.query(SCAN_MEMBERS, handler);
+            } else {
+                shardTemplate.readAll(() -> {
+                    jdbcTemplate.query(SCAN_MEMBERS, handler);
+                    return null;
+                });
+            }
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                replay = null;
+            }
+            throw e;
+        }
+        synchronized (lock) {
+            drifted = false;
+            replay.forEach(change -> change.accept(rebuilt));
+            replay = null;
+            sketches = rebuilt;
+            ready = !drifted;
+        }
+        log.debug("member sketches rebuilt for {} teams", rebuilt.size());
+    }
+
+    /**
+     * 어긋난 스케치는 정기 재구축(rebuild-interval-ms)까지 기다리지 않고 다시 만든다.
+     */
+    @Scheduled(fixedDelayString = "${querydsl.sketch.drift-rebuild-ms:5000}")
+    public void rebuildIfDrifted() {
+        boolean rebuild;
+        synchronized (lock) {
+            rebuild = drifted;
+        }
+        if (rebuild) {
+            rebuild();
+        }
+    }
+
+    /**
+     * @param teamIds 대상 팀 (null 이면 팀이 없는 회원을 포함한 전체)
+     */
+    public ApproxDistinct approxDistinct(Collection<Long> teamIds, Integer ageGoe, Integer ageLoe, MemberField field) {
+        int from = ageGoe == null ? Integer.MIN_VALUE : ageGoe;
+        int to = ageLoe == null ? Integer.MAX_VALUE : ageLoe;
+        if (from > to) {
+            return ApproxDistinct.exact(0);
+        }
+        Map<Long, TeamSketch> current = sketches;
+        Set<Long> targets = teamIds == null ? null : new HashSet<>(teamIds);
+
+        switch (field) {
+            case USERNAME: {
+                HyperLogLog merged = new HyperLogLog(precision);
+                forEachTeam(current, targets, (teamId, sketch) -> sketch.mergeUsernames(merged, from, to));
+                return ApproxDistinct.estimated(merged.estimate(), merged.relativeStandardError());
+            }
+            case AGE: {
+                Set<Integer> present = new HashSet<>();
+                forEachTeam(current, targets, (teamId, sketch) -> sketch.collectAges(present, from, to));
+                return ApproxDistinct.exact(present.size());
+            }
+            default: {
+                long[] teams = {0};
+                forEachTeam(current, targets, (teamId, sketch) -> {
+                    if (teamId != NO_TEAM && sketch.hasMembers(from, to)) {
+                        teams[0]++;
+                    }
+                });
+                return ApproxDistinct.exact(teams[0]);
+            }
+        }
+    }
+
+    private static void forEachTeam(Map<Long, TeamSketch> sketches, Set<Long> targets,
+                                    BiConsumer<Long, TeamSketch> action) {
+        if (targets == null) {
+            sketches.forEach(action);
+            return;
+        }
+        for (Long teamId : targets) {
+            TeamSketch sketch = sketches.get(teamId);
+            if (sketch != null) {
+                action.accept(teamId, sketch);
+            }
+        }
+    }
+
+    private TeamSketch sketch(Map<Long, TeamSketch> sketches, long teamId) {
+        return sketches.computeIfAbsent(teamId, key -> new TeamSketch(precision));
+    }
+
+    /**
+     * 커밋된 삭제/변경의 이전 나이를 뺀다. (apply / rebuild 의 lock 안에서 호출된다)
+     */
+    private void remove(Map<Long, TeamSketch> sketches, long teamId, int age) {
+        if (!sketch(sketches, teamId).remove(age)) {
+            if (!drifted) {
+                log.warn("member sketch age count drifted (team {}, age {}), using exact counts until the next rebuild", teamId, age);
+            }
+            drifted = true;
+            ready = false;
+        }
+    }
+
+    private void apply(Consumer<Map<Long, TeamSketch>> change) {
+        synchronized (lock) {
+            change.accept(sketches);
+            if (replay != null) {
+                replay.add(change);
+            }
+        }
+    }
+
+    private static long teamId(Object team) {
+        if (team == null) {
+            return NO_TEAM;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+
+    private static class MemberState {
+        private final String username;
+        private final int age;
+        private final long teamId;
+
+        MemberState(EntityChange change, boolean old) {
+            this.username = (String) (old ? change.oldProperty("username") : change.property("username"));
+            this.age = (Integer) (old ? change.oldProperty("age") : change.property("age"));
+            this.teamId = teamId(old ? change.oldProperty("team") : change.property("team"));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.spring.querydsl.sketch;
+
+import java.util.Set;
+
+/**
+ * 팀 하나의 스케치 : 나이 칸별 username HyperLogLog, 팀 전체 username HyperLogLog, 나이 히스토그램
+ * 나이 조건이 없으면 팀 전체 스케치 하나만 합친다.
+ * 양 끝 칸(0 미만, 127 이상)의 username 은 칸 단위로만 나뉘므로 나이 조건 경계 밖의 회원이 추정에 섞일 수 있다.
+ */
+final class TeamSketch {
+
+    private final int precision;
+    private final HyperLogLog usernames;
+    private final HyperLogLog[] usernamesByAge = new HyperLogLog[AgeHistogram.BUCKETS];
+    private final AgeHistogram ages = new AgeHistogram();
+
+    TeamSketch(int precision) {
+        this.precision = precision;
+        this.usernames = new HyperLogLog(precision);
+    }
+
+    synchronized void add(String username, int age) {
+        int bucket = AgeHistogram.bucket(age);
+        if (usernamesByAge[bucket] == null) {
+            usernamesByAge[bucket] = new HyperLogLog(precision);
+        }
+        usernamesByAge[bucket].add(username);
+        usernames.add(username);
+        ages.add(age);
+    }
+
+    /**
+     * 나이 히스토그램에서만 뺀다. username 은 다음 재구축 전까지 계속 센다.
+     * @return 뺄 회원이 없으면 false
+     */
+    synchronized boolean remove(int age) {
+        return ages.remove(age);
+    }
+
+    synchronized void mergeUsernames(HyperLogLog target, int fromAge, int toAge) {
+        if (fromAge == Integer.MIN_VALUE && toAge == Integer.MAX_VALUE) {
+            target.merge(usernames);
+            return;
+        }
+        for (int i = AgeHistogram.bucket(fromAge); i <= AgeHistogram.bucket(toAge); i++) {
+            if (usernamesByAge[i] != null
+                    && ages.count(Math.max(fromAge, AgeHistogram.bucketFrom(i)), Math.min(toAge, AgeHistogram.bucketTo(i))) > 0) {
+                target.merge(usernamesByAge[i]);
+            }
+        }
+    }
+
+    synchronized void collectAges(Set<Integer> present, int fromAge, int toAge) {
+        ages.collectAges(present, fromAge, toAge);
+    }
+
+    synchronized boolean hasMembers(int fromAge, int toAge) {
+        return ages.count(fromAge, toAge) > 0;
+    }
+}
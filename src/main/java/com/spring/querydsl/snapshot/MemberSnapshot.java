@@ -0,0 +1,235 @@
+package com.spring.querydsl.snapshot;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+
+/**
+ * 회원 컬럼 스냅샷 파일 하나를 메모리 매핑해서 읽는다.
+ * 파일 형식 (little endian)
+ * - 헤더 64 byte : magic, version, rows, 팀 사전 크기, minId, maxId, username 바이트 길이
+ * - member_id long[rows], age int[rows], 팀 코드 int[rows] (-1 : 팀 없음)
+ * - username 오프셋 int[rows + 1], username UTF-8 바이트
+ * - 팀 사전 : 코드 순서대로 (team_id long, 이름 길이 int, 이름 UTF-8)
+ * 조회는 필요한 컬럼만 순서대로 훑고, 팀 이름 조건은 사전 코드 비교로 바꿔서 처리한다.
+ * 매핑 하나는 2GB 를 넘을 수 없으므로 파일도 그 안에서 나눠 만든다. (MemberSnapshotExporter)
+ */
+public class MemberSnapshot implements AutoCloseable {
+
+    static final int MAGIC = 0x4C4F434D; // "MCOL"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int NO_TEAM = -1;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int rows;
+    private final long minId;
+    private final long maxId;
+    private final LongBuffer memberIds;
+    private final IntBuffer ages;
+    private final IntBuffer teamCodes;
+    private final IntBuffer usernameOffsets;
+    private final ByteBuffer usernameBytes;
+    private final long[] teamIds;
+    private final String[] teamNames;
+
+    private MemberSnapshot(Path file, FileChannel channel, MappedByteBuffer buffer) {
+        this.file = file;
+        this.channel = channel;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("회원 스냅샷 파일이 아닙니다 : " + file);
+        }
+        this.rows = buffer.getInt(8);
+        int dictionarySize = buffer.getInt(12);
+        this.minId = buffer.getLong(16);
+        this.maxId = buffer.getLong(24);
+        int usernameLength = Math.toIntExact(buffer.getLong(32));
+
+        int position = HEADER_SIZE;
+        this.memberIds = slice(buffer, position, rows * Long.BYTES).asLongBuffer();
+        position += rows * Long.BYTES;
+        this.ages = slice(buffer, position, rows * Integer.BYTES).asIntBuffer();
+        position += rows * Integer.BYTES;
+        this.teamCodes = slice(buffer, position, rows * Integer.BYTES).asIntBuffer();
+        position += rows * Integer.BYTES;
+        this.usernameOffsets = slice(buffer, position, (rows + 1) * Integer.BYTES).asIntBuffer();
+        position += (rows + 1) * Integer.BYTES;
+        this.usernameBytes = slice(buffer, position, usernameLength);
+        position += usernameLength;
+
+        this.teamIds = new long[dictionarySize];
+        this.teamNames = new String[dictionarySize];
+        for (int code = 0; code < dictionarySize; code++) {
+            teamIds[code] = buffer.getLong(position);
+            int length = buffer.getInt(position + Long.BYTES);
+            byte[] name = new byte[length];
+            slice(buffer, position + Long.BYTES + Integer.BYTES, length).get(name);
+            teamNames[code] = new String(name, StandardCharsets.UTF_8);
+            position += Long.BYTES + Integer.BYTES + length;
+        }
+    }
+
+    public static MemberSnapshot open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new MemberSnapshot(file, channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (RuntimeException | IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public long minId() {
+        return minId;
+    }
+
+    public long maxId() {
+        return maxId;
+    }
+
+    public long memberId(int row) {
+        return memberIds.get(row);
+    }
+
+    /**
+     * 행은 member_id 오름차순이므로 이진 탐색한다.
+     */
+    public boolean contains(long memberId) {
+        if (rows == 0 || memberId < minId || memberId > maxId) {
+            return false;
+        }
+        int low = 0;
+        int high = rows - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long id = memberId(mid);
+            if (id < memberId) {
+                low = mid + 1;
+            } else if (id > memberId) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int age(int row) {
+        return ages.get(row);
+    }
+
+    /**
+     * 팀이 없으면 null
+     */
+    public Long teamId(int row) {
+        int code = teamCodes.get(row);
+        return code == NO_TEAM ? null : teamIds[code];
+    }
+
+    /**
+     * 팀이 없으면 null
+     */
+    public String teamName(int row) {
+        int code = teamCodes.get(row);
+        return code == NO_TEAM ? null : teamNames[code];
+    }
+
+    public String username(int row) {
+        int start = usernameOffsets.get(row);
+        byte[] bytes = new byte[usernameOffsets.get(row + 1) - start];
+        usernameBytes.duplicate().position(start).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 조건에 맞는 행 번호를 순서대로 넘긴다. (MemberSearchCondition 의 eq/goe/loe 와 같은 의미)
+     */
+    public void forEachMatch(MemberSearchCondition condition, IntConsumer action) {
+        boolean[] teams = null;
+        if (condition.getTeamName() != null && !condition.getTeamName().isEmpty()) {
+            teams = new boolean[teamNames.length];
+            boolean any = false;
+            for (int code = 0; code < teamNames.length; code++) {
+                teams[code] = teamNames[code].equals(condition.getTeamName());
+                any |= teams[code];
+            }
+            if (!any) {
+                return;
+            }
+        }
+        byte[] username = condition.getUsername() != null && !condition.getUsername().isEmpty()
+                ? condition.getUsername().getBytes(StandardCharsets.UTF_8)
+                : null;
+        int ageGoe = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+        int ageLoe = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+
+        for (int row = 0; row < rows; row++) {
+            if (teams != null) {
+                int code = teamCodes.get(row);
+                if (code == NO_TEAM || !teams[code]) {
+                    continue;
+                }
+            }
+            int age = ages.get(row);
+            if (age < ageGoe || age > ageLoe) {
+                continue;
+            }
+            if (username != null && !usernameEquals(row, username)) {
+                continue;
+            }
+            action.accept(row);
+        }
+    }
+
+    private boolean usernameEquals(int row, byte[] expected) {
+        int start = usernameOffsets.get(row);
+        if (usernameOffsets.get(row + 1) - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (usernameBytes.get(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 매핑은 GC 때 풀린다. 채널만 닫는다.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return file.getFileName() + " [" + minId + ".." + maxId + "] rows=" + rows;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position).limit(position + length);
+        return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
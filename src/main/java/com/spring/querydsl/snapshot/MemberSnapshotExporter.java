@@ -0,0 +1,331 @@
+package com.spring.querydsl.snapshot;
+
+import com.spring.querydsl.changefeed.ChangeFeedConsumer;
+import com.spring.querydsl.changefeed.ChangeRecord;
+import com.spring.querydsl.entity.ChangeOperation;
+import com.spring.querydsl.shard.ShardContext;
+import com.spring.querydsl.shard.ShardTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * member/team 을 컬럼 스냅샷 파일(MemberSnapshot)로 내보낸다.
+ * - member_id 순서의 forward-only 커서로 읽으면서 바로 파일에 쓴다. (fetch-size 만큼씩 가져온다)
+ * - 파일 이름은 {prefix}-{fromId}-{toId}.mcol, 증분은 디렉터리의 마지막 toId 다음부터 시작 시점의 max(member_id) 까지
+ * - 한 파일이 max-rows-per-file 을 넘으면 나눠서 쓴다. (매핑 하나가 2GB 를 넘지 않도록)
+ * - 전체 내보내기는 새 파일을 모두 .staging 에 쓴 뒤 바꿔 넣는다. 실패하면 이전 스냅샷이 그대로 남는다.
+ * 증분은 id 범위 기준이라 이미 내보낸 회원의 변경/삭제는 전체 내보내기로 반영한다.
+ * 이미 내보낸 범위 안의 id 가 늦게 커밋되면(pooled-lo 블록을 먼저 받은 다른 트랜잭션/인스턴스) 범위 증분에서 빠진다.
+ * 변경 피드(querydsl.change-feed.enabled=true)가 켜져 있으면 그런 Member INSERT 를 받아 {prefix}.late-{fromId}-{toId} 파일로
+ * 따로 내보낸다. 피드가 꺼져 있으면 늦게 커밋된 회원은 다음 전체 내보내기에 반영된다.
+ */
+@Slf4j
+@Service
+public class MemberSnapshotExporter implements ChangeFeedConsumer {
+
+    private static final String PREFIX = "members";
+    private static final String LATE = ".late";
+    /**
+     * 전체 내보내기 중인 파일을 두는 하위 디렉터리 (스냅샷 파일 이름 규칙에 맞지 않으므로 읽는 쪽은 보지 않는다)
+     */
+    private static final String STAGING = ".staging";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readTemplate;
+    private final ShardTemplate shardTemplate;
+    private final Path directory;
+    private final int fetchSize;
+    private final int maxRowsPerFile;
+
+    public MemberSnapshotExporter(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  ObjectProvider<ShardTemplate> shardTemplate,
+                                  @Value("${querydsl.snapshot.dir:build/snapshots}") String directory,
+                                  @Value("${querydsl.snapshot.fetch-size:1000}") int fetchSize,
+                                  @Value("${querydsl.snapshot.max-rows-per-file:10000000}") int maxRowsPerFile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.shardTemplate = shardTemplate.getIfAvailable();
+        this.directory = Paths.get(directory);
+        this.fetchSize = fetchSize;
+        this.maxRowsPerFile = maxRowsPerFile;
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * 처음부터 다시 내보내고, 다 쓰고 나면 기존 스냅샷을 새 파일로 바꾼다.
+     * 바꿔 넣는 동안 디렉터리를 연 쪽은 이전 파일과 새 파일을 같이 볼 수 있다.
+     * @return 새로 만든 파일
+     */
+    public List<Path> exportFull() {
+        return exportFull(directory);
+    }
+
+    public synchronized List<Path> exportFull(Path directory) {
+        Path staging = directory.resolve(STAGING);
+        // 이전에 실패한 내보내기가 남긴 파일
+        clear(staging);
+        List<Path> staged;
+        try {
+            staged = export(staging);
+        } catch (RuntimeException e) {
+            clear(staging);
+            throw e;
+        }
+
+        List<Path> previous = MemberSnapshots.files(directory);
+        List<Path> files = new ArrayList<>(staged.size());
+        try {
+            for (Path file : staged) {
+                Path target = directory.resolve(file.getFileName());
+                Files.move(file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                files.add(target);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (Path file : previous) {
+            if (!files.contains(file)) {
+                delete(file);
+            }
+        }
+        clear(staging);
+        return files;
+    }
+
+    /**
+     * 마지막 스냅샷 이후에 생긴 회원만 내보낸다. 스냅샷이 없으면 전체
+     * @return 새로 만든 파일 (새 회원이 없으면 비어 있다)
+     */
+    public List<Path> exportIncremental() {
+        return exportIncremental(directory);
+    }
+
+    public List<Path> exportIncremental(Path directory) {
+        return export(directory);
+    }
+
+    private synchronized List<Path> export(Path directory) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (shardTemplate == null) {
+            return readTemplate.execute(status -> exportRange(directory, PREFIX));
+        }
+        // 샤드마다 member_id 범위가 따로 있으므로 파일도 샤드별로 이어 간다.
+        List<Path> files = new ArrayList<>();
+        for (int shard = 0; shard < shardTemplate.shardCount(); shard++) {
+            String prefix = prefix(shard);
+            files.addAll(onShard(shard, () -> exportRange(directory, prefix)));
+        }
+        return files;
+    }
+
+    @Override
+    public String name() {
+        return "member-snapshot";
+    }
+
+    /**
+     * 이미 내보낸 범위 안에서 늦게 커밋된 회원을 내보낸다.
+     * 샤딩 중에는 ChangeFeedRelay 가 샤드를 지정해서 호출하므로 지금 샤드의 파일 범위와 비교한다.
+     */
+    @Override
+    public synchronized void accept(List<ChangeRecord> changes) {
+        List<Long> inserted = changes.stream()
+                .filter(change -> "Member".equals(change.getEntityType()) && change.getOperation() == ChangeOperation.INSERT)
+                .map(ChangeRecord::getIdFrom)
+                .collect(Collectors.toList());
+        if (inserted.isEmpty()) {
+            return;
+        }
+        String prefix = shardTemplate == null ? PREFIX : prefix(ShardContext.current());
+        long exportedUpTo = MemberSnapshots.lastMemberId(directory, prefix).orElse(0L);
+        TreeSet<Long> late = inserted.stream()
+                .filter(memberId -> memberId <= exportedUpTo)
+                .collect(Collectors.toCollection(TreeSet::new));
+        if (late.isEmpty()) {
+            return;
+        }
+        // 범위 증분이 읽기 전에 이미 커밋된 회원(또는 다시 전달된 변경)은 파일에 있다.
+        try (MemberSnapshots snapshots = MemberSnapshots.open(directory)) {
+            late.removeIf(snapshots::contains);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!late.isEmpty()) {
+            exportLate(prefix, late);
+        }
+    }
+
+    private void exportLate(String prefix, TreeSet<Long> memberIds) {
+        RangeExport export = new RangeExport(directory, prefix + LATE, memberIds.first() - 1);
+        try {
+            String sql = String.format(SnapshotSql.MEMBERS_BY_IDS, String.join(",", Collections.nCopies(memberIds.size(), "?")));
+            // 그 사이 삭제된 회원은 조회되지 않으므로 파일의 마지막 id 로 닫는다.
+            jdbcTemplate.query(sql, export, memberIds.toArray());
+            if (export.writer != null) {
+                export.finish(export.writer.lastMemberId());
+            }
+        } finally {
+            export.close();
+        }
+        log.info("member snapshot {} late members {} -> {}", prefix, memberIds, export.files);
+    }
+
+    private static String prefix(int shard) {
+        return PREFIX + "-shard" + shard;
+    }
+
+    private <T> T onShard(int shard, Supplier<T> callback) {
+        return shardTemplate.read(shard, callback);
+    }
+
+    private List<Path> exportRange(Path directory, String prefix) {
+        long fromId = MemberSnapshots.lastMemberId(directory, prefix).orElse(0L);
+        Long maxId = jdbcTemplate.queryForObject(SnapshotSql.MAX_MEMBER_ID, Long.class);
+        if (maxId == null || maxId <= fromId) {
+            return List.of();
+        }
+
+        long started = System.nanoTime();
+        RangeExport export = new RangeExport(directory, prefix, fromId);
+        try {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SnapshotSql.MEMBERS_IN_RANGE,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                ps.setLong(1, fromId);
+                ps.setLong(2, maxId);
+                return ps;
+            }, export);
+            export.finish(maxId);
+        } finally {
+            export.close();
+        }
+        log.info("member snapshot {} ({}, {}] -> {} files in {} ms", prefix, fromId, maxId,
+                export.files.size(), (System.nanoTime() - started) / 1_000_000);
+        return export.files;
+    }
+
+    private Map<Long, String> teamNames() {
+        Map<Long, String> teamNames = new HashMap<>();
+        jdbcTemplate.query(SnapshotSql.TEAMS, (RowCallbackHandler) rs -> teamNames.put(rs.getLong(1), rs.getString(2)));
+        return teamNames;
+    }
+
+    /**
+     * 디렉터리 안의 파일과 디렉터리를 지운다. (하위 디렉터리는 만들지 않는다)
+     */
+    private static void clear(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(MemberSnapshotExporter::delete);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        delete(directory);
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 한 범위의 커서를 받아 max-rows-per-file 마다 파일을 나눠 쓴다.
+     */
+    private class RangeExport implements RowCallbackHandler {
+        private final Path directory;
+        private final String prefix;
+        private final List<Path> files = new ArrayList<>();
+        private long fromId;
+        private MemberSnapshotWriter writer;
+
+        RangeExport(Path directory, String prefix, long fromId) {
+            this.directory = directory;
+            this.prefix = prefix;
+            this.fromId = fromId;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                if (writer == null) {
+                    writer = new MemberSnapshotWriter(directory, prefix + "-" + (fromId + 1));
+                }
+                writer.add(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getObject(4, Long.class));
+                if (writer.rows() >= maxRowsPerFile) {
+                    finish(writer.lastMemberId());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * 지금 파일을 (fromId, toId] 로 완성한다.
+         */
+        void finish(long toId) {
+            if (writer == null) {
+                return;
+            }
+            try {
+                Path file = directory.resolve(MemberSnapshots.fileName(prefix, fromId + 1, toId));
+                writer.finish(file, teamNames());
+                files.add(file);
+                writer.close();
+                writer = null;
+                fromId = toId;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void close() {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    log.warn("member snapshot temp files not removed : {}", directory, e);
+                }
+            }
+        }
+    }
+}
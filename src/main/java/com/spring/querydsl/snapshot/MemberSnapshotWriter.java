@@ -0,0 +1,219 @@
+package com.spring.querydsl.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 회원 행을 받아 컬럼별 임시 파일에 이어 쓰고, finish 에서 하나의 스냅샷 파일로 합친다. (형식은 MemberSnapshot)
+ * 행을 메모리에 모으지 않으므로 커서로 읽으면서 바로 넘기면 된다.
+ * 완성된 파일은 .tmp 에서 이름을 바꿔 만들어지므로 읽는 쪽은 쓰는 중인 파일을 보지 않는다.
+ */
+class MemberSnapshotWriter implements Closeable {
+
+    /**
+     * 합치는 중인 파일, 완성되면 target 으로 이름을 바꾼다.
+     */
+    private final Path assembling;
+    private final ColumnOutput memberIds;
+    private final ColumnOutput ages;
+    private final ColumnOutput teamCodes;
+    private final ColumnOutput usernameOffsets;
+    private final ColumnOutput usernameBytes;
+    /**
+     * team_id -> 사전 코드 (처음 나온 순서)
+     */
+    private final Map<Long, Integer> codes = new LinkedHashMap<>();
+    private int rows;
+    private long minId = Long.MAX_VALUE;
+    private long maxId = Long.MIN_VALUE;
+
+    /**
+     * @param name 임시 파일 이름에 쓰인다. (디렉터리 안에서 겹치지 않아야 한다)
+     */
+    MemberSnapshotWriter(Path directory, String name) throws IOException {
+        this.assembling = directory.resolve(name + ".tmp");
+        this.memberIds = new ColumnOutput(directory, name, "member_id");
+        this.ages = new ColumnOutput(directory, name, "age");
+        this.teamCodes = new ColumnOutput(directory, name, "team");
+        this.usernameOffsets = new ColumnOutput(directory, name, "username_offset");
+        this.usernameBytes = new ColumnOutput(directory, name, "username");
+        usernameOffsets.putInt(0);
+    }
+
+    /**
+     * member_id 오름차순으로 넘긴다. username 이 null 이면 빈 문자열로 쓴다.
+     */
+    void add(long memberId, String username, int age, Long teamId) throws IOException {
+        memberIds.putLong(memberId);
+        ages.putInt(age);
+        teamCodes.putInt(teamId == null ? MemberSnapshot.NO_TEAM : codes.computeIfAbsent(teamId, key -> codes.size()));
+        if (username != null) {
+            usernameBytes.put(username.getBytes(StandardCharsets.UTF_8));
+        }
+        usernameOffsets.putInt(Math.toIntExact(usernameBytes.size()));
+        rows++;
+        minId = Math.min(minId, memberId);
+        maxId = Math.max(maxId, memberId);
+    }
+
+    /**
+     * 지금까지 나온 team_id (사전 순서)
+     */
+    Set<Long> teamIds() {
+        return codes.keySet();
+    }
+
+    /**
+     * @param target 완성된 스냅샷 파일
+     * @param teamNames team_id -> 팀 이름, 행에 나온 team_id 의 이름 (없으면 빈 문자열)
+     */
+    void finish(Path target, Map<Long, String> teamNames) throws IOException {
+        List<ColumnOutput> columns = List.of(memberIds, ages, teamCodes, usernameOffsets, usernameBytes);
+        for (ColumnOutput column : columns) {
+            column.flush();
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(MemberSnapshot.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MemberSnapshot.MAGIC)
+                .putInt(MemberSnapshot.VERSION)
+                .putInt(rows)
+                .putInt(codes.size())
+                .putLong(rows == 0 ? 0 : minId)
+                .putLong(rows == 0 ? 0 : maxId)
+                .putLong(usernameBytes.size());
+        header.clear();
+
+        List<byte[]> names = new ArrayList<>(codes.size());
+        int dictionarySize = 0;
+        for (Long teamId : codes.keySet()) {
+            byte[] name = teamNames.getOrDefault(teamId, "").getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            dictionarySize += Long.BYTES + Integer.BYTES + name.length;
+        }
+        ByteBuffer dictionary = ByteBuffer.allocate(dictionarySize).order(ByteOrder.LITTLE_ENDIAN);
+        int code = 0;
+        for (Long teamId : codes.keySet()) {
+            byte[] name = names.get(code++);
+            dictionary.putLong(teamId).putInt(name.length).put(name);
+        }
+        dictionary.flip();
+
+        try (FileChannel out = FileChannel.open(assembling,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(out, header);
+            for (ColumnOutput column : columns) {
+                column.transferTo(out);
+            }
+            writeFully(out, dictionary);
+            out.force(true);
+        }
+        Files.move(assembling, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    /**
+     * 마지막으로 쓴 member_id
+     */
+    long lastMemberId() {
+        return maxId;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (ColumnOutput column : List.of(memberIds, ages, teamCodes, usernameOffsets, usernameBytes)) {
+            column.close();
+        }
+        Files.deleteIfExists(assembling);
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * 컬럼 하나의 임시 파일 (little endian)
+     */
+    private static class ColumnOutput implements Closeable {
+        private final Path path;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        private long size;
+
+        ColumnOutput(Path directory, String name, String column) throws IOException {
+            this.path = directory.resolve(name + "." + column + ".tmp");
+            this.channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+            size += Long.BYTES;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+            size += Integer.BYTES;
+        }
+
+        void put(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+            size += bytes.length;
+        }
+
+        long size() {
+            return size;
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            writeFully(channel, buffer);
+            buffer.clear();
+        }
+
+        void transferTo(FileChannel out) throws IOException {
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+            Files.deleteIfExists(path);
+        }
+    }
+}
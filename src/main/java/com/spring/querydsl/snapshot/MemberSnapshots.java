@@ -0,0 +1,132 @@
+package com.spring.querydsl.snapshot;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 디렉터리의 스냅샷 파일(전체 + 증분)을 모두 열어 하나처럼 집계한다.
+ * 오프라인 분석용이라 DB 에는 접근하지 않는다.
+ */
+public class MemberSnapshots implements AutoCloseable {
+
+    static final String EXTENSION = ".mcol";
+    /**
+     * {prefix}-{fromId}-{toId}.mcol
+     */
+    private static final Pattern FILE_NAME = Pattern.compile("(.+)-(\\d+)-(\\d+)\\" + EXTENSION);
+
+    private final List<MemberSnapshot> snapshots;
+
+    private MemberSnapshots(List<MemberSnapshot> snapshots) {
+        this.snapshots = snapshots;
+    }
+
+    public static MemberSnapshots open(Path directory) throws IOException {
+        List<MemberSnapshot> snapshots = new ArrayList<>();
+        try {
+            for (Path file : files(directory)) {
+                snapshots.add(MemberSnapshot.open(file));
+            }
+        } catch (IOException | RuntimeException e) {
+            for (MemberSnapshot snapshot : snapshots) {
+                snapshot.close();
+            }
+            throw e;
+        }
+        snapshots.sort(Comparator.comparingLong(MemberSnapshot::minId));
+        return new MemberSnapshots(snapshots);
+    }
+
+    public List<MemberSnapshot> snapshots() {
+        return Collections.unmodifiableList(snapshots);
+    }
+
+    public boolean contains(long memberId) {
+        return snapshots.stream().anyMatch(snapshot -> snapshot.contains(memberId));
+    }
+
+    public long count(MemberSearchCondition condition) {
+        long[] count = new long[1];
+        for (MemberSnapshot snapshot : snapshots) {
+            snapshot.forEachMatch(condition, row -> count[0]++);
+        }
+        return count[0];
+    }
+
+    public OptionalDouble averageAge(MemberSearchCondition condition) {
+        long[] countAndSum = new long[2];
+        for (MemberSnapshot snapshot : snapshots) {
+            snapshot.forEachMatch(condition, row -> {
+                countAndSum[0]++;
+                countAndSum[1] += snapshot.age(row);
+            });
+        }
+        return countAndSum[0] == 0 ? OptionalDouble.empty() : OptionalDouble.of((double) countAndSum[1] / countAndSum[0]);
+    }
+
+    /**
+     * 팀 이름별 회원 수 (팀 이름 순). 팀이 없는 회원은 세지 않는다.
+     */
+    public Map<String, Long> countByTeam(MemberSearchCondition condition) {
+        Map<String, Long> counts = new TreeMap<>();
+        for (MemberSnapshot snapshot : snapshots) {
+            snapshot.forEachMatch(condition, row -> {
+                String teamName = snapshot.teamName(row);
+                if (teamName != null) {
+                    counts.merge(teamName, 1L, Long::sum);
+                }
+            });
+        }
+        return counts;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (MemberSnapshot snapshot : snapshots) {
+            snapshot.close();
+        }
+    }
+
+    /**
+     * 디렉터리에 있는 prefix 스냅샷들이 덮는 마지막 member_id
+     */
+    static OptionalLong lastMemberId(Path directory, String prefix) {
+        return files(directory).stream()
+                .map(file -> FILE_NAME.matcher(file.getFileName().toString()))
+                .filter(matcher -> matcher.matches() && matcher.group(1).equals(prefix))
+                .mapToLong(matcher -> Long.parseLong(matcher.group(3)))
+                .max();
+    }
+
+    static String fileName(String prefix, long fromId, long toId) {
+        return prefix + "-" + fromId + "-" + toId + EXTENSION;
+    }
+
+    static List<Path> files(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> FILE_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.spring.querydsl.snapshot;
+
+/**
+ * 스냅샷 내보내기 SQL
+ */
+final class SnapshotSql {
+
+    static final String MAX_MEMBER_ID = "select max(member_id) from member";
+
+    static final String MEMBERS_IN_RANGE =
+            "select member_id, username, age, team_id from member" +
+            " where member_id > ? and member_id <= ?" +
+            " order by member_id";
+
+    /**
+     * %s : 바인드 변수 목록
+     */
+    static final String MEMBERS_BY_IDS =
+            "select member_id, username, age, team_id from member" +
+            " where member_id in (%s)" +
+            " order by member_id";
+
+    static final String TEAMS = "select team_id, name from team";
+
+    private SnapshotSql() {
+    }
+}
@@ -0,0 +1,97 @@
+package com.spring.querydsl.sql;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.dto.MemberTeamDto;
+import com.spring.querydsl.dto.QMemberTeamDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.spring.querydsl.sql.SMember.member;
+import static com.spring.querydsl.sql.STeam.team;
+import static org.springframework.util.StringUtils.isEmpty;
+
+/**
+ * MemberSearchCondition 조회를 JPQL 변환 / 엔티티 메타모델 / 결과 변환 없이 querydsl-sql 로 JDBC 에서 바로 실행한다.
+ * 조건과 결과는 MemberRepositoryImpl 의 member left join team 조회와 같다.
+ * querydsl.sql-path.methods 에 적은 리포지토리 메서드만 이 경로를 쓴다.
+ * SpringConnectionProvider 는 트랜잭션 밖에서는 커넥션을 주지 않으므로 읽기 전용 트랜잭션에서 실행한다. (바깥 트랜잭션이 있으면 참여)
+ */
+@Component
+@ConditionalOnProperty(name = "querydsl.sql-path.enabled", havingValue = "true")
+public class MemberSqlReader {
+
+    private final SQLQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTemplate;
+    private final Set<String> methods;
+
+    public MemberSqlReader(SQLQueryFactory queryFactory,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${querydsl.sql-path.methods:}") String[] methods) {
+        this.queryFactory = queryFactory;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.methods = Arrays.stream(methods)
+                .map(String::trim)
+                .filter(method -> !method.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    public boolean serves(String method) {
+        return methods.contains(method);
+    }
+
+    /**
+     * offset 부터 limit 건 (limit 이 null 이면 전체)
+     */
+    public List<MemberTeamDto> content(MemberSearchCondition condition, long offset, Long limit) {
+        SQLQuery<MemberTeamDto> query = queryFactory
+                .select(new QMemberTeamDto(
+                        member.memberId,
+                        member.username,
+                        member.age,
+                        team.teamId,
+                        team.name))
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .where(predicates(condition));
+        if (offset > 0) {
+            query.offset(offset);
+        }
+        if (limit != null) {
+            query.limit(limit);
+        }
+        return readOnlyTemplate.execute(status -> query.fetch());
+    }
+
+    public long count(MemberSearchCondition condition) {
+        SQLQuery<Long> query = queryFactory
+                .select(member.memberId)
+                .from(member);
+        if (!isEmpty(condition.getTeamName())) {
+            query.leftJoin(team).on(member.teamId.eq(team.teamId));
+        }
+        SQLQuery<Long> counted = query.where(predicates(condition));
+        Long count = readOnlyTemplate.execute(status -> counted.fetchCount());
+        return count == null ? 0 : count;
+    }
+
+    private BooleanExpression[] predicates(MemberSearchCondition condition) {
+        return new BooleanExpression[]{
+                isEmpty(condition.getUsername()) ? null : member.username.eq(condition.getUsername()),
+                isEmpty(condition.getTeamName()) ? null : team.name.eq(condition.getTeamName()),
+                condition.getAgeGoe() == null ? null : member.age.goe(condition.getAgeGoe()),
+                condition.getAgeLoe() == null ? null : member.age.loe(condition.getAgeLoe())
+        };
+    }
+}
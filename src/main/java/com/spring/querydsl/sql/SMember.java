@@ -0,0 +1,47 @@
+package com.spring.querydsl.sql;
+
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.ForeignKey;
+import com.querydsl.sql.PrimaryKey;
+import com.querydsl.sql.RelationalPathBase;
+
+import java.sql.Types;
+
+import static com.querydsl.core.types.PathMetadataFactory.forVariable;
+
+/**
+ * member 테이블의 querydsl-sql Q 타입 (MetaDataExporter 생성 형식)
+ * 테이블은 하이버네이트 ddl-auto 가 Member 엔티티로 만들므로 엔티티 매핑을 바꾸면 함께 고친다.
+ */
+public class SMember extends RelationalPathBase<SMember> {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final SMember member = new SMember("m");
+
+    public final NumberPath<Long> memberId = createNumber("memberId", Long.class);
+    public final StringPath username = createString("username");
+    public final StringPath usernameNormalized = createString("usernameNormalized");
+    public final NumberPath<Integer> age = createNumber("age", Integer.class);
+    public final NumberPath<Long> version = createNumber("version", Long.class);
+    public final NumberPath<Long> teamId = createNumber("teamId", Long.class);
+
+    public final PrimaryKey<SMember> primary = createPrimaryKey(memberId);
+    public final ForeignKey<STeam> teamFk = createForeignKey(teamId, "TEAM_ID");
+
+    public SMember(String variable) {
+        super(SMember.class, forVariable(variable), "PUBLIC", "MEMBER");
+        addMetadata();
+    }
+
+    public void addMetadata() {
+        addMetadata(memberId, ColumnMetadata.named("MEMBER_ID").withIndex(1).ofType(Types.BIGINT).withSize(19).notNull());
+        addMetadata(age, ColumnMetadata.named("AGE").withIndex(2).ofType(Types.INTEGER).withSize(10).notNull());
+        addMetadata(username, ColumnMetadata.named("USERNAME").withIndex(3).ofType(Types.VARCHAR).withSize(255));
+        addMetadata(usernameNormalized, ColumnMetadata.named("USERNAME_NORMALIZED").withIndex(4).ofType(Types.VARCHAR).withSize(255));
+        addMetadata(version, ColumnMetadata.named("VERSION").withIndex(5).ofType(Types.BIGINT).withSize(19));
+        addMetadata(teamId, ColumnMetadata.named("TEAM_ID").withIndex(6).ofType(Types.BIGINT).withSize(19));
+    }
+}
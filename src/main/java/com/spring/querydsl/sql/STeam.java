@@ -0,0 +1,38 @@
+package com.spring.querydsl.sql;
+
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.PrimaryKey;
+import com.querydsl.sql.RelationalPathBase;
+
+import java.sql.Types;
+
+import static com.querydsl.core.types.PathMetadataFactory.forVariable;
+
+/**
+ * team 테이블의 querydsl-sql Q 타입 (MetaDataExporter 생성 형식)
+ */
+public class STeam extends RelationalPathBase<STeam> {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final STeam team = new STeam("t");
+
+    public final NumberPath<Long> teamId = createNumber("teamId", Long.class);
+    public final StringPath name = createString("name");
+    public final NumberPath<Long> version = createNumber("version", Long.class);
+
+    public final PrimaryKey<STeam> primary = createPrimaryKey(teamId);
+
+    public STeam(String variable) {
+        super(STeam.class, forVariable(variable), "PUBLIC", "TEAM");
+        addMetadata();
+    }
+
+    public void addMetadata() {
+        addMetadata(teamId, ColumnMetadata.named("TEAM_ID").withIndex(1).ofType(Types.BIGINT).withSize(19).notNull());
+        addMetadata(name, ColumnMetadata.named("NAME").withIndex(2).ofType(Types.VARCHAR).withSize(255));
+        addMetadata(version, ColumnMetadata.named("VERSION").withIndex(3).ofType(Types.BIGINT).withSize(19));
+    }
+}
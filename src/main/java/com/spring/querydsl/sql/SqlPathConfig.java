@@ -0,0 +1,51 @@
+package com.spring.querydsl.sql;
+
+import com.querydsl.sql.H2Templates;
+import com.querydsl.sql.SQLBaseListener;
+import com.querydsl.sql.SQLListenerContext;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.spring.SpringConnectionProvider;
+import com.querydsl.sql.spring.SpringExceptionTranslator;
+import com.spring.querydsl.query.QueryDeadline;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * querydsl.sql-path.enabled=true 일 때 querydsl-sql 조회용 SQLQueryFactory
+ * 커넥션은 DataSourceUtils 로 얻으므로 JPA 트랜잭션이 있으면 같은 커넥션을 쓴다. (트랜잭션 밖에서는 쓸 수 없다, MemberSqlReader)
+ */
+@Configuration
+@ConditionalOnProperty(name = "querydsl.sql-path.enabled", havingValue = "true")
+public class SqlPathConfig {
+
+    @Bean
+    public SQLQueryFactory sqlQueryFactory(DataSource dataSource) {
+        com.querydsl.sql.Configuration configuration = new com.querydsl.sql.Configuration(new H2Templates());
+        configuration.setExceptionTranslator(new SpringExceptionTranslator());
+        configuration.addListener(new DeadlineListener());
+        return new SQLQueryFactory(configuration, new SpringConnectionProvider(dataSource));
+    }
+
+    /**
+     * MemberQueryExecutor 로 실행 중이면 남은 시간을 statement 타임아웃(초 단위, 올림)으로 건다.
+     */
+    static class DeadlineListener extends SQLBaseListener {
+
+        @Override
+        public void prepared(SQLListenerContext context) {
+            Integer remainingMillis = QueryDeadline.remainingMillis();
+            if (remainingMillis == null || context.getPreparedStatement() == null) {
+                return;
+            }
+            try {
+                context.getPreparedStatement().setQueryTimeout((remainingMillis + 999) / 1000);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.spring.querydsl;
+
+import com.spring.querydsl.changefeed.ChangeFeedBulk;
+import com.spring.querydsl.changefeed.ChangeFeedConsumer;
+import com.spring.querydsl.changefeed.ChangeFeedRelay;
+import com.spring.querydsl.changefeed.ChangeRecord;
+import com.spring.querydsl.entity.ChangeOperation;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.repository.MemberRepository;
+import com.spring.querydsl.repository.TeamRepository;
+import com.spring.querydsl.shard.ShardTemplate;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static com.spring.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SeededTest(properties = {
+        "querydsl.change-feed.enabled=true",
+        "querydsl.change-feed.poll-interval-ms=3600000"})
+@CommittedData
+public class ChangeFeedTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        RecordingConsumer recordingConsumer() {
+            return new RecordingConsumer();
+        }
+    }
+
+    static class RecordingConsumer implements ChangeFeedConsumer {
+        final List<ChangeRecord> received = new CopyOnWriteArrayList<>();
+        volatile boolean failNext;
+
+        @Override
+        public String name() {
+            return "recording";
+        }
+
+        @Override
+        public void accept(List<ChangeRecord> changes) {
+            if (failNext) {
+                failNext = false;
+                throw new IllegalStateException("consumer down");
+            }
+            received.addAll(changes);
+        }
+    }
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    ChangeFeedBulk changeFeedBulk;
+
+    @Autowired
+    ChangeFeedRelay relay;
+
+    @Autowired
+    RecordingConsumer consumer;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ObjectProvider<ShardTemplate> shardTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    Team savedTeam;
+    Member savedMember;
+
+    @BeforeEach
+    public void before() {
+        savedTeam = teamRepository.save(new Team("changeFeedTeam"));
+        savedMember = memberRepository.save(new Member("changeFeed", 10, savedTeam));
+        relay.poll();
+        consumer.received.clear();
+    }
+
+    @Test
+    public void entityChangesAreDeliveredInOrder() throws Exception {
+        Member found = memberRepository.findById(savedMember.getId()).get();
+        found.setAge(11);
+        memberRepository.save(found);
+        memberRepository.deleteById(savedMember.getId());
+        savedMember = memberRepository.save(new Member("changeFeed2", 20, savedTeam));
+
+        relay.poll();
+
+        assertThat(changesOf("Member"))
+                .extracting(ChangeRecord::getOperation)
+                .containsExactly(ChangeOperation.UPDATE, ChangeOperation.DELETE, ChangeOperation.INSERT);
+        assertThat(consumer.received)
+                .extracting(ChangeRecord::getId)
+                .isSorted();
+    }
+
+    @Test
+    public void bulkUpdateRecordsAffectedIdRange() throws Exception {
+        long affected = changeFeedBulk.update(member, member.id, member.username.eq("changeFeed"),
+                update -> update.set(member.age, member.age.add(1)));
+
+        relay.poll();
+
+        assertThat(affected).isEqualTo(1);
+        ChangeRecord change = consumer.received.get(0);
+        assertThat(change.getOperation()).isEqualTo(ChangeOperation.BULK_UPDATE);
+        assertThat(change.covers(savedMember.getId())).isTrue();
+    }
+
+    @Test
+    public void failedBatchIsRedelivered() throws Exception {
+        memberRepository.deleteById(savedMember.getId());
+        savedMember = memberRepository.save(new Member("changeFeed3", 30, savedTeam));
+
+        consumer.failNext = true;
+        relay.poll();
+        assertThat(consumer.received).isEmpty();
+
+        relay.poll();
+        assertThat(changesOf("Member"))
+                .extracting(ChangeRecord::getOperation)
+                .containsExactly(ChangeOperation.DELETE, ChangeOperation.INSERT);
+    }
+
+    @Test
+    public void uncommittedLowerIdHoldsBackLaterChanges() throws Exception {
+        try (Connection open = dataSource.getConnection()) {
+            open.setAutoCommit(false);
+            // 먼저 id 를 받고 아직 커밋하지 않은 트랜잭션
+            try (PreparedStatement ps = open.prepareStatement(
+                    "insert into change_event (entity_type, operation, id_from, id_to, created_at) values ('Member', 'UPDATE', ?, ?, ?)")) {
+                ps.setLong(1, savedMember.getId());
+                ps.setLong(2, savedMember.getId());
+                ps.setLong(3, System.currentTimeMillis());
+                ps.executeUpdate();
+            }
+            memberRepository.deleteById(savedMember.getId());
+
+            relay.poll();
+            assertThat(consumer.received).isEmpty();
+
+            open.commit();
+        }
+        relay.poll();
+
+        assertThat(changesOf("Member"))
+                .extracting(ChangeRecord::getOperation)
+                .containsExactly(ChangeOperation.UPDATE, ChangeOperation.DELETE);
+    }
+
+    @Test
+    public void lastDeliveredChangeIsKeptAsRestartWatermark() throws Exception {
+        memberRepository.deleteById(savedMember.getId());
+        relay.poll();
+
+        Long remaining = jdbcTemplate.queryForObject("select count(*) from change_event", Long.class);
+        assertThat(remaining).isEqualTo(1);
+        assertThat(changesOf("Member")).extracting(ChangeRecord::getOperation).containsExactly(ChangeOperation.DELETE);
+    }
+
+    @Test
+    public void everyInstanceReceivesEachChange() throws Exception {
+        RecordingConsumer otherConsumer = new RecordingConsumer();
+        ChangeFeedRelay other = otherInstance(otherConsumer);
+        other.poll();
+        otherConsumer.received.clear();
+
+        memberRepository.deleteById(savedMember.getId());
+        relay.poll();
+        other.poll();
+
+        assertThat(changesOf("Member")).extracting(ChangeRecord::getOperation).containsExactly(ChangeOperation.DELETE);
+        assertThat(otherConsumer.received).extracting(ChangeRecord::getOperation).containsExactly(ChangeOperation.DELETE);
+    }
+
+    @Test
+    public void expiredInstanceDoesNotHoldBackCleanup() throws Exception {
+        ChangeFeedRelay other = otherInstance(new RecordingConsumer());
+        other.poll();
+        jdbcTemplate.update("update change_feed_offset set heartbeat_at = 0 where instance_id = ?", other.instanceId());
+
+        memberRepository.deleteById(savedMember.getId());
+        relay.poll();
+
+        Long remaining = jdbcTemplate.queryForObject("select count(*) from change_event", Long.class);
+        assertThat(remaining).isEqualTo(1);
+        Long otherOffsets = jdbcTemplate.queryForObject(
+                "select count(*) from change_feed_offset where instance_id = ?", Long.class, other.instanceId());
+        assertThat(otherOffsets).isZero();
+    }
+
+    private ChangeFeedRelay otherInstance(ChangeFeedConsumer consumer) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("otherConsumer", consumer);
+        return new ChangeFeedRelay(jdbcTemplate, shardTemplate, beanFactory.getBeanProvider(ChangeFeedConsumer.class),
+                meterRegistry, 500, 1000, "other", 60000);
+    }
+
+    private List<ChangeRecord> changesOf(String entityType) {
+        return consumer.received.stream()
+                .filter(change -> change.getEntityType().equals(entityType))
+                .collect(Collectors.toList());
+    }
+}
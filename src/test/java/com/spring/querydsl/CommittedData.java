@@ -0,0 +1,18 @@
+package com.spring.querydsl;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * @SeededTest 중 커밋된 데이터만 보는 기능(커밋 리스너, outbox, 별도 트랜잭션 flush, 스냅샷 내보내기 등)의 테스트
+ * @Transactional 롤백 대신 테스트 데이터를 커밋하고, 테스트마다 끝나면 SeedFixture#restore 로 시드 직후 상태로 되돌린다.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(SeedFixture.RestoreAfterEach.class)
+public @interface CommittedData {
+}
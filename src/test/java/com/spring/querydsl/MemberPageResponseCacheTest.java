@@ -0,0 +1,168 @@
+package com.spring.querydsl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.repository.MemberRepository;
+import com.spring.querydsl.repository.TeamRepository;
+import com.spring.querydsl.service.MemberWriteBehindBuffer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SeededTest(properties = {
+        "querydsl.response-cache.enabled=true",
+        "querydsl.write-behind.enabled=true",
+        "querydsl.write-behind.flush-interval-ms=3600000"})
+@CommittedData
+@AutoConfigureMockMvc
+public class MemberPageResponseCacheTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberWriteBehindBuffer writeBehindBuffer;
+
+    @Test
+    public void secondRequestIsServedFromCache() throws Exception {
+        String body = query("teamName", "teamA");
+
+        mockMvc.perform(get("/v3/members").param("teamName", "teamA"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andExpect(content().json(body, true));
+    }
+
+    @Test
+    public void committedWriteInvalidates() throws Exception {
+        query("ageGoe", "10");
+        memberRepository.save(new Member("member5", 50));
+
+        MvcResult result = mockMvc.perform(get("/v3/members").param("ageGoe", "10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(jsonPath("$.totalElements").value(5));
+    }
+
+    @Test
+    public void committedWriteToAnotherTeamKeepsEntry() throws Exception {
+        String body = query("teamName", "teamA");
+        inTransaction(() -> {
+            Team teamB = memberRepository.findByUsername("member3").get(0).getTeam();
+            memberRepository.save(new Member("member5", 50, teamB));
+        });
+
+        mockMvc.perform(get("/v3/members").param("teamName", "teamA"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(content().json(body, true));
+    }
+
+    @Test
+    public void memberLeavingTeamInvalidatesOldTeam() throws Exception {
+        query("teamName", "teamA");
+        inTransaction(() -> {
+            Team teamB = memberRepository.findByUsername("member3").get(0).getTeam();
+            memberRepository.findByUsername("member1").get(0).changeTeam(teamB);
+        });
+
+        MvcResult result = mockMvc.perform(get("/v3/members").param("teamName", "teamA"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(jsonPath("$.totalElements").value(1));
+    }
+
+    @Test
+    public void newTeamWithCachedNameInvalidates() throws Exception {
+        query("teamName", "teamC");
+        inTransaction(() -> {
+            Team teamC = teamRepository.save(new Team("teamC"));
+            memberRepository.save(new Member("member5", 50, teamC));
+        });
+
+        MvcResult result = mockMvc.perform(get("/v3/members").param("teamName", "teamC"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(jsonPath("$.totalElements").value(1));
+    }
+
+    @Test
+    public void pendingWriteBehindBypassesCacheUntilFlushed() throws Exception {
+        query("teamName", "teamA");
+        Long memberId = memberRepository.findByUsername("member1").get(0).getId();
+        writeBehindBuffer.updateAge(memberId, 11);
+
+        // 대기 중인 값은 보관된 응답에 없으므로 조회해서 덮어쓴다.
+        MvcResult pending = mockMvc.perform(get("/v3/members").param("teamName", "teamA"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(jsonPath("$.content[0].age").value(11));
+
+        // flush 가 커밋되면 이전 응답은 버려지고 반영된 값으로 다시 캐시된다.
+        writeBehindBuffer.flush();
+        String body = query("teamName", "teamA");
+        mockMvc.perform(get("/v3/members").param("teamName", "teamA"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(jsonPath("$.content[0].age").value(11))
+                .andExpect(content().json(body, true));
+    }
+
+    @Test
+    public void cborRequestIsNotServedFromJsonCache() throws Exception {
+        query("teamName", "teamA");
+
+        MvcResult result = mockMvc.perform(get("/v3/members").param("teamName", "teamA").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode page = new ObjectMapper(new CBORFactory()).readTree(body);
+        assertThat(page.get("totalElements").asLong()).isEqualTo(2);
+        assertThat(page.get("content").get("username")).extracting(JsonNode::asText).containsExactly("member1", "member2");
+        assertThat(page.get("content").get("teamNames")).extracting(JsonNode::asText).containsExactly("teamA");
+    }
+
+    private void inTransaction(Runnable work) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> work.run());
+    }
+
+    private String query(String name, String value) throws Exception {
+        MvcResult result = mockMvc.perform(get("/v3/members").param(name, value))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,111 @@
+package com.spring.querydsl;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.dto.MemberTeamDto;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.repository.MemberRepository;
+import com.spring.querydsl.repository.UsernameExpressions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static com.spring.querydsl.entity.QMember.member;
+import static com.spring.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * 팀 차원을 끄고 team 조인 경로로 조회한다. (팀 차원 경로는 TeamDimensionTest)
+ */
+@SeededTest(properties = "querydsl.team-dimension.enabled=false")
+@Transactional
+public class MemberRepositoryTest {
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void existsByCondition() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(35);
+        assertThat(memberRepository.exists(condition)).isTrue();
+
+        condition.setAgeGoe(50);
+        assertThat(memberRepository.exists(condition)).isFalse();
+    }
+
+    @Test
+    public void existsByPredicate() throws Exception {
+        assertThat(memberRepository.exists(team.name.eq("teamA").and(member.age.gt(15)))).isTrue();
+        assertThat(memberRepository.exists(member.username.eq("member9"))).isFalse();
+    }
+
+    @Test
+    public void existsByPredicateOnMissingTeam() throws Exception {
+        memberRepository.save(new Member("noTeam", 50));
+
+        assertThat(memberRepository.exists(member.username.eq("noTeam").and(team.name.isNull()))).isTrue();
+        assertThat(memberRepository.exists(member.username.eq("noTeam").and(team.name.ne("teamA")))).isFalse();
+    }
+
+    @Test
+    public void existsIgnoreCaseUsesNormalizedColumn() throws Exception {
+        assertThat(UsernameExpressions.normalize(member.username.upper().eq("MEMBER1")))
+                .isEqualTo(member.usernameNormalized.eq("member1"));
+        assertThat(memberRepository.exists(member.username.upper().eq("MEMBER1"))).isTrue();
+        assertThat(memberRepository.exists(member.username.startsWithIgnoreCase("MEM").and(member.age.gt(35)))).isTrue();
+        assertThat(memberRepository.exists(member.username.equalsIgnoreCase("MEMBER9"))).isFalse();
+    }
+
+    @Test
+    public void searchSlice() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 3));
+        Slice<MemberTeamDto> second = memberRepository.searchSlice(condition, PageRequest.of(1, 3));
+
+        assertThat(first.getContent()).hasSize(3);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).hasSize(1);
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    public void findAllMemberTeamDtosByIdsKeepsInputOrder() throws Exception {
+        Map<String, Long> ids = memberRepository.search(new MemberSearchCondition()).stream()
+                .collect(Collectors.toMap(MemberTeamDto::getUsername, MemberTeamDto::getMemberId));
+        // 영속성 컨텍스트에 있는 회원은 조회 없이 채운다.
+        memberRepository.findById(ids.get("member2")).get().setAge(21);
+
+        List<MemberTeamDto> result = memberRepository.findAllMemberTeamDtosByIds(Arrays.asList(
+                ids.get("member4"), ids.get("member1"), ids.get("member4"), -1L, null, ids.get("member2")));
+
+        assertThat(result).extracting("username").containsExactly("member4", "member1", "member2");
+        assertThat(result).extracting("teamName").containsExactly("teamB", "teamA", "teamA");
+        assertThat(result.get(2).getAge()).isEqualTo(21);
+        assertThat(memberRepository.findAllMemberTeamDtosByIds(List.of())).isEmpty();
+    }
+
+    @Test
+    public void findAllMemberTeamDtosByIdsAcrossChunks() throws Exception {
+        List<Long> existing = memberRepository.search(new MemberSearchCondition()).stream()
+                .map(MemberTeamDto::getMemberId)
+                .collect(Collectors.toList());
+        // IN 절 여러 개에 걸친 id 목록, 끝에 있는 회원이 마지막 청크에 들어간다.
+        List<Long> ids = LongStream.range(1, 600).map(i -> -i).boxed().collect(Collectors.toList());
+        ids.add(0, existing.get(0));
+        ids.addAll(existing.subList(1, existing.size()));
+
+        List<MemberTeamDto> result = memberRepository.findAllMemberTeamDtosByIds(ids);
+
+        assertThat(result).extracting(MemberTeamDto::getMemberId).containsExactlyElementsOf(existing);
+    }
+}
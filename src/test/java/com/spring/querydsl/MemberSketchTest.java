@@ -0,0 +1,165 @@
+package com.spring.querydsl;
+
+import com.spring.querydsl.dto.ApproxDistinct;
+import com.spring.querydsl.dto.MemberField;
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.repository.MemberRepository;
+import com.spring.querydsl.repository.TeamRepository;
+import com.spring.querydsl.service.MemberWriteBehindBuffer;
+import com.spring.querydsl.sketch.MemberSketches;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SeededTest(properties = {
+        "querydsl.sketch.enabled=true",
+        "querydsl.sketch.rebuild-interval-ms=3600000",
+        "querydsl.sketch.drift-rebuild-ms=3600000",
+        "querydsl.write-behind.enabled=true",
+        "querydsl.write-behind.flush-interval-ms=3600000"})
+@CommittedData
+public class MemberSketchTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    MemberSketches memberSketches;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MemberWriteBehindBuffer writeBehindBuffer;
+
+    Team sketchTeam;
+    List<Member> members;
+
+    @BeforeEach
+    public void before() {
+        memberSketches.rebuild();
+        sketchTeam = teamRepository.save(new Team("sketchTeam"));
+        List<Member> created = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            created.add(new Member("sketch" + i, 20 + i % 10, sketchTeam));
+        }
+        members = memberRepository.saveAll(created);
+    }
+
+    @Test
+    public void approxDistinctFromSketches() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("sketchTeam");
+
+        ApproxDistinct usernames = memberRepository.approxDistinct(condition, MemberField.USERNAME);
+        assertThat(usernames.isExact()).isFalse();
+        assertThat(usernames.getLowerBound()).isLessThanOrEqualTo(300);
+        assertThat(usernames.getUpperBound()).isGreaterThanOrEqualTo(300);
+
+        assertThat(memberRepository.approxDistinct(condition, MemberField.AGE).getEstimate()).isEqualTo(10);
+        assertThat(memberRepository.approxDistinct(condition, MemberField.TEAM).getEstimate()).isEqualTo(1);
+
+        condition.setAgeGoe(25);
+        assertThat(memberRepository.approxDistinct(condition, MemberField.AGE).getEstimate()).isEqualTo(5);
+    }
+
+    @Test
+    public void deletesAreReflectedInAgeCounts() throws Exception {
+        List<Member> age29 = members.stream().filter(m -> m.getAge() == 29).collect(Collectors.toList());
+        memberRepository.deleteAll(age29);
+        members.removeAll(age29);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("sketchTeam");
+        assertThat(memberRepository.approxDistinct(condition, MemberField.AGE).getEstimate()).isEqualTo(9);
+    }
+
+    @Test
+    public void usernameConditionIsCountedExactly() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("sketch7");
+
+        ApproxDistinct result = memberRepository.approxDistinct(condition, MemberField.AGE);
+        assertThat(result.isExact()).isTrue();
+        assertThat(result.getEstimate()).isEqualTo(1);
+    }
+
+    @Test
+    public void agesOutsideHistogramRangeAreCountedExactly() throws Exception {
+        List<Member> outliers = new ArrayList<>();
+        for (int age : new int[]{130, 130, 200, -1}) {
+            outliers.add(new Member("sketchOutlier" + outliers.size(), age, sketchTeam));
+        }
+        members.addAll(memberRepository.saveAll(outliers));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("sketchTeam");
+        condition.setAgeGoe(128);
+        ApproxDistinct ages = memberRepository.approxDistinct(condition, MemberField.AGE);
+        assertThat(ages.isExact()).isTrue();
+        assertThat(ages.getEstimate()).isEqualTo(2);
+
+        condition.setAgeLoe(150);
+        assertThat(memberRepository.approxDistinct(condition, MemberField.AGE).getEstimate()).isEqualTo(1);
+
+        condition.setAgeGoe(201);
+        condition.setAgeLoe(null);
+        assertThat(memberRepository.approxDistinct(condition, MemberField.TEAM).getEstimate()).isEqualTo(0);
+
+        condition.setAgeGoe(null);
+        condition.setAgeLoe(-1);
+        assertThat(memberRepository.approxDistinct(condition, MemberField.AGE).getEstimate()).isEqualTo(1);
+    }
+
+    @Test
+    public void driftedAgeCountFallsBackToExactCount() throws Exception {
+        Member changed = members.get(0);
+        // 엔티티 이벤트 없이 바뀐 나이는 삭제 시 스케치에서 뺄 수 없다.
+        jdbcTemplate.update("update member set age = 99 where member_id = ?", changed.getId());
+        memberRepository.deleteById(changed.getId());
+        members.remove(changed);
+
+        assertThat(memberSketches.isReady()).isFalse();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("sketchTeam");
+        assertThat(memberRepository.approxDistinct(condition, MemberField.AGE).getEstimate()).isEqualTo(10);
+
+        memberSketches.rebuild();
+        assertThat(memberSketches.isReady()).isTrue();
+    }
+
+    @Test
+    public void writeBehindFlushRebuildsSketches() throws Exception {
+        // 나이 20 인 회원 30 명을 모두 99 로 옮긴다.
+        members.stream()
+                .filter(member -> member.getAge() == 20)
+                .forEach(member -> writeBehindBuffer.updateAge(member.getId(), 99));
+        writeBehindBuffer.flush();
+
+        assertThat(memberSketches.isReady()).isFalse();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("sketchTeam");
+        condition.setAgeGoe(99);
+        assertThat(memberRepository.approxDistinct(condition, MemberField.AGE).getEstimate()).isEqualTo(1);
+
+        memberSketches.rebuildIfDrifted();
+        assertThat(memberSketches.isReady()).isTrue();
+        assertThat(memberRepository.approxDistinct(condition, MemberField.AGE).getEstimate()).isEqualTo(1);
+        condition.setAgeGoe(null);
+        assertThat(memberRepository.approxDistinct(condition, MemberField.AGE).getEstimate()).isEqualTo(10);
+        condition.setAgeLoe(20);
+        assertThat(memberRepository.approxDistinct(condition, MemberField.AGE).getEstimate()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,83 @@
+package com.spring.querydsl;
+
+import com.spring.querydsl.changefeed.ChangeFeedRelay;
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.repository.MemberRepository;
+import com.spring.querydsl.snapshot.MemberSnapshotExporter;
+import com.spring.querydsl.snapshot.MemberSnapshots;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 범위 증분이 읽은 뒤에 커밋된 더 작은 member_id 를 변경 피드로 받아 내보내는지
+ */
+@SeededTest(properties = {
+        "querydsl.change-feed.enabled=true",
+        "querydsl.change-feed.poll-interval-ms=3600000",
+        "querydsl.snapshot.dir=build/snapshot-late-commit-test"})
+@CommittedData
+public class MemberSnapshotLateCommitTest {
+
+    @Autowired
+    MemberSnapshotExporter exporter;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    ChangeFeedRelay relay;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void lateCommittedLowerIdIsExportedFromChangeFeed() throws Exception {
+        exporter.exportFull();
+        // 시드 회원은 이미 파일에 있으므로 따로 내보내지 않는다.
+        relay.poll();
+        try (MemberSnapshots snapshots = MemberSnapshots.open(exporter.directory())) {
+            assertThat(snapshots.snapshots()).hasSize(1);
+        }
+
+        CountDownLatch flushed = new CountDownLatch(1);
+        CountDownLatch incrementalDone = new CountDownLatch(1);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CompletableFuture<Long> late = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            Member member = memberRepository.saveAndFlush(new Member("lateMember", 60));
+            flushed.countDown();
+            await(incrementalDone);
+            return member.getId();
+        }));
+        assertThat(flushed.await(5, TimeUnit.SECONDS)).isTrue();
+        Member early = memberRepository.save(new Member("earlyMember", 70));
+        exporter.exportIncremental();
+        incrementalDone.countDown();
+        Long lateId = late.get(5, TimeUnit.SECONDS);
+        assertThat(lateId).isLessThan(early.getId());
+
+        relay.poll();
+
+        try (MemberSnapshots snapshots = MemberSnapshots.open(exporter.directory())) {
+            assertThat(snapshots.contains(lateId)).isTrue();
+            assertThat(snapshots.contains(early.getId())).isTrue();
+            assertThat(snapshots.count(new MemberSearchCondition())).isEqualTo(6);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
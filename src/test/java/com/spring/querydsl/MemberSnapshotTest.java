@@ -0,0 +1,105 @@
+package com.spring.querydsl;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.repository.MemberRepository;
+import com.spring.querydsl.snapshot.MemberSnapshot;
+import com.spring.querydsl.snapshot.MemberSnapshotExporter;
+import com.spring.querydsl.snapshot.MemberSnapshots;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SeededTest
+@CommittedData
+public class MemberSnapshotTest {
+
+    @Autowired
+    MemberSnapshotExporter exporter;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void exportFullAndQueryMapped() throws Exception {
+        List<Path> files = exporter.exportFull(directory);
+        assertThat(files).hasSize(1);
+
+        try (MemberSnapshots snapshots = MemberSnapshots.open(directory)) {
+            MemberSnapshot snapshot = snapshots.snapshots().get(0);
+            assertThat(snapshot.rows()).isEqualTo(4);
+            assertThat(snapshot.username(0)).isEqualTo("member1");
+            assertThat(snapshot.teamName(0)).isEqualTo("teamA");
+
+            MemberSearchCondition all = new MemberSearchCondition();
+            assertThat(snapshots.count(all)).isEqualTo(4);
+            assertThat(snapshots.countByTeam(all)).containsExactly(Map.entry("teamA", 2L), Map.entry("teamB", 2L));
+
+            MemberSearchCondition teamB = new MemberSearchCondition();
+            teamB.setTeamName("teamB");
+            assertThat(snapshots.averageAge(teamB).getAsDouble()).isEqualTo(35.0);
+
+            MemberSearchCondition ageRange = new MemberSearchCondition();
+            ageRange.setAgeGoe(20);
+            ageRange.setAgeLoe(30);
+            ageRange.setUsername("member2");
+            assertThat(snapshots.count(ageRange)).isEqualTo(1);
+
+            MemberSearchCondition unknownTeam = new MemberSearchCondition();
+            unknownTeam.setTeamName("teamZ");
+            assertThat(snapshots.count(unknownTeam)).isZero();
+        }
+    }
+
+    @Test
+    public void exportFullReplacesPreviousSeries() throws Exception {
+        exporter.exportFull(directory);
+        memberRepository.save(new Member("snapshotMember", 50));
+        exporter.exportIncremental(directory);
+
+        List<Path> files = exporter.exportFull(directory);
+
+        assertThat(files).hasSize(1);
+        assertThat(directory.resolve(".staging")).doesNotExist();
+        try (MemberSnapshots snapshots = MemberSnapshots.open(directory)) {
+            assertThat(snapshots.snapshots()).extracting(MemberSnapshot::file).containsExactlyElementsOf(files);
+            MemberSnapshot snapshot = snapshots.snapshots().get(0);
+            assertThat(snapshot.rows()).isEqualTo(5);
+            assertThat(snapshot.username(4)).isEqualTo("snapshotMember");
+            assertThat(snapshot.teamId(4)).isNull();
+            assertThat(snapshot.teamName(4)).isNull();
+        }
+    }
+
+    @Test
+    public void exportIncrementalOnlyNewMembers() throws Exception {
+        exporter.exportFull(directory);
+        assertThat(exporter.exportIncremental(directory)).isEmpty();
+
+        memberRepository.save(new Member("snapshotMember", 50));
+        List<Path> files = exporter.exportIncremental(directory);
+        assertThat(files).hasSize(1);
+
+        try (MemberSnapshots snapshots = MemberSnapshots.open(directory)) {
+            assertThat(snapshots.snapshots()).hasSize(2);
+            MemberSnapshot added = snapshots.snapshots().get(1);
+            assertThat(added.rows()).isEqualTo(1);
+            assertThat(added.username(0)).isEqualTo("snapshotMember");
+            assertThat(added.teamName(0)).isNull();
+
+            MemberSearchCondition all = new MemberSearchCondition();
+            assertThat(snapshots.count(all)).isEqualTo(5);
+            // 팀 없는 회원은 팀별 집계에서 빠진다.
+            assertThat(snapshots.countByTeam(all).values().stream().mapToLong(Long::longValue).sum()).isEqualTo(4);
+        }
+    }
+}
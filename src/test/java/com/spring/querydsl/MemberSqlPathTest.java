@@ -0,0 +1,83 @@
+package com.spring.querydsl;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.dto.MemberTeamDto;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.repository.MemberRepository;
+import com.spring.querydsl.sql.MemberSqlReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+@SeededTest(properties = "querydsl.sql-path.enabled=true")
+@Transactional
+public class MemberSqlPathTest {
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberSqlReader memberSqlReader;
+
+    @Test
+    public void searchRunsOnSqlPath() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(35);
+
+        assertThat(memberSqlReader.serves("search")).isTrue();
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        assertThat(result).extracting("username").containsExactly("member4");
+        assertThat(result).extracting("teamName").containsExactly("teamB");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void searchRunsWithoutOuterTransaction() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        List<MemberTeamDto> result = memberRepository.search(condition);
+        Page<MemberTeamDto> page = memberRepository.searchPageSimple(condition, PageRequest.of(0, 2));
+
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("member2", "member3", "member4");
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    public void pageCountsWithoutTeamJoin() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(memberSqlReader.count(condition)).isEqualTo(3);
+    }
+
+    @Test
+    public void unflushedChangesAreVisible() throws Exception {
+        Member member1 = memberRepository.findByUsername("member1").get(0);
+        member1.setAge(50);
+        em.persist(new Member("member5", 60, member1.getTeam()));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(50);
+
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactlyInAnyOrder("member1", "member5");
+    }
+}
@@ -0,0 +1,71 @@
+package com.spring.querydsl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.spring.querydsl.config.MemberTeamCborHttpMessageConverter;
+import com.spring.querydsl.dto.MemberTeamDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class MemberTeamCborHttpMessageConverterTest {
+
+    static final Type PAGE_TYPE = new ParameterizedTypeReference<Page<MemberTeamDto>>() {
+    }.getType();
+
+    MemberTeamCborHttpMessageConverter converter = new MemberTeamCborHttpMessageConverter();
+    ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+    ObjectMapper jsonMapper = new ObjectMapper();
+
+    List<MemberTeamDto> content = List.of(
+            new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+            new MemberTeamDto(2L, "member2", 20, null, null),
+            new MemberTeamDto(3L, "member3", 30, 1L, "teamA"));
+
+    @Test
+    public void pageRoundTripKeepsPageMetadata() throws Exception {
+        assertRoundTrip(new PageImpl<>(content, PageRequest.of(1, 3), 10));
+        assertRoundTrip(new PageImpl<>(content));
+    }
+
+    private void assertRoundTrip(Page<MemberTeamDto> page) throws Exception {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(page, PAGE_TYPE, MediaType.APPLICATION_CBOR, output);
+        ObjectNode decoded = (ObjectNode) cborMapper.readTree(output.getBodyAsBytes());
+
+        assertThat(rows(decoded.remove("content"))).isEqualTo(jsonMapper.valueToTree(content));
+        ObjectNode json = (ObjectNode) jsonMapper.readTree(jsonMapper.writeValueAsString(page));
+        json.remove("content");
+        assertThat(decoded).isEqualTo(json);
+    }
+
+    /**
+     * 컬럼 지향 content 를 MemberTeamDto JSON 행으로 되돌린다.
+     */
+    private JsonNode rows(JsonNode columns) {
+        List<MemberTeamDto> rows = new ArrayList<>();
+        for (int i = 0; i < columns.get("memberId").size(); i++) {
+            int team = columns.get("team").get(i).asInt();
+            rows.add(new MemberTeamDto(
+                    columns.get("memberId").get(i).asLong(),
+                    columns.get("username").get(i).asText(),
+                    columns.get("age").get(i).asInt(),
+                    team < 0 ? null : columns.get("teamIds").get(team).asLong(),
+                    team < 0 ? null : columns.get("teamNames").get(team).asText()));
+        }
+        return jsonMapper.valueToTree(rows);
+    }
+}
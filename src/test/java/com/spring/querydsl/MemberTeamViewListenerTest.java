@@ -0,0 +1,92 @@
+package com.spring.querydsl;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.dto.MemberTeamDto;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.query.SearchCostGuard;
+import com.spring.querydsl.readmodel.MemberTeamViewService;
+import com.spring.querydsl.repository.MemberRepository;
+import com.spring.querydsl.repository.MemberRepositoryImpl;
+import com.spring.querydsl.repository.TeamRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+
+@SeededTest(properties = {
+        "querydsl.read-model.enabled=true",
+        "querydsl.read-model.serve-reads=true"})
+@CommittedData
+public class MemberTeamViewListenerTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    MemberTeamViewService memberTeamViewService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    SearchCostGuard searchCostGuard;
+
+    @Test
+    public void committedChangesArePropagated() throws Exception {
+        Team viewA = teamRepository.save(new Team("viewA"));
+        Team viewB = teamRepository.save(new Team("viewB"));
+        Member saved = memberRepository.save(new Member("viewMember", 10, viewA));
+
+        // insert
+        assertThat(searchByUsername()).extracting("age", "teamName").containsExactly(tuple(10, "viewA"));
+
+        // update : 나이, 팀 이동
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Member member = em.find(Member.class, saved.getId());
+            member.setAge(11);
+            member.changeTeam(em.find(Team.class, viewB.getId()));
+        });
+        assertThat(searchByUsername()).extracting("age", "teamName").containsExactly(tuple(11, "viewB"));
+
+        // 팀 이름 변경
+        Team renamed = teamRepository.findById(viewB.getId()).get();
+        renamed.setName("viewB2");
+        teamRepository.save(renamed);
+        assertThat(searchByUsername()).extracting("teamName").containsExactly("viewB2");
+
+        // delete
+        memberRepository.deleteById(saved.getId());
+        assertThat(searchByUsername()).isEmpty();
+
+        assertThat(memberTeamViewService.check().isConsistent()).isTrue();
+    }
+
+    @Test
+    public void serveReadsWithoutListenerFailsStartup() throws Exception {
+        assertThatThrownBy(() -> new MemberRepositoryImpl(em, true, false,
+                null, null, searchCostGuard, null, null, null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("querydsl.read-model.enabled");
+    }
+
+    private List<MemberTeamDto> searchByUsername() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("viewMember");
+        return memberRepository.search(condition);
+    }
+}
@@ -0,0 +1,68 @@
+package com.spring.querydsl;
+
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.readmodel.MemberTeamViewCheck;
+import com.spring.querydsl.readmodel.MemberTeamViewService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+@SpringBootTest
+@Transactional
+public class MemberTeamViewTest {
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberTeamViewService memberTeamViewService;
+
+    Member member1;
+    Team teamB;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.flush();
+    }
+
+    @Test
+    public void rebuild() throws Exception {
+        memberTeamViewService.rebuild();
+
+        MemberTeamViewCheck check = memberTeamViewService.check();
+        assertThat(check.isConsistent()).isTrue();
+    }
+
+    @Test
+    public void staleAfterChangeTeam() throws Exception {
+        memberTeamViewService.rebuild();
+
+        // 리스너가 등록되지 않은 상태(기본값)에서는 조회 테이블이 갱신되지 않는다.
+        member1.changeTeam(teamB);
+        em.flush();
+
+        MemberTeamViewCheck check = memberTeamViewService.check();
+        assertThat(check.getStale()).isEqualTo(1);
+
+        memberTeamViewService.rebuild();
+        assertThat(memberTeamViewService.check().isConsistent()).isTrue();
+    }
+}
@@ -0,0 +1,83 @@
+package com.spring.querydsl;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.dto.MemberTeamDto;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.repository.MemberRepository;
+import com.spring.querydsl.repository.TeamRepository;
+import com.spring.querydsl.service.MemberWriteBehindBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SeededTest(properties = {
+        "querydsl.write-behind.enabled=true",
+        "querydsl.write-behind.flush-interval-ms=3600000"})
+@CommittedData
+public class MemberWriteBehindTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    MemberWriteBehindBuffer writeBehindBuffer;
+
+    Team team;
+    Member member;
+
+    @BeforeEach
+    public void before() {
+        team = teamRepository.save(new Team("writeBehindTeam"));
+        member = memberRepository.save(new Member("writeBehind", 10, team));
+    }
+
+    @Test
+    public void mergesUpdatesAndOverlaysSearch() throws Exception {
+        writeBehindBuffer.updateAge(member.getId(), 11);
+        writeBehindBuffer.updateAge(member.getId(), 12);
+        writeBehindBuffer.updateUsername(member.getId(), "writeBehind2");
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("writeBehindTeam");
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        // 아직 DB 에는 반영되지 않았지만 조회 결과에는 보인다.
+        assertThat(writeBehindBuffer.hasPending()).isTrue();
+        assertThat(result).extracting("age").containsExactly(12);
+        assertThat(result).extracting("username").containsExactly("writeBehind2");
+
+        assertThat(writeBehindBuffer.flush()).isEqualTo(1);
+        Member flushed = memberRepository.findById(member.getId()).get();
+        assertThat(flushed.getAge()).isEqualTo(12);
+        assertThat(flushed.getUsername()).isEqualTo("writeBehind2");
+    }
+
+    @Test
+    public void filteredSearchFlushesFirst() throws Exception {
+        writeBehindBuffer.updateAge(member.getId(), 99);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(99);
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        assertThat(writeBehindBuffer.hasPending()).isFalse();
+        assertThat(result).extracting("memberId").contains(member.getId());
+    }
+
+    @Test
+    public void updateOfDeletedMemberIsDropped() throws Exception {
+        writeBehindBuffer.updateAge(member.getId(), 20);
+        memberRepository.deleteById(member.getId());
+
+        assertThat(writeBehindBuffer.flush()).isZero();
+        assertThat(writeBehindBuffer.hasPending()).isFalse();
+    }
+}
@@ -0,0 +1,68 @@
+package com.spring.querydsl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.spring.querydsl.config.PageJsonSerializer;
+import com.spring.querydsl.dto.MemberTeamDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class PageJsonSerializerTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    ObjectMapper defaultMapper = new ObjectMapper();
+    ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new SimpleModule().addSerializer(new PageJsonSerializer(registry)));
+
+    List<MemberTeamDto> content = List.of(
+            new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+            new MemberTeamDto(2L, "member2", 20, null, null));
+
+    @Test
+    public void sameFieldsAsDefaultSerialization() throws Exception {
+        assertSameJson(new PageImpl<>(content, PageRequest.of(1, 2), 10));
+        assertSameJson(new PageImpl<>(content));
+    }
+
+    @Test
+    public void timerIsRegisteredOnce() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/v2/members");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            Page<MemberTeamDto> page = new PageImpl<>(content, PageRequest.of(0, 2), 2);
+            mapper.writeValueAsString(page);
+            mapper.writeValueAsString(page);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        assertThat(registry.find("http.server.response.serialization").timers()).hasSize(1);
+        assertThat(registry.get("http.server.response.serialization").tag("uri", "/v2/members").timer().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void serializationOutsideRequestIsNotRecorded() throws Exception {
+        mapper.writeValueAsString(new PageImpl<>(content));
+
+        assertThat(registry.find("http.server.response.serialization").timers()).isEmpty();
+    }
+
+    private void assertSameJson(Page<MemberTeamDto> page) throws Exception {
+        assertThat(mapper.readTree(mapper.writeValueAsString(page)))
+                .isEqualTo(defaultMapper.readTree(defaultMapper.writeValueAsString(page)));
+    }
+}
@@ -0,0 +1,87 @@
+package com.spring.querydsl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * H2 EXPLAIN ANALYZE 결과 요약
+ * - access : 테이블마다 사용한 인덱스 이름 또는 TABLE.tableScan (자동 생성 인덱스 이름의 번호는 뗀다)
+ * - rows : scanCount 합계 (시드 데이터가 고정이므로 실행 계획이 읽는 행 수의 추정치로 쓴다)
+ */
+class QueryPlan {
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*\\s*(.*?)\\s*\\*/", Pattern.DOTALL);
+    private static final String SCHEMA = "PUBLIC.";
+    private static final String TABLE_SCAN = ".tableScan";
+
+    private final List<String> access;
+    private final long rows;
+
+    QueryPlan(List<String> access, long rows) {
+        this.access = access;
+        this.rows = rows;
+    }
+
+    static QueryPlan parse(String plan) {
+        List<String> access = new ArrayList<>();
+        long rows = 0;
+        Matcher matcher = COMMENT.matcher(plan);
+        while (matcher.find()) {
+            String comment = matcher.group(1);
+            if (comment.startsWith("scanCount:")) {
+                rows += Long.parseLong(comment.substring("scanCount:".length()).trim());
+            } else if (comment.startsWith(SCHEMA)) {
+                String target = comment.substring(SCHEMA.length());
+                int colon = target.indexOf(':');
+                if (colon >= 0) {
+                    target = target.substring(0, colon);
+                }
+                access.add(target.endsWith(TABLE_SCAN) ? target : target.replaceAll("_\\d+$", ""));
+            }
+        }
+        Collections.sort(access);
+        return new QueryPlan(access, rows);
+    }
+
+    static QueryPlan load(Properties properties, String key) {
+        String access = properties.getProperty(key + ".access");
+        String rows = properties.getProperty(key + ".rows");
+        if (access == null || rows == null) {
+            return null;
+        }
+        List<String> parsed = new ArrayList<>();
+        for (String item : access.split(",")) {
+            if (!item.isEmpty()) {
+                parsed.add(item);
+            }
+        }
+        return new QueryPlan(parsed, Long.parseLong(rows));
+    }
+
+    void store(Properties properties, String key) {
+        properties.setProperty(key + ".access", String.join(",", access));
+        properties.setProperty(key + ".rows", String.valueOf(rows));
+    }
+
+    /**
+     * 기준보다 tableScan 이 늘었거나, 읽는 행 수가 rowGrowth 배 이상(작은 값은 rowSlack 행 여유) 늘었으면 사유를 돌려준다.
+     */
+    List<String> regressions(String key, QueryPlan baseline, double rowGrowth, long rowSlack) {
+        List<String> regressions = new ArrayList<>();
+        for (String target : new LinkedHashSet<>(access)) {
+            if (target.endsWith(TABLE_SCAN)
+                    && Collections.frequency(access, target) > Collections.frequency(baseline.access, target)) {
+                regressions.add(key + " : new " + target + " (baseline " + baseline.access + ", now " + access + ")");
+            }
+        }
+        if (rows > Math.max(baseline.rows * rowGrowth, baseline.rows + rowSlack)) {
+            regressions.add(key + " : scanned rows " + baseline.rows + " -> " + rows);
+        }
+        return regressions;
+    }
+}
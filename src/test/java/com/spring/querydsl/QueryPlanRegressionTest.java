@@ -0,0 +1,261 @@
+package com.spring.querydsl;
+
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.entity.QMember;
+import com.spring.querydsl.repository.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import static com.spring.querydsl.entity.QMember.member;
+import static com.spring.querydsl.repository.UsernameExpressions.usernameEqIgnoreCase;
+import static com.spring.querydsl.repository.UsernameExpressions.usernameStartsWithIgnoreCase;
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * 조회 모양별 실행 계획 회귀 검사
+ * 모든 MemberSearchCondition 조합의 search / searchPageSimple(fetchResults 내용 + count) / searchPageComplex(내용 + count)
+ * / searchSlice / exists 와 테스트의 서브쿼리 / case 쿼리를 실행하고,
+ * 실행된 SQL 마다 H2 EXPLAIN ANALYZE 결과를 기준(src/test/resources/query-plans.properties)과 비교한다.
+ * - 실패 : 새 tableScan, 읽는 행 수가 ROW_GROWTH 배 넘게 증가, 기준에 없는 조회 모양 (기준이 비어 있어도 실패)
+ * - 결과는 build/query-plans/actual.properties 에 남는다.
+ * - 조건 없는 search 도 거절되지 않고 기준의 모양(limit max-rows)으로 실행되도록 search-guard 는 limit 모드로 둔다.
+ * - 기준 파일은 테스트가 고치지 않는다. ./gradlew test -Pquery-plan.update=true 이면 build/query-plans/baseline.properties 에
+ *   새 기준을 쓰고 비교는 건너뛴다. 검토 후 기준 파일로 복사해서 커밋한다.
+ */
+@SeededTest(properties = {
+        "querydsl.test.seed.teams=20",
+        "querydsl.test.seed.members-per-team=500",
+        "querydsl.search-guard.mode=limit"})
+public class QueryPlanRegressionTest {
+
+    private static final Path BASELINE = Paths.get("src/test/resources/query-plans.properties");
+    private static final Path ACTUAL = Paths.get("build/query-plans/actual.properties");
+    private static final Path BASELINE_OUTPUT = Paths.get("build/query-plans/baseline.properties");
+    private static final double ROW_GROWTH = 2.0;
+    private static final long ROW_SLACK = 100;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    DataSource dataSource;
+
+    @TestConfiguration
+    static class RecorderConfig {
+
+        @Bean
+        public static BeanPostProcessor statementRecorderPostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource && !(bean instanceof StatementRecorder)
+                            ? new StatementRecorder((DataSource) bean)
+                            : bean;
+                }
+            };
+        }
+    }
+
+    @Test
+    public void queryPlansMatchBaseline() throws Exception {
+        StatementRecorder recorder = dataSource.unwrap(StatementRecorder.class);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        // 시드 직후 선택도 통계를 갱신해서 실행 계획을 고정한다.
+        jdbcTemplate.execute("analyze");
+
+        Properties actual = new Properties();
+        for (Map.Entry<String, Runnable> shape : shapes().entrySet()) {
+            // 팀 차원 / 건수 통계 등 첫 실행에만 생기는 조회는 빼고 기록한다.
+            readOnly.executeWithoutResult(status -> shape.getValue().run());
+            recorder.start();
+            readOnly.executeWithoutResult(status -> shape.getValue().run());
+            List<StatementRecorder.Recorded> statements = recorder.stop();
+            for (int i = 0; i < statements.size(); i++) {
+                QueryPlan.parse(explain(jdbcTemplate, statements.get(i))).store(actual, shape.getKey() + "." + (i + 1));
+            }
+        }
+        store(actual, ACTUAL, "query plans of the last test run");
+
+        if (Boolean.getBoolean("query-plan.update")) {
+            store(actual, BASELINE_OUTPUT, "query plan baseline (H2 EXPLAIN ANALYZE, QueryPlanRegressionTest)");
+            return;
+        }
+        Properties baseline = load(BASELINE);
+        assertThat(baseline.stringPropertyNames())
+                .as("empty query plan baseline %s, run with -Pquery-plan.update=true and copy %s after review", BASELINE, BASELINE_OUTPUT)
+                .isNotEmpty();
+        List<String> regressions = new ArrayList<>();
+        for (String key : statementKeys(actual)) {
+            QueryPlan expected = QueryPlan.load(baseline, key);
+            if (expected == null) {
+                regressions.add(key + " : no baseline (run with -Pquery-plan.update=true and copy " + BASELINE_OUTPUT + " after review)");
+            } else {
+                regressions.addAll(QueryPlan.load(actual, key).regressions(key, expected, ROW_GROWTH, ROW_SLACK));
+            }
+        }
+        assertThat(regressions).isEmpty();
+    }
+
+    private Map<String, Runnable> shapes() {
+        Map<String, Runnable> shapes = new LinkedHashMap<>();
+        for (int mask = 0; mask < 16; mask++) {
+            MemberSearchCondition condition = condition(mask);
+            String name = label(mask);
+            shapes.put("search." + name, () -> memberRepository.search(condition));
+            // fetchResults 는 내용과 count 를 항상 같이 실행한다. (/v2/members)
+            shapes.put("searchPageSimple." + name, () -> memberRepository.searchPageSimple(condition, PageRequest.of(1, 20)));
+            // 두 번째 페이지라야 count 쿼리가 항상 실행된다.
+            shapes.put("searchPageComplex." + name, () -> memberRepository.searchPageComplex(condition, PageRequest.of(1, 20)));
+            shapes.put("searchSlice." + name, () -> memberRepository.searchSlice(condition, PageRequest.of(1, 20)));
+            shapes.put("exists." + name, () -> memberRepository.exists(condition));
+        }
+        shapes.put("exists.usernameEqIgnoreCase", () -> memberRepository.exists(usernameEqIgnoreCase("BULKMEMBER4242")));
+        shapes.put("exists.usernameStartsWithIgnoreCase", () -> memberRepository.exists(usernameStartsWithIgnoreCase("BulkMember42")));
+
+        JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+        QMember memberSub = new QMember("memberSub");
+        shapes.put("subQuery.ageIn", () -> queryFactory
+                .selectFrom(member)
+                .where(member.age.in(JPAExpressions
+                        .select(memberSub.age)
+                        .from(memberSub)
+                        .where(memberSub.age.gt(10))))
+                .fetch());
+        shapes.put("subQuery.ageMax", () -> queryFactory
+                .selectFrom(member)
+                .where(member.age.eq(JPAExpressions
+                        .select(memberSub.age.max())
+                        .from(memberSub)))
+                .fetch());
+        shapes.put("subQuery.selectAvg", () -> queryFactory
+                .select(member.username, JPAExpressions
+                        .select(memberSub.age.avg())
+                        .from(memberSub))
+                .from(member)
+                .fetch());
+        shapes.put("case.simple", () -> queryFactory
+                .select(member.age
+                        .when(10).then("열살")
+                        .when(20).then("스무살")
+                        .otherwise("기타"))
+                .from(member)
+                .fetch());
+        NumberExpression<Integer> rankPath = new CaseBuilder()
+                .when(member.age.between(0, 20)).then(2)
+                .when(member.age.between(21, 30)).then(1)
+                .otherwise(3);
+        shapes.put("case.orderBy", () -> queryFactory
+                .select(member.username, member.age, rankPath)
+                .from(member)
+                .orderBy(rankPath.desc())
+                .fetch());
+        return shapes;
+    }
+
+    private static MemberSearchCondition condition(int mask) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if ((mask & 1) != 0) {
+            condition.setUsername("bulkMember4242");
+        }
+        if ((mask & 2) != 0) {
+            condition.setTeamName("team3");
+        }
+        if ((mask & 4) != 0) {
+            condition.setAgeGoe(20);
+        }
+        if ((mask & 8) != 0) {
+            condition.setAgeLoe(40);
+        }
+        return condition;
+    }
+
+    private static String label(int mask) {
+        List<String> fields = new ArrayList<>();
+        String[] names = {"username", "teamName", "ageGoe", "ageLoe"};
+        for (int i = 0; i < names.length; i++) {
+            if ((mask & (1 << i)) != 0) {
+                fields.add(names[i]);
+            }
+        }
+        return fields.isEmpty() ? "none" : String.join("+", fields);
+    }
+
+    private static String explain(JdbcTemplate jdbcTemplate, StatementRecorder.Recorded statement) {
+        return jdbcTemplate.query("explain analyze " + statement.sql,
+                ps -> {
+                    for (int i = 0; i < statement.parameters.size(); i++) {
+                        ps.setObject(i + 1, statement.parameters.get(i));
+                    }
+                },
+                rs -> rs.next() ? rs.getString(1) : "");
+    }
+
+    private static TreeSet<String> statementKeys(Properties properties) {
+        TreeSet<String> keys = new TreeSet<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.endsWith(".access")) {
+                keys.add(name.substring(0, name.length() - ".access".length()));
+            }
+        }
+        return keys;
+    }
+
+    private static Properties load(Path path) throws IOException {
+        Properties properties = new Properties();
+        if (Files.exists(path)) {
+            try (Reader reader = Files.newBufferedReader(path)) {
+                properties.load(reader);
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * 기준 파일 diff 를 읽기 쉽게 키 순서로 쓴다. (키/값에 이스케이프가 필요한 문자는 없다)
+     */
+    private static void store(Properties properties, Path path, String comment) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            writer.write("# " + comment + System.lineSeparator());
+            for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+                writer.write(key + "=" + properties.getProperty(key) + System.lineSeparator());
+            }
+        }
+    }
+}
@@ -4,11 +4,8 @@ import com.querydsl.core.Tuple;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.test.annotation.Commit;
 import org.springframework.transaction.annotation.Transactional;
 import com.spring.querydsl.entity.Member;
-import com.spring.querydsl.entity.Team;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.PersistenceContext;
@@ -20,7 +17,10 @@ import static com.spring.querydsl.entity.QMember.*;
 import static com.spring.querydsl.entity.QTeam.*;
 
 
-@SpringBootTest
+/**
+ * group by / having 예제를 위해 username 이 모두 member1 인 시드(same-username)를 쓴다.
+ */
+@SeededTest(properties = "querydsl.test.seed.dataset=same-username")
 @Transactional
 public class QuerydslBasicTest {
     @PersistenceContext
@@ -34,19 +34,6 @@ public class QuerydslBasicTest {
     @BeforeEach
     public void before() {
         queryFactory = new JPAQueryFactory(em);
-
-        Team teamA = new Team("teamA");
-        Team teamB = new Team("teamB");
-        em.persist(teamA);
-        em.persist(teamB);
-        Member member1 = new Member("member1", 10, teamA);
-        Member member2 = new Member("member1", 20, teamA);
-        Member member3 = new Member("member1", 20, teamB);
-        Member member4 = new Member("member1", 40, teamB);
-        em.persist(member1);
-        em.persist(member2);
-        em.persist(member3);
-        em.persist(member4);
     }
 
     @Test
@@ -4,11 +4,8 @@ import com.querydsl.core.Tuple;
 import com.querydsl.core.types.dsl.CaseBuilder;
 import com.querydsl.core.types.dsl.NumberExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
-import com.spring.querydsl.entity.Member;
-import com.spring.querydsl.entity.Team;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
@@ -18,7 +15,7 @@ import java.util.List;
 import static com.spring.querydsl.entity.QMember.member;
 
 
-@SpringBootTest
+@SeededTest
 @Transactional
 public class QuerydslCaseTest {
     @PersistenceContext
@@ -29,19 +26,6 @@ public class QuerydslCaseTest {
     @BeforeEach
     public void before() {
         queryFactory = new JPAQueryFactory(em);
-
-        Team teamA = new Team("teamA");
-        Team teamB = new Team("teamB");
-        em.persist(teamA);
-        em.persist(teamB);
-        Member member1 = new Member("member1", 10, teamA);
-        Member member2 = new Member("member2", 20, teamA);
-        Member member3 = new Member("member3", 30, teamB);
-        Member member4 = new Member("member4", 40, teamB);
-        em.persist(member1);
-        em.persist(member2);
-        em.persist(member3);
-        em.persist(member4);
     }
 
     @Test
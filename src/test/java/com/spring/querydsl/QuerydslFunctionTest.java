@@ -2,11 +2,8 @@ package com.spring.querydsl;
 
 import com.querydsl.core.types.dsl.Expressions;
 import com.querydsl.jpa.impl.JPAQueryFactory;
-import com.spring.querydsl.entity.Member;
-import com.spring.querydsl.entity.Team;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
@@ -15,7 +12,7 @@ import javax.persistence.PersistenceContext;
 import static com.spring.querydsl.entity.QMember.member;
 
 
-@SpringBootTest
+@SeededTest
 @Transactional
 public class QuerydslFunctionTest {
     @PersistenceContext
@@ -26,19 +23,6 @@ public class QuerydslFunctionTest {
     @BeforeEach
     public void before() {
         queryFactory = new JPAQueryFactory(em);
-
-        Team teamA = new Team("teamA");
-        Team teamB = new Team("teamB");
-        em.persist(teamA);
-        em.persist(teamB);
-        Member member1 = new Member("member1", 10, teamA);
-        Member member2 = new Member("member2", 20, teamA);
-        Member member3 = new Member("member3", 30, teamB);
-        Member member4 = new Member("member4", 40, teamB);
-        em.persist(member1);
-        em.persist(member2);
-        em.persist(member3);
-        em.persist(member4);
     }
 
     @Test
@@ -0,0 +1,44 @@
+package com.spring.querydsl;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * WebAsyncTask 응답의 크기가 처음 dispatch(0 바이트)가 아니라 응답을 써낸 async dispatch 에서 기록되는지
+ */
+@SeededTest
+@AutoConfigureMockMvc
+public class ResponseSizeMetricsTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    public void asyncResponseSizeIsRecordedOnce() throws Exception {
+        MvcResult result = mockMvc.perform(get("/v2/members"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        DistributionSummary summary = meterRegistry.get("http.server.response.bytes").tag("uri", "/v2/members").summary();
+        assertThat(body).isNotEmpty();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isEqualTo(body.length);
+    }
+}
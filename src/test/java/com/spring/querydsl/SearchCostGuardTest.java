@@ -0,0 +1,40 @@
+package com.spring.querydsl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 기본 search-guard 모드(reject)는 허용치를 넘는 /v1 검색을 잘라서 돌려주지 않고 422 로 거절한다.
+ */
+@SeededTest(properties = "querydsl.search-guard.max-rows=3")
+@AutoConfigureMockMvc
+public class SearchCostGuardTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void searchOverBudgetIsRejected() throws Exception {
+        MvcResult result = mockMvc.perform(get("/v1/members")).andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    public void searchWithinBudgetReturnsEveryRow() throws Exception {
+        MvcResult result = mockMvc.perform(get("/v1/members").param("ageGoe", "30")).andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+}
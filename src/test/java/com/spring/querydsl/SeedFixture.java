@@ -0,0 +1,145 @@
+package com.spring.querydsl;
+
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.readmodel.TeamDimension;
+import com.spring.querydsl.responsecache.MemberPageResponseCache;
+import com.spring.querydsl.service.MemberWriteBehindBuffer;
+import com.spring.querydsl.sketch.MemberSketches;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * @SeededTest 컨텍스트마다 한 번, 기본 데이터를 넣고 커밋한다.
+ * - querydsl.test.seed.dataset=default : teamA : member1(10), member2(20) / teamB : member3(30), member4(40)
+ * - querydsl.test.seed.dataset=same-username : teamA : member1(10), member1(20) / teamB : member1(20), member1(40)
+ *   (같은 username 의 group by / having 예제용)
+ * - querydsl.test.seed.teams x members-per-team : 성능 테스트용 추가 데이터 (team0.., bulkMember0..)
+ * 데이터를 커밋하는 테스트는 @CommittedData 를 붙이면 테스트마다 restore() 로 시드 직후 상태로 되돌린다.
+ */
+@Slf4j
+@TestComponent
+public class SeedFixture implements SmartInitializingSingleton {
+
+    private static final int FLUSH_SIZE = 1000;
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<TeamDimension> teamDimension;
+    private final ObjectProvider<MemberSketches> memberSketches;
+    private final ObjectProvider<MemberWriteBehindBuffer> writeBehindBuffer;
+    private final ObjectProvider<MemberPageResponseCache> responseCache;
+    private final String dataset;
+    private final int teams;
+    private final int membersPerTeam;
+
+    public SeedFixture(EntityManager em,
+                       PlatformTransactionManager transactionManager,
+                       DataSource dataSource,
+                       ObjectProvider<TeamDimension> teamDimension,
+                       ObjectProvider<MemberSketches> memberSketches,
+                       ObjectProvider<MemberWriteBehindBuffer> writeBehindBuffer,
+                       ObjectProvider<MemberPageResponseCache> responseCache,
+                       @Value("${querydsl.test.seed.dataset:default}") String dataset,
+                       @Value("${querydsl.test.seed.teams:0}") int teams,
+                       @Value("${querydsl.test.seed.members-per-team:0}") int membersPerTeam) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.teamDimension = teamDimension;
+        this.memberSketches = memberSketches;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.responseCache = responseCache;
+        this.dataset = dataset;
+        this.teams = teams;
+        this.membersPerTeam = membersPerTeam;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        seed();
+        log.info("seeded test database in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 모든 테이블을 비우고 다시 시드한다. 식별자 시퀀스는 되돌리지 않는다.
+     * 테이블을 비우는 동안은 하이버네이트 이벤트가 없으므로 메모리에 둔 파생 상태(팀 차원, 스케치, 응답 캐시)도 다시 만든다.
+     */
+    public void restore() {
+        writeBehindBuffer.ifAvailable(MemberWriteBehindBuffer::flush);
+        List<String> tables = jdbcTemplate.queryForList(
+                "select table_name from information_schema.tables where table_schema = 'PUBLIC' and table_type = 'TABLE'",
+                String.class);
+        jdbcTemplate.execute("set referential_integrity false");
+        try {
+            tables.forEach(table -> jdbcTemplate.execute("truncate table " + table));
+        } finally {
+            jdbcTemplate.execute("set referential_integrity true");
+        }
+        seed();
+        teamDimension.ifAvailable(TeamDimension::invalidate);
+        memberSketches.ifAvailable(MemberSketches::rebuild);
+        responseCache.ifAvailable(MemberPageResponseCache::invalidate);
+    }
+
+    private void seed() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            if ("same-username".equals(dataset)) {
+                em.persist(new Member("member1", 10, teamA));
+                em.persist(new Member("member1", 20, teamA));
+                em.persist(new Member("member1", 20, teamB));
+                em.persist(new Member("member1", 40, teamB));
+            } else {
+                em.persist(new Member("member1", 10, teamA));
+                em.persist(new Member("member2", 20, teamA));
+                em.persist(new Member("member3", 30, teamB));
+                em.persist(new Member("member4", 40, teamB));
+            }
+
+            int sequence = 0;
+            for (int t = 0; t < teams; t++) {
+                Team team = new Team("team" + t);
+                em.persist(team);
+                for (int m = 0; m < membersPerTeam; m++, sequence++) {
+                    em.persist(new Member("bulkMember" + sequence, sequence % 100, team));
+                    if (sequence % FLUSH_SIZE == FLUSH_SIZE - 1) {
+                        em.flush();
+                        em.clear();
+                        team = em.getReference(Team.class, team.getId());
+                    }
+                }
+            }
+            em.flush();
+            em.clear();
+        });
+    }
+
+    /**
+     * @CommittedData : 테스트가 끝날 때마다 restore()
+     */
+    static class RestoreAfterEach implements AfterEachCallback {
+        @Override
+        public void afterEach(ExtensionContext context) {
+            SpringExtension.getApplicationContext(context).getBean(SeedFixture.class).restore();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.spring.querydsl;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.annotation.AliasFor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * SeedFixture 가 기본 데이터를 넣어 둔 스프링 컨텍스트로 테스트를 실행한다.
+ * 같은 properties 를 쓰는 테스트 클래스끼리 컨텍스트와 시드 데이터를 공유하므로 @BeforeEach 에서 다시 넣지 않는다.
+ * 테스트에서 바꾼 데이터는 @Transactional 롤백으로 되돌리고, 커밋이 필요한 테스트는 @CommittedData 를 붙인다.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@SpringBootTest
+@Import(SeedFixture.class)
+public @interface SeededTest {
+
+    /**
+     * 예) querydsl.test.seed.teams=20, querydsl.test.seed.members-per-team=5000 : 성능 테스트용 데이터 추가
+     */
+    @AliasFor(annotation = SpringBootTest.class, attribute = "properties")
+    String[] properties() default {};
+}
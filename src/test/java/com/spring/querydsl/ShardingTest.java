@@ -0,0 +1,128 @@
+package com.spring.querydsl;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.dto.MemberTeamDto;
+import com.spring.querydsl.repository.MemberRepository;
+import com.spring.querydsl.service.ShardedMemberService;
+import com.spring.querydsl.shard.ShardTemplate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+@SpringBootTest(properties = {
+        "querydsl.sharding.enabled=true",
+        "querydsl.sharding.replicate-schema=true",
+        "querydsl.sharding.urls=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1"})
+@DirtiesContext
+public class ShardingTest {
+
+    @Autowired
+    ShardedMemberService shardedMemberService;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    ShardTemplate shardTemplate;
+
+    @BeforeEach
+    public void before() {
+        if (!memberRepository.search(new MemberSearchCondition()).isEmpty()) {
+            return;
+        }
+        for (String teamName : new String[]{"teamA", "teamB", "teamC", "teamD"}) {
+            Long teamId = shardedMemberService.createTeam(teamName);
+            for (int i = 0; i < 5; i++) {
+                shardedMemberService.join(teamId, teamName + "-member" + i, i * 10);
+            }
+        }
+    }
+
+    @Test
+    public void fanOutSearchIsGloballyOrdered() throws Exception {
+        List<MemberTeamDto> result = memberRepository.search(new MemberSearchCondition());
+
+        assertThat(result).hasSize(20);
+        assertThat(result).isSortedAccordingTo((a, b) -> Long.compare(a.getMemberId(), b.getMemberId()));
+    }
+
+    @Test
+    public void teamNameSearchHitsTeamShard() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamC");
+
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        assertThat(result).hasSize(5);
+        assertThat(result).allMatch(dto -> shardTemplate.shardOf(dto.getMemberId()) == shardTemplate.shardOf(dto.getTeamId()));
+    }
+
+    @Test
+    public void fanOutPageHasGlobalTotal() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        Page<MemberTeamDto> first = memberRepository.searchPageComplex(condition, PageRequest.of(0, 5));
+        Page<MemberTeamDto> last = memberRepository.searchPageComplex(condition, PageRequest.of(2, 5));
+
+        assertThat(first.getTotalElements()).isEqualTo(12);
+        assertThat(first.getContent()).hasSize(5);
+        assertThat(last.getContent()).hasSize(2);
+        assertThat(first.getContent().get(4).getMemberId()).isLessThan(last.getContent().get(0).getMemberId());
+    }
+
+    @Test
+    public void findByIdsReadsEachIdOnItsShard() throws Exception {
+        List<Long> ids = memberRepository.search(new MemberSearchCondition()).stream()
+                .map(MemberTeamDto::getMemberId)
+                .sorted(Comparator.reverseOrder())
+                .collect(Collectors.toList());
+
+        List<MemberTeamDto> result = memberRepository.findAllMemberTeamDtosByIds(ids);
+
+        assertThat(result).extracting(MemberTeamDto::getMemberId).containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    public void shardCountBelongsToTheTemplate() throws Exception {
+        assertThat(shardTemplate.shardCount()).isEqualTo(3);
+        assertThat(memberRepository.search(new MemberSearchCondition()))
+                .extracting(dto -> shardTemplate.shardOf(dto.getTeamId()))
+                .containsOnly(0, 1, 2);
+    }
+
+    @Test
+    public void concurrentFanOutsDoNotSerialize() throws Exception {
+        // 두 요청의 fan-out 이 동시에 돌지 못하면 (샤드 수만큼의 스레드) 서로를 기다리다 타임아웃 난다.
+        CountDownLatch allShardsOfBothRequests = new CountDownLatch(shardTemplate.shardCount() * 2);
+        CompletableFuture<List<Boolean>> first = CompletableFuture.supplyAsync(() -> shardTemplate.readAll(() -> await(allShardsOfBothRequests)));
+        CompletableFuture<List<Boolean>> second = CompletableFuture.supplyAsync(() -> shardTemplate.readAll(() -> await(allShardsOfBothRequests)));
+
+        assertThat(first.get(10, TimeUnit.SECONDS)).containsOnly(true);
+        assertThat(second.get(10, TimeUnit.SECONDS)).containsOnly(true);
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.spring.querydsl;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * start() ~ stop() 사이에 같은 스레드에서 실행된 PreparedStatement 조회의 SQL 과 바인딩 값을 기록하는 DataSource 래퍼
+ * 스케줄러 등 다른 스레드의 조회는 기록하지 않는다. (QueryPlanRegressionTest)
+ */
+public class StatementRecorder extends DelegatingDataSource {
+
+    private final List<Recorded> statements = new CopyOnWriteArrayList<>();
+    private volatile Thread recordingThread;
+
+    public StatementRecorder(DataSource target) {
+        super(target);
+    }
+
+    public void start() {
+        statements.clear();
+        recordingThread = Thread.currentThread();
+    }
+
+    public List<Recorded> stop() {
+        recordingThread = null;
+        return new ArrayList<>(statements);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, m, args) -> {
+                    Object result = invoke(connection, m, args);
+                    if ("prepareStatement".equals(m.getName()) && args != null && args[0] instanceof String) {
+                        return wrap((PreparedStatement) result, (String) args[0]);
+                    }
+                    return result;
+                });
+    }
+
+    private PreparedStatement wrap(PreparedStatement statement, String sql) {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, m, args) -> {
+                    String name = m.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        parameters.put((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+                    } else if ("clearParameters".equals(name)) {
+                        parameters.clear();
+                    } else if (("executeQuery".equals(name) || "execute".equals(name)) && args == null
+                            && Thread.currentThread() == recordingThread) {
+                        statements.add(new Recorded(sql, new ArrayList<>(parameters.values())));
+                    }
+                    return invoke(statement, m, args);
+                });
+    }
+
+    private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    public static class Recorded {
+        final String sql;
+        final List<Object> parameters;
+
+        Recorded(String sql, List<Object> parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+    }
+}
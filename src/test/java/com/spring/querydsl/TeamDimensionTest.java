@@ -0,0 +1,93 @@
+package com.spring.querydsl;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.dto.MemberTeamDto;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.repository.MemberRepository;
+import com.spring.querydsl.repository.TeamRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static com.spring.querydsl.entity.QMember.member;
+import static com.spring.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SeededTest
+@CommittedData
+public class TeamDimensionTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Team dimA;
+    Team dimB;
+
+    @BeforeEach
+    public void before() {
+        dimA = teamRepository.save(new Team("dimA"));
+        dimB = teamRepository.save(new Team("dimB"));
+        memberRepository.save(new Member("dimMember1", 10, dimA));
+        memberRepository.save(new Member("dimMember2", 20, dimB));
+    }
+
+    @Test
+    public void searchFillsTeamNameWithoutJoin() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("dimB");
+
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        assertThat(result).extracting("username").containsExactly("dimMember2");
+        assertThat(result).extracting("teamName").containsExactly("dimB");
+    }
+
+    @Test
+    public void teamPredicateIsEvaluatedInMemory() throws Exception {
+        assertThat(memberRepository.exists(team.name.startsWith("dim").and(member.age.goe(20)))).isTrue();
+        assertThat(memberRepository.exists(team.name.eq("dimA").and(member.age.goe(20)))).isFalse();
+    }
+
+    @Test
+    public void predicateTrueForMissingTeamKeepsLeftJoinSemantics() throws Exception {
+        memberRepository.save(new Member("dimNoTeam", 30));
+
+        // 팀이 없는 회원은 left join 에서 team.name 이 null 이다.
+        assertThat(memberRepository.exists(member.username.eq("dimNoTeam").and(team.name.isNull()))).isTrue();
+        assertThat(memberRepository.exists(member.username.eq("dimNoTeam").and(team.name.isNull().or(team.name.eq("dimA"))))).isTrue();
+        assertThat(memberRepository.exists(member.username.eq("dimNoTeam").and(team.name.ne("dimA")))).isFalse();
+    }
+
+    @Test
+    public void renamedTeamIsVisible() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("dimMember1");
+        assertThat(memberRepository.search(condition)).extracting("teamName").containsExactly("dimA");
+
+        // 같은 트랜잭션 안의 아직 flush 되지 않은 변경
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team team = teamRepository.findById(dimA.getId()).get();
+            team.setName("dimA2");
+            assertThat(memberRepository.search(condition)).extracting("teamName").containsExactly("dimA2");
+            status.setRollbackOnly();
+        });
+        assertThat(memberRepository.search(condition)).extracting("teamName").containsExactly("dimA");
+
+        // 커밋된 변경
+        Team renamed = teamRepository.findById(dimA.getId()).get();
+        renamed.setName("dimA3");
+        dimA = teamRepository.save(renamed);
+        assertThat(memberRepository.search(condition)).extracting("teamName").containsExactly("dimA3");
+    }
+}
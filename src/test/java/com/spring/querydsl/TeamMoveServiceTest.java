@@ -0,0 +1,226 @@
+package com.spring.querydsl;
+
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.repository.MemberRepository;
+import com.spring.querydsl.repository.TeamRepository;
+import com.spring.querydsl.service.TeamMoveLockMode;
+import com.spring.querydsl.service.TeamMoveService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PreUpdateEventListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 팀 이동의 동시성 제어
+ * 회원 update SQL 직전(PRE_UPDATE)에 끼어들어 다른 커넥션으로 버전을 올리거나(충돌), 트랜잭션을 잠시 멈춘다(경합).
+ */
+@SeededTest(properties = {
+        "querydsl.team-move.max-attempts=5",
+        "querydsl.team-move.initial-backoff-ms=40",
+        "querydsl.team-move.max-backoff-ms=200"})
+@CommittedData
+public class TeamMoveServiceTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        MemberUpdateHook memberUpdateHook(EntityManagerFactory emf) {
+            return new MemberUpdateHook(emf);
+        }
+    }
+
+    /**
+     * Member update 직전에 before 를 호출한다. (null 이면 아무것도 하지 않는다)
+     */
+    static class MemberUpdateHook {
+        private final EntityManagerFactory emf;
+        volatile Consumer<Long> before;
+
+        MemberUpdateHook(EntityManagerFactory emf) {
+            this.emf = emf;
+        }
+
+        @PostConstruct
+        void register() {
+            emf.unwrap(SessionFactoryImplementor.class)
+                    .getServiceRegistry()
+                    .getService(EventListenerRegistry.class)
+                    .appendListeners(EventType.PRE_UPDATE, (PreUpdateEventListener) event -> {
+                        Consumer<Long> callback = before;
+                        if (callback != null && event.getEntity() instanceof Member) {
+                            callback.accept((Long) event.getId());
+                        }
+                        return false;
+                    });
+        }
+    }
+
+    @Autowired
+    TeamMoveService teamMoveService;
+
+    @Autowired
+    MemberUpdateHook hook;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Member member1;
+    Team teamB;
+
+    @BeforeEach
+    public void before() {
+        member1 = memberRepository.findByUsername("member1").get(0);
+        teamB = memberRepository.findByUsername("member3").get(0).getTeam();
+    }
+
+    @AfterEach
+    public void after() {
+        hook.before = null;
+    }
+
+    @Test
+    public void optimisticMoveRetriesAfterConflictingVersion() throws Exception {
+        AtomicInteger conflicts = new AtomicInteger(2);
+        hook.before = memberId -> {
+            if (conflicts.getAndDecrement() > 0) {
+                bumpVersion(memberId);
+            }
+        };
+
+        long start = System.nanoTime();
+        teamMoveService.moveTeam(member1.getId(), teamB.getId(), TeamMoveLockMode.OPTIMISTIC);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // 두 번 충돌 : 40ms, 80ms 백오프의 지터 하한 (20 + 40)
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(60);
+        assertThat(conflicts.get()).isEqualTo(-1);
+        Member moved = reload(member1.getId());
+        assertThat(moved.getTeam().getName()).isEqualTo("teamB");
+        // 다른 커넥션이 두 번, 이동이 한 번
+        assertThat(moved.getVersion()).isEqualTo(member1.getVersion() + 3);
+    }
+
+    @Test
+    public void optimisticMoveGivesUpAfterMaxAttempts() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        hook.before = memberId -> {
+            attempts.incrementAndGet();
+            bumpVersion(memberId);
+        };
+
+        assertThatThrownBy(() -> teamMoveService.moveTeam(member1.getId(), teamB.getId(), TeamMoveLockMode.OPTIMISTIC))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        assertThat(attempts.get()).isEqualTo(5);
+        assertThat(reload(member1.getId()).getTeam().getName()).isEqualTo("teamA");
+    }
+
+    @Test
+    public void pessimisticWriteSerializesConcurrentMoves() throws Exception {
+        assertConcurrentMovesAreSerialized(TeamMoveLockMode.PESSIMISTIC_WRITE);
+    }
+
+    @Test
+    public void stripedLockSerializesConcurrentMoves() throws Exception {
+        assertConcurrentMovesAreSerialized(TeamMoveLockMode.STRIPED);
+    }
+
+    /**
+     * 첫 이동이 update 직전에 멈춘 동안 두 번째 이동은 기다려야 하고, 둘 다 충돌 없이 차례로 반영된다.
+     */
+    private void assertConcurrentMovesAreSerialized(TeamMoveLockMode lockMode) throws Exception {
+        Team teamC = teamRepository.save(new Team("teamC"));
+        CountDownLatch paused = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        AtomicInteger updates = new AtomicInteger();
+        hook.before = memberId -> {
+            if (updates.getAndIncrement() == 0) {
+                paused.countDown();
+                await(resume);
+            }
+        };
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(
+                () -> teamMoveService.moveTeam(member1.getId(), teamB.getId(), lockMode));
+        assertThat(paused.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> second = CompletableFuture.runAsync(
+                () -> teamMoveService.moveTeam(member1.getId(), teamC.getId(), lockMode));
+
+        Thread.sleep(300);
+        assertThat(second).isNotDone();
+        resume.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+
+        Member moved = reload(member1.getId());
+        assertThat(moved.getTeam().getName()).isEqualTo("teamC");
+        assertThat(moved.getVersion()).isEqualTo(member1.getVersion() + 2);
+    }
+
+    private Member reload(Long memberId) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Member member = em.find(Member.class, memberId);
+            member.getTeam().getName();
+            return member;
+        });
+    }
+
+    /**
+     * 다른 트랜잭션의 커밋된 변경 (트랜잭션에 묶이지 않은 별도 커넥션)
+     */
+    private void bumpVersion(Long memberId) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement("update member set version = version + 1 where member_id = ?")) {
+            ps.setLong(1, memberId);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.spring.querydsl;
+
+import com.spring.querydsl.dto.MemberDto;
+import com.spring.querydsl.dto.TeamWithMembersDto;
+import com.spring.querydsl.repository.TeamRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * 테스트 트랜잭션 없이 호출해도 팀별 회원 스트리밍 조회가 동작하는지 확인한다.
+ */
+@SeededTest
+public class TeamRepositoryStreamingTest {
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Test
+    public void findTeamsWithMembersOutsideTransaction() throws Exception {
+        Page<TeamWithMembersDto> page = teamRepository.findTeamsWithMembers(PageRequest.of(0, 2));
+
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(TeamWithMembersDto::getTeamName).containsExactly("teamA", "teamB");
+        assertThat(page.getContent().get(0).getMembers())
+                .extracting(MemberDto::getUsername, MemberDto::getAge)
+                .containsExactly(tuple("member1", 10), tuple("member2", 20));
+        assertThat(page.getContent().get(1).getMembers())
+                .extracting(MemberDto::getUsername, MemberDto::getAge)
+                .containsExactly(tuple("member3", 30), tuple("member4", 40));
+    }
+}
@@ -0,0 +1,94 @@
+package com.spring.querydsl;
+
+import com.spring.querydsl.dto.TeamWithMembersDto;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.repository.TeamRepository;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+@SpringBootTest
+@Transactional
+public class TeamRepositoryTest {
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    Team teamA;
+    Member member1;
+
+    @BeforeEach
+    public void before() {
+        teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamA);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void countAndContains() throws Exception {
+        assertThat(teamRepository.countMembers(teamA.getId())).isEqualTo(3);
+        assertThat(teamRepository.containsMember(teamA.getId(), member1.getId())).isTrue();
+    }
+
+    @Test
+    public void findMembersAfter() throws Exception {
+        List<Member> first = teamRepository.findMembersAfter(teamA.getId(), null, 2);
+        List<Member> second = teamRepository.findMembersAfter(teamA.getId(), first.get(1).getId(), 2);
+
+        assertThat(first).extracting("username").containsExactly("member1", "member2");
+        assertThat(second).extracting("username").containsExactly("member3");
+    }
+
+    @Test
+    public void changeTeamWithoutLoadingMembers() throws Exception {
+        Team findTeam = em.find(Team.class, teamA.getId());
+        Member newMember = new Member("member5", 50);
+        newMember.changeTeam(findTeam);
+        em.persist(newMember);
+
+        assertThat(Hibernate.isInitialized(findTeam.getMembers())).isFalse();
+        // extra lazy : 컬렉션 초기화 없이 대기 중인 add 를 flush 하고 count/exists 쿼리
+        assertThat(findTeam.getMembers().size()).isEqualTo(4);
+        assertThat(findTeam.getMembers().contains(newMember)).isTrue();
+        assertThat(Hibernate.isInitialized(findTeam.getMembers())).isFalse();
+    }
+
+    @Test
+    public void findTeamsWithMembers() throws Exception {
+        Page<TeamWithMembersDto> first = teamRepository.findTeamsWithMembers(PageRequest.of(0, 1));
+        Page<TeamWithMembersDto> second = teamRepository.findTeamsWithMembers(PageRequest.of(1, 1));
+
+        assertThat(first.getTotalElements()).isEqualTo(2);
+        assertThat(first.getContent().get(0).getTeamName()).isEqualTo("teamA");
+        assertThat(first.getContent().get(0).getMembers()).extracting("username")
+                .containsExactly("member1", "member2", "member3");
+        assertThat(second.getContent().get(0).getMembers()).extracting("username")
+                .containsExactly("member4");
+    }
+}
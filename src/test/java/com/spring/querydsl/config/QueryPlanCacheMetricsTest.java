@@ -0,0 +1,62 @@
+package com.spring.querydsl.config;
+
+import com.spring.querydsl.SeededTest;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 플랜 컴파일 메트릭은 JPQL 원문이 아니라 쿼리 모양으로 태그를 달고, 모양 수는 max-query-shapes 로 제한된다.
+ */
+@SeededTest(properties = "querydsl.metrics.max-query-shapes=3")
+@Transactional
+public class QueryPlanCacheMetricsTest {
+
+    @Autowired
+    QueryPlanCacheMetrics metrics;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    EntityManager em;
+
+    @Test
+    public void normalizeReplacesLiteralsAndParameterLists() {
+        assertThat(QueryPlanCacheMetrics.normalize("select m from Member m\n  where m.age = 10 and m.username = 'it''s'"))
+                .isEqualTo(QueryPlanCacheMetrics.normalize("select m from Member m where m.age = ?1 and m.username = :name"))
+                .isEqualTo("select m from Member m where m.age = ? and m.username = ?");
+        assertThat(QueryPlanCacheMetrics.normalize("select m from Member m where m.id in (?1, ?2, ?3, ?4)"))
+                .isEqualTo("select m from Member m where m.id in (?)");
+    }
+
+    @Test
+    public void queriesAreTaggedByBoundedShape() {
+        for (int age = 0; age < 20; age++) {
+            em.createQuery("select m from Member m where m.age = " + age).getResultList();
+        }
+        // 리터럴만 다른 20개는 한 모양, 나머지는 모양이 모두 다르다.
+        for (String property : new String[]{"id", "username", "age", "team"}) {
+            em.createQuery("select m from Member m order by m." + property).getResultList();
+        }
+
+        metrics.registerQueryShapes();
+
+        Collection<FunctionTimer> timers = registry.find("hibernate.query.plan.compile").functionTimers();
+        assertThat(timers).allSatisfy(timer -> assertThat(timer.getId().getTag("query")).isNull());
+        assertThat(timers).hasSizeLessThanOrEqualTo(4);
+        FunctionTimer ageShape = registry.get("hibernate.query.plan.compile")
+                .tag("shape", Integer.toHexString(QueryPlanCacheMetrics.normalize("select m from Member m where m.age = 0").hashCode()))
+                .functionTimer();
+        assertThat(ageShape.count()).isGreaterThanOrEqualTo(20);
+        assertThat(registry.get("hibernate.query.plan.compile").tag("shape", QueryPlanCacheMetrics.OTHER_SHAPE).functionTimer().count())
+                .isPositive();
+    }
+}
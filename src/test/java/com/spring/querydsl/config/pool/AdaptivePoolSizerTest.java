@@ -0,0 +1,74 @@
+package com.spring.querydsl.config.pool;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+public class AdaptivePoolSizerTest {
+
+    HikariDataSource hikari = new HikariDataSource();
+    // min 5, max 30, step 2, grow-ratio 0.5
+    AdaptivePoolSizer sizer = new AdaptivePoolSizer(
+            new ConnectionMetricsDataSource(hikari, new SimpleMeterRegistry()), 5, 30, 2, 0.5);
+
+    @AfterEach
+    public void after() {
+        hikari.close();
+    }
+
+    @Test
+    public void growsWhenWaitDominatesCheckout() throws Exception {
+        assertThat(sizer.targetSize(10, 3, 10, 600, 1000)).isEqualTo(12);
+        // 대기 스레드가 없으면 평균 대기가 길어도 키우지 않는다.
+        assertThat(sizer.targetSize(10, 0, 10, 600, 1000)).isEqualTo(10);
+        // 대기가 점유 시간의 grow-ratio 이하
+        assertThat(sizer.targetSize(10, 3, 10, 400, 1000)).isEqualTo(10);
+    }
+
+    @Test
+    public void growthIsCappedAtMaxSize() throws Exception {
+        assertThat(sizer.targetSize(29, 3, 29, 2000, 1000)).isEqualTo(30);
+        assertThat(sizer.targetSize(30, 3, 30, 2000, 1000)).isEqualTo(30);
+    }
+
+    @Test
+    public void shrinksWhenIdle() throws Exception {
+        assertThat(sizer.targetSize(20, 0, 5, 10, 1000)).isEqualTo(18);
+        // 활성 커넥션이 절반 이상이면 줄이지 않는다.
+        assertThat(sizer.targetSize(20, 0, 10, 10, 1000)).isEqualTo(20);
+        // 대기가 점유 시간의 5% 이상이면 줄이지 않는다.
+        assertThat(sizer.targetSize(20, 0, 5, 100, 1000)).isEqualTo(20);
+    }
+
+    @Test
+    public void shrinksAfterIntervalWithoutCheckouts() throws Exception {
+        // 요청이 없던 구간은 평균 대기/점유가 모두 0 이다.
+        assertThat(sizer.targetSize(20, 0, 0, 0, 0)).isEqualTo(18);
+    }
+
+    @Test
+    public void shrinkIsFlooredAtMinSize() throws Exception {
+        assertThat(sizer.targetSize(6, 0, 0, 0, 1000)).isEqualTo(5);
+        assertThat(sizer.targetSize(5, 0, 0, 0, 1000)).isEqualTo(5);
+    }
+
+    @Test
+    public void windowAveragesOnlyTheLatestInterval() throws Exception {
+        AdaptivePoolSizer.Window window = new AdaptivePoolSizer.Window();
+        assertThat(window.average(1000, 10)).isEqualTo(100);
+        assertThat(window.average(4000, 20)).isEqualTo(300);
+        // 구간 동안 획득이 없으면 0
+        assertThat(window.average(4000, 20)).isEqualTo(0);
+    }
+
+    @Test
+    public void requiresMetricsDataSource() throws Exception {
+        assertThatThrownBy(() -> new AdaptivePoolSizer(hikari, 5, 30, 2, 0.5))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,84 @@
+package com.spring.querydsl.config.pool;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.data.repository.Repository;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class ConnectionMetricsDataSourceTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    public void recordsWaitAndCheckoutOncePerConnection() throws Exception {
+        ConnectionMetricsDataSource dataSource = new ConnectionMetricsDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:connection-metrics"), registry);
+
+        Connection connection = dataSource.getConnection();
+        connection.close();
+        connection.close();
+
+        assertThat(dataSource.waitCount.sum()).isEqualTo(1);
+        assertThat(dataSource.checkoutCount.sum()).isEqualTo(1);
+        assertThat(registry.get("db.connection.wait").tag("method", "none").timer().count()).isEqualTo(1);
+        assertThat(registry.get("db.connection.checkout").tag("method", "none").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void tagsConnectionsWithRepositoryMethod() throws Exception {
+        ConnectionMetricsDataSource dataSource = new ConnectionMetricsDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:connection-metrics"), registry);
+        AspectJProxyFactory factory = new AspectJProxyFactory(new SampleRepositoryImpl(dataSource));
+        factory.addAspect(new RepositoryMethodAspect());
+        SampleRepository repository = factory.getProxy();
+
+        repository.touch();
+
+        assertThat(registry.get("db.connection.checkout").tag("method", "SampleRepository.touch").timer().count())
+                .isEqualTo(1);
+        // 메서드가 끝나면 태그를 지운다.
+        assertThat(RepositoryMethodAspect.currentMethod()).isEqualTo("none");
+    }
+
+    @Test
+    public void onlyThePrimaryPoolIsWrapped() throws Exception {
+        ConnectionPoolConfig.PrimaryPoolMetricsPostProcessor processor =
+                new ConnectionPoolConfig.PrimaryPoolMetricsPostProcessor(() -> registry);
+        try (HikariDataSource pool = new HikariDataSource(); HikariDataSource shard = new HikariDataSource()) {
+            DataSource wrapper = new DriverManagerDataSource("jdbc:h2:mem:connection-metrics");
+
+            assertThat(processor.postProcessAfterInitialization(pool, "dataSource"))
+                    .isInstanceOf(ConnectionMetricsDataSource.class);
+            assertThat(processor.postProcessAfterInitialization(shard, "shard1DataSource")).isSameAs(shard);
+            assertThat(processor.postProcessAfterInitialization(wrapper, "dataSource")).isSameAs(wrapper);
+        }
+    }
+
+    interface SampleRepository extends Repository<Object, Long> {
+        void touch() throws Exception;
+    }
+
+    static class SampleRepositoryImpl implements SampleRepository {
+        private final DataSource dataSource;
+
+        SampleRepositoryImpl(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Override
+        public void touch() throws Exception {
+            assertThat(RepositoryMethodAspect.currentMethod()).isEqualTo("SampleRepository.touch");
+            try (Connection connection = dataSource.getConnection()) {
+                connection.isValid(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.spring.querydsl.entity.id;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 여러 스레드가 블록을 동시에 소진해도 식별자가 겹치지 않고 시퀀스는 블록마다 한 번만 호출되는지
+ */
+public class LockFreePooledLoOptimizerTest {
+
+    static final int INCREMENT_SIZE = 50;
+    static final int THREADS = 16;
+    static final int IDS_PER_THREAD = 5_000;
+
+    @Test
+    public void concurrentGenerateHandsOutUniqueIdsWithOneSequenceCallPerBlock() throws Exception {
+        SequenceCallback sequence = new SequenceCallback();
+        LockFreePooledLoOptimizer optimizer = new LockFreePooledLoOptimizer(Long.class, INCREMENT_SIZE);
+
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int n = 0; n < IDS_PER_THREAD; n++) {
+                        assertThat(ids.add((Long) optimizer.generate(sequence))).isTrue();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int total = THREADS * IDS_PER_THREAD;
+        assertThat(ids).hasSize(total);
+        // 버려진 블록이 없으면 1 부터 빈틈없이 채워진다.
+        assertThat(ids.stream().mapToLong(Long::longValue).max().getAsLong()).isEqualTo(total);
+        assertThat(sequence.calls.get()).isEqualTo(total / INCREMENT_SIZE);
+    }
+
+    @Test
+    public void lastSourceValueIsTheLatestBlockStart() {
+        SequenceCallback sequence = new SequenceCallback();
+        LockFreePooledLoOptimizer optimizer = new LockFreePooledLoOptimizer(Long.class, INCREMENT_SIZE);
+
+        for (int i = 0; i < INCREMENT_SIZE + 1; i++) {
+            optimizer.generate(sequence);
+        }
+
+        assertThat(sequence.calls.get()).isEqualTo(2);
+        assertThat(optimizer.getLastSourceValue().makeValue()).isEqualTo((long) INCREMENT_SIZE + 1);
+    }
+
+    /**
+     * increment by INCREMENT_SIZE 인 시퀀스 (1, 51, 101, ...)
+     */
+    static class SequenceCallback implements AccessCallback {
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicLong value = new AtomicLong(1);
+
+        @Override
+        public IntegralDataTypeHolder getNextValue() {
+            calls.incrementAndGet();
+            return IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class)
+                    .initialize(value.getAndAdd(INCREMENT_SIZE));
+        }
+
+        @Override
+        public String getTenantIdentifier() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.spring.querydsl.query;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.QueryTimeoutException;
+import javax.servlet.AsyncEvent;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 서블릿 비동기 요청을 WebAsyncManager 로 직접 돌려서 타임아웃/취소/거절 응답을 확인한다.
+ */
+public class MemberQueryExecutorTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    Session session = mock(Session.class);
+    CountDownLatch queryCancelled = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    MemberQueryExecutor executor;
+
+    @AfterEach
+    public void after() {
+        release.countDown();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void jdbcTimeoutIsServiceUnavailable() throws Exception {
+        executor = executor(2, 0, 10);
+        WebAsyncTask<String> task = executor.execute("v1-members", () -> {
+            throw new QueryTimeoutException("statement timeout");
+        });
+
+        assertThatThrownBy(() -> task.getCallable().call())
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(meterRegistry.counter("member.search.timeout").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void deadlineStartsAtSubmit() throws Exception {
+        executor = executor(2, 0, 10);
+        WebAsyncTask<Integer> task = executor.execute("v1-members", QueryDeadline::remainingMillis);
+
+        // 대기열에서 기다린 시간도 타임아웃에 들어간다.
+        Thread.sleep(300);
+
+        assertThatThrownBy(() -> task.getCallable().call())
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+    }
+
+    @Test
+    public void requestTimeoutCancelsRunningQuery() throws Exception {
+        executor = executor(2, 0, 10);
+        CountDownLatch running = new CountDownLatch(1);
+        AsyncRequest request = new AsyncRequest();
+        request.start(executor.execute("v1-members", () -> block(running)));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        request.asyncWebRequest.onTimeout(new AsyncEvent(request.request.getAsyncContext()));
+
+        assertThat(queryCancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(request.manager.getConcurrentResult()).isInstanceOfSatisfying(ResponseStatusException.class,
+                e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+    }
+
+    @Test
+    public void clientDisconnectCancelsRunningQuery() throws Exception {
+        executor = executor(2, 0, 10);
+        CountDownLatch running = new CountDownLatch(1);
+        AsyncRequest request = new AsyncRequest();
+        request.start(executor.execute("v1-members", () -> block(running)));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        request.asyncWebRequest.onError(new AsyncEvent(request.request.getAsyncContext(), new IOException("broken pipe")));
+
+        assertThat(queryCancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.counter("member.search.cancelled").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void rejectsWhenQueueIsFull() throws Exception {
+        executor = executor(1, 1, 10);
+        CountDownLatch running = new CountDownLatch(1);
+        new AsyncRequest().start(executor.execute("v1-members", () -> block(running)));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        AsyncRequest queued = new AsyncRequest();
+        queued.start(executor.execute("v1-members", () -> "queued"));
+
+        assertThatThrownBy(() -> executor.execute("v1-members", () -> "rejected"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(meterRegistry.counter("member.search.rejected-busy").count()).isEqualTo(1);
+
+        // 실행 중인 조회가 끝나면 대기하던 조회가 실행되고 다시 받을 수 있다.
+        release.countDown();
+        long waitUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!queued.manager.hasConcurrentResult() && System.nanoTime() < waitUntil) {
+            Thread.sleep(10);
+        }
+        assertThat(queued.manager.getConcurrentResult()).isEqualTo("queued");
+        WebAsyncTask<String> next = executor.execute("v1-members", () -> "next");
+        assertThat(next.getCallable().call()).isEqualTo("next");
+    }
+
+    @Test
+    public void poolSizeMustLeaveNestedConnections() throws Exception {
+        assertThatThrownBy(() -> executor(16, 0, 10)).isInstanceOf(IllegalStateException.class);
+        executor = executor(5, 0, 10);
+    }
+
+    private MemberQueryExecutor executor(int poolSize, int queueCapacity, int maxConnections) {
+        EntityManager em = mock(EntityManager.class);
+        when(em.unwrap(Session.class)).thenReturn(session);
+        doAnswer(invocation -> {
+            queryCancelled.countDown();
+            return null;
+        }).when(session).cancelQuery();
+        MockEnvironment environment = new MockEnvironment().withProperty("querydsl.query-timeout.v1-members", "100");
+        return new MemberQueryExecutor(em, mock(PlatformTransactionManager.class), environment, meterRegistry,
+                5000, poolSize, queueCapacity, maxConnections);
+    }
+
+    /**
+     * 소켓을 읽고 있는 JDBC 호출처럼 인터럽트로는 끝나지 않는다.
+     * (WebAsyncManager 는 타임아웃/에러 콜백보다 먼저 작업 스레드를 인터럽트하므로 여기서 끝나면 취소할 쿼리가 없어진다)
+     */
+    private String block(CountDownLatch running) {
+        running.countDown();
+        long waitUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        boolean interrupted = false;
+        while (release.getCount() > 0 && System.nanoTime() < waitUntil) {
+            try {
+                release.await(waitUntil - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+
+    private static class AsyncRequest {
+        final MockHttpServletRequest request = new MockHttpServletRequest();
+        final StandardServletAsyncWebRequest asyncWebRequest;
+        final WebAsyncManager manager;
+
+        AsyncRequest() {
+            request.setAsyncSupported(true);
+            asyncWebRequest = new StandardServletAsyncWebRequest(request, new MockHttpServletResponse());
+            manager = WebAsyncUtils.getAsyncManager(request);
+            manager.setAsyncWebRequest(asyncWebRequest);
+        }
+
+        void start(WebAsyncTask<?> task) throws Exception {
+            manager.startCallableProcessing(task);
+        }
+    }
+}